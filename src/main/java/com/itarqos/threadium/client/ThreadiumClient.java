@@ -1,20 +1,37 @@
 package com.itarqos.threadium.client;
 
 import com.itarqos.threadium.Threadium;
+import com.itarqos.threadium.client.blockentity.BlockEntityBakeCache;
+import com.itarqos.threadium.client.blockentity.BlockEntitySectionIndex;
+import com.itarqos.threadium.client.entity.ItemClusterer;
+import com.itarqos.threadium.client.particles.OptimizedParticleSystem;
+import com.itarqos.threadium.client.particles.VanillaParticleTranslator;
 import com.itarqos.threadium.config.ThreadiumConfig;
+import com.itarqos.threadium.render.IdleWindowRunner;
 import com.itarqos.threadium.render.RenderTaskScheduler;
+import com.itarqos.threadium.render.RenderWorkerPool;
+import com.itarqos.threadium.trace.TraceRecorder;
 import com.itarqos.threadium.util.ThreadiumLog;
+import com.itarqos.threadium.util.AutoTuner;
 import com.itarqos.threadium.util.FrameBudgetController;
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import com.itarqos.threadium.util.FrustumHysteresis;
+import com.itarqos.threadium.util.GcPauseMonitor;
+import com.itarqos.threadium.util.WorkBudgetArbiter;
 import com.itarqos.threadium.util.CullingStats;
 import com.itarqos.threadium.util.MovementPredictor;
 import com.itarqos.threadium.world.SubIdentifierManager;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.text.Text;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientBlockEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.InvalidateRenderStateCallback;
 
 public class ThreadiumClient implements ClientModInitializer {
@@ -77,36 +94,149 @@ public class ThreadiumClient implements ClientModInitializer {
                 boolean overlayTopLeft = CONFIG != null && CONFIG.showCullingOverlay && CONFIG.overlayPosition == ThreadiumConfig.OverlayPosition.TOP_LEFT;
                 int yStart = overlayTopLeft ? 4 + 12 : 4;
                 int line = yStart;
-                context.drawTextWithShadow(mc.textRenderer, "Entities Culled: " + com.itarqos.threadium.util.CullingStats.getEntitiesCulled(), x, line, 0xA0FFA0);
+                context.drawTextWithShadow(mc.textRenderer, "Entities Culled: " + com.itarqos.threadium.util.CullingStats.getEntitiesCulled()
+                        + " (clustered " + com.itarqos.threadium.util.CullingStats.getEntitiesClustered() + ")", x, line, 0xA0FFA0);
                 line += 10;
                 context.drawTextWithShadow(mc.textRenderer, "BlockEntities Culled: " + com.itarqos.threadium.util.CullingStats.getBlockEntitiesCulled(), x, line, 0xA0FFA0);
                 line += 10;
+                if (CONFIG != null && CONFIG.enableBlockEntityCulling) {
+                    context.drawTextWithShadow(mc.textRenderer, "BE Sections (accept/reject/partial): " + CullingStats.getBlockEntitySectionsAccepted()
+                            + "/" + CullingStats.getBlockEntitySectionsRejected() + "/" + CullingStats.getBlockEntitySectionsPartial(), x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                if (CONFIG != null && CONFIG.enableBlockEntityBaking) {
+                    context.drawTextWithShadow(mc.textRenderer, "BlockEntities Baked: " + CullingStats.getBlockEntitiesBaked()
+                            + " (" + BlockEntityBakeCache.get().getSectionCount() + " sections, " + CullingStats.getBlockEntitySectionsRebaked() + " rebaked)", x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                if (CONFIG != null && CONFIG.enableUncertaintyMargins) {
+                    context.drawTextWithShadow(mc.textRenderer, String.format("Prediction Margin: +%.1f blocks, +%.1f deg (resets %d)",
+                            MovementPredictor.get().getCullingMargin(), MovementPredictor.get().getConeWidening(),
+                            MovementPredictor.get().getResetCount()), x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                if (CONFIG != null && CONFIG.enableItemClustering) {
+                    context.drawTextWithShadow(mc.textRenderer, "Items Clustered: " + ItemClusterer.get().getHiddenCount()
+                            + " in " + ItemClusterer.get().getClusterCount() + " clusters", x, line, 0xA0FFA0);
+                    line += 10;
+                }
                 context.drawTextWithShadow(mc.textRenderer, "Slices Flushed: " + com.itarqos.threadium.util.CullingStats.getSlicesFlushed(), x, line, 0xA0FFA0);
                 line += 10;
                 context.drawTextWithShadow(mc.textRenderer, "Slices Debounced: " + com.itarqos.threadium.util.CullingStats.getSlicesDebounced(), x, line, 0xA0FFA0);
                 line += 10;
                 context.drawTextWithShadow(mc.textRenderer, "Slices Skipped Empty: " + com.itarqos.threadium.util.CullingStats.getSlicesSkippedEmpty(), x, line, 0xA0FFA0);
                 line += 10;
+                FrameBudgetController qos = FrameBudgetController.get();
+                context.drawTextWithShadow(mc.textRenderer, String.format("Frame p50/p95/p99: %.1f/%.1f/%.1f ms (QoS %+.2f)",
+                        qos.getP50FrameMs(), qos.getP95FrameMs(), qos.getP99FrameMs(), qos.getQosLevel()), x, line, 0xA0FFA0);
+                line += 10;
+                FramePhaseProfiler phases = FramePhaseProfiler.get();
+                context.drawTextWithShadow(mc.textRenderer, String.format("Phases: setup %.1f terrain %.1f ent %.1f be %.1f ms",
+                        phases.getAverageMs(FramePhaseProfiler.Phase.SETUP), phases.getAverageMs(FramePhaseProfiler.Phase.TERRAIN),
+                        phases.getAverageMs(FramePhaseProfiler.Phase.ENTITIES), phases.getAverageMs(FramePhaseProfiler.Phase.BLOCK_ENTITIES)), x, line, 0xA0FFA0);
+                line += 10;
+                context.drawTextWithShadow(mc.textRenderer, String.format("Phases: particles %.1f transl %.1f threadium %.1f other %.1f ms",
+                        phases.getAverageMs(FramePhaseProfiler.Phase.PARTICLES), phases.getAverageMs(FramePhaseProfiler.Phase.TRANSLUCENT),
+                        phases.getAverageMs(FramePhaseProfiler.Phase.THREADIUM), phases.getAverageMs(FramePhaseProfiler.Phase.OTHER)), x, line, 0xA0FFA0);
+                line += 10;
+                WorkBudgetArbiter arbiter = WorkBudgetArbiter.get();
+                if (arbiter.isEnabled()) {
+                    context.drawTextWithShadow(mc.textRenderer, String.format("Work Budget: %.2f/%.2f ms", arbiter.getLastUsedMs(), arbiter.getLastBudgetMs()), x, line, 0xA0FFA0);
+                    line += 10;
+                    context.drawTextWithShadow(mc.textRenderer, "Deferred (slices/unhide/particles/tasks): "
+                            + arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.SLICE_FLUSH) + "/"
+                            + arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.UNHIDE) + "/"
+                            + arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN) + "/"
+                            + (arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.RENDER_TASK_HIGH)
+                               + arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.RENDER_TASK_NORMAL)
+                               + arbiter.getLastDeferred(WorkBudgetArbiter.Consumer.RENDER_TASK_LOW)), x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                OptimizedParticleSystem particles = OptimizedParticleSystem.get();
+                if (particles.getParticleCount() > 0) {
+                    context.drawTextWithShadow(mc.textRenderer, "Threadium Particles: " + particles.getParticleCount()
+                            + " in " + particles.getContainerCount() + " chunks, " + particles.getLastFrameDraws() + " draws, "
+                            + (particles.getVertexMemoryBytes() >> 10) + " KB"
+                            + (particles.getLastParallelParts() > 0 ? ", " + particles.getLastParallelParts() + " jobs" : ""), x, line, 0xA0FFA0);
+                    line += 10;
+                    context.drawTextWithShadow(mc.textRenderer, "Particle Culling: " + particles.getLastDrawnParticles() + " drawn, chunks culled "
+                            + particles.getLastFrustumCulled() + " view/" + particles.getLastDistanceCulled() + " far, "
+                            + particles.getLastSubsampled() + " thinned", x, line, 0xA0FFA0);
+                    line += 10;
+                    if (CONFIG != null && CONFIG.enableParticleTileBudget) {
+                        context.drawTextWithShadow(mc.textRenderer, "Particle Budget: " + particles.getLastBudgetAdmitted() + "/"
+                                + particles.getLastBudgetOffered() + " kept, " + particles.getLastBudgetReplaced() + " replaced", x, line, 0xA0FFA0);
+                        line += 10;
+                    }
+                    if (particles.getActiveEmitterCount() > 0) {
+                        context.drawTextWithShadow(mc.textRenderer, "Particle Emitters: " + particles.getActiveEmitterCount()
+                                + " active, " + particles.getLastEmitted() + " emitted", x, line, 0xA0FFA0);
+                        line += 10;
+                    }
+                }
+                if (VanillaParticleTranslator.isEnabled()) {
+                    context.drawTextWithShadow(mc.textRenderer, "Particle Offload: " + VanillaParticleTranslator.getOffloadedCount()
+                            + " pooled, " + VanillaParticleTranslator.getPassedThroughCount() + " vanilla", x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                IdleWindowRunner idle = IdleWindowRunner.get();
+                if (CONFIG != null && CONFIG.enableIdleTimeWork && idle.getAverageIdleMs() > 0.05) {
+                    context.drawTextWithShadow(mc.textRenderer, String.format("Idle Time: %.2f/%.2f ms used (%.0f%%), overruns %d, idle tasks %d",
+                            idle.getAverageUsedMs(), idle.getAverageIdleMs(), idle.getUtilization() * 100.0,
+                            idle.getOverrunCount(), RenderTaskScheduler.get().getIdleTaskCount()), x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                if (AutoTuner.get().isActive()) {
+                    context.drawTextWithShadow(mc.textRenderer, String.format("Auto-Tuner: %s (score %.2f, kept %d, reverted %d)",
+                            AutoTuner.get().describe(), AutoTuner.get().getIncumbentScore(),
+                            AutoTuner.get().getAccepted(), AutoTuner.get().getRejected()), x, line, 0xA0FFA0);
+                    line += 10;
+                }
+                GcPauseMonitor gc = GcPauseMonitor.get();
+                context.drawTextWithShadow(mc.textRenderer, String.format("GC Pauses: %d (last %.1f ms, max %.1f ms) hiccups %d",
+                        gc.getGcCount(), gc.getLastGcMs(), gc.getMaxGcMs(), gc.getHiccupCount()), x, line, 0xA0FFA0);
+                line += 10;
+                context.drawTextWithShadow(mc.textRenderer, "Long Frames (gc/render/other): "
+                        + qos.getLongFrameCount(FrameBudgetController.LongFrameCause.GC) + "/"
+                        + qos.getLongFrameCount(FrameBudgetController.LongFrameCause.RENDER) + "/"
+                        + qos.getLongFrameCount(FrameBudgetController.LongFrameCause.OTHER), x, line, 0xA0FFA0);
+                line += 10;
+                if (qos.getThrottleFocus() != null) {
+                    context.drawTextWithShadow(mc.textRenderer, "QoS Throttling: " + qos.getThrottleFocus(), x, line, 0xFFA0A0);
+                    line += 10;
+                }
+                if (TraceRecorder.get().isRecording()) {
+                    context.drawTextWithShadow(mc.textRenderer, "Trace Recording: " + (TraceRecorder.get().getBytesWritten() >> 10) + " KB", x, line, 0xFFA0A0);
+                    line += 10;
+                }
                 if (CONFIG != null && CONFIG.enableRenderScheduler) {
-                    context.drawTextWithShadow(mc.textRenderer, "Render Tasks Queued: " + RenderTaskScheduler.get().getQueuedTaskCount(), x, line, 0xA0FFA0);
+                    context.drawTextWithShadow(mc.textRenderer, "Render Tasks Queued: " + RenderTaskScheduler.get().getQueuedTaskCount()
+                            + " (overdue " + RenderTaskScheduler.get().getOverdueTaskCount() + ", starved " + RenderTaskScheduler.get().getStarvedTaskCount()
+                            + ", computing " + RenderWorkerPool.get().getInFlight() + ", coalesced " + RenderTaskScheduler.get().getCoalescedTaskCount()
+                            + ", cancelled " + RenderTaskScheduler.get().getCancelledTaskCount() + ")", x, line, 0xA0FFA0);
+                    line += 10;
+                    int incremental = RenderTaskScheduler.get().getActiveIncrementalCount();
+                    if (incremental > 0) {
+                        double progress = RenderTaskScheduler.get().getIncrementalProgress();
+                        context.drawTextWithShadow(mc.textRenderer, "Incremental Tasks: " + incremental
+                                + (Double.isNaN(progress) ? "" : String.format(" (avg %.0f%%)", progress * 100.0))
+                                + ", steps " + RenderTaskScheduler.get().getIncrementalStepCount(), x, line, 0xA0FFA0);
+                        line += 10;
+                    }
                 }
             }
         });
 
         // Reset counter each client tick so value represents per-tick culls
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
-            // Update movement predictor with current frame timing
-            try {
-                float td = 0.0f;
-                if (client != null && client.getRenderTickCounter() != null) {
-                    td = client.getRenderTickCounter().getTickDelta(false);
-                }
-                MovementPredictor.get().update(td);
-                ThreadiumLog.debug("Movement predictor updated with tick delta: %.3f", td);
-            } catch (Throwable t) {
-                ThreadiumLog.error("Movement predictor update failed", t);
-            }
+            FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.THREADIUM);
+            // Freeze the predictor's estimate for tick-rate consumers
+            MovementPredictor.get().captureTickView();
             CullingStats.reset();
+            // Pause tracking only matters to the GC-aware stutter guard
+            GcPauseMonitor.get().setRunning(CONFIG != null && CONFIG.enableMicroStutterGuard && CONFIG.gcAwareStutterGuard);
+            // Regroup dropped items / XP orbs for this tick
+            ItemClusterer.get().rebuild(client);
             // Flush any dirty subidentifier slices that became visible this tick
             SubIdentifierManager.get().flushVisible();
             
@@ -114,28 +244,67 @@ public class ThreadiumClient implements ClientModInitializer {
             if (CONFIG != null && CONFIG.enableRenderScheduler) {
                 RenderTaskScheduler.get().endFrame();
             }
+            FramePhaseProfiler.get().pop();
         });
         
         // Render scheduler frame hooks
         WorldRenderEvents.START.register(context -> {
+            // Close the previous frame's phase breakdown before anything else runs
+            FramePhaseProfiler.get().beginFrame();
+            FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.THREADIUM);
             // Begin frame timing for QoS controller
             FrameBudgetController.get().beginFrame();
+            AutoTuner.get().onFrame();
+            // Sample the camera every rendered frame so culling follows fast mouse motion
+            MovementPredictor.get().onFrame(context.camera());
+            TraceRecorder.get().onFrame(context.camera(), context.tickCounter().getTickDelta(false));
+            BlockEntityBakeCache.get().beginFrame();
+            // Shared camera/cutoff snapshot for block entity section verdicts
+            BlockEntitySectionIndex.get().beginFrame(context.tickCounter().getTickDelta(false));
             if (CONFIG != null && CONFIG.enableRenderScheduler) {
                 RenderTaskScheduler.get().beginFrame();
                 ThreadiumLog.debug("Render frame started");
             }
+            FramePhaseProfiler.get().pop();
+        });
+
+        // Phase boundaries for per-subsystem frame-time attribution
+        WorldRenderEvents.AFTER_SETUP.register(context -> FramePhaseProfiler.get().mark(FramePhaseProfiler.Phase.TERRAIN));
+        WorldRenderEvents.AFTER_ENTITIES.register(context -> FramePhaseProfiler.get().mark(FramePhaseProfiler.Phase.TRANSLUCENT));
+        WorldRenderEvents.END.register(context -> {
+            FramePhaseProfiler.get().mark(FramePhaseProfiler.Phase.OTHER);
+            // Renew the shared work budget; it covers the coming client ticks and the next frame
+            WorkBudgetArbiter.get().beginPeriod();
         });
         
         WorldRenderEvents.BEFORE_ENTITIES.register(context -> {
+            FramePhaseProfiler.get().mark(FramePhaseProfiler.Phase.ENTITIES);
             if (CONFIG != null && CONFIG.enableRenderScheduler) {
+                FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.THREADIUM);
                 RenderTaskScheduler.get().processTasks();
+                FramePhaseProfiler.get().pop();
                 ThreadiumLog.debug("Processing render tasks before entities");
             }
         });
 
+        // Draw baked block entities once the vanilla block entity pass has run (before translucency)
+        WorldRenderEvents.BEFORE_DEBUG_RENDER.register(context -> {
+            FramePhaseProfiler profiler = FramePhaseProfiler.get();
+            profiler.push(FramePhaseProfiler.Phase.BLOCK_ENTITIES);
+            BlockEntityBakeCache.get().renderFrame(context.camera(), context.positionMatrix(), context.projectionMatrix(),
+                    context.tickCounter().getTickDelta(false));
+            profiler.pop();
+            profiler.push(FramePhaseProfiler.Phase.ENTITIES);
+            ItemClusterer.get().renderBadges(context.camera());
+            profiler.pop();
+        });
+
         // Clear sub-identifier state when the world renderer is invalidated (F3+A, resource reload, options changes)
         InvalidateRenderStateCallback.EVENT.register(() -> {
             SubIdentifierManager.get().onWorldReset();
+            BlockEntityBakeCache.get().clear();
+            ItemClusterer.get().clear();
+            FrustumHysteresis.get().clear();
             if (CONFIG != null && CONFIG.enableRenderScheduler) {
                 RenderTaskScheduler.get().clear();
                 ThreadiumLog.info("Render state invalidated - cleared scheduler tasks");
@@ -146,9 +315,46 @@ public class ThreadiumClient implements ClientModInitializer {
         ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
             if (chunk != null) {
                 SubIdentifierManager.get().onChunkUnload(chunk.getPos());
+                BlockEntityBakeCache.get().onChunkUnload(chunk.getPos());
+                BlockEntitySectionIndex.get().onChunkUnload(chunk.getPos());
+                RenderTaskScheduler.get().cancelChunk(chunk.getPos());
                 ThreadiumLog.debug("Chunk unloaded at %s", chunk.getPos());
             }
         });
+
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            if (chunk != null) {
+                BlockEntitySectionIndex.get().onChunkLoad(chunk);
+            }
+        });
+
+        // Reset the block entity section index eagerly on world change/disconnect, before the new world's load events
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> BlockEntitySectionIndex.get().clear());
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> client.execute(() -> BlockEntitySectionIndex.get().clear()));
+
+        // Keep the block entity section index in sync with the client world
+        ClientBlockEntityEvents.BLOCK_ENTITY_LOAD.register((blockEntity, world) -> {
+            BlockEntitySectionIndex.get().add(blockEntity);
+            TraceRecorder.get().recordBlockEntity(blockEntity.getPos(), true);
+        });
+
+        // Drop baked geometry and index entries for block entities that leave the client world
+        ClientBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register((blockEntity, world) -> {
+            BlockEntityBakeCache.get().remove(blockEntity);
+            BlockEntitySectionIndex.get().remove(blockEntity);
+            TraceRecorder.get().recordBlockEntity(blockEntity.getPos(), false);
+        });
+
+        // Close an active trace cleanly on exit
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            TraceRecorder.get().stop();
+            GcPauseMonitor.get().stop();
+            // Leave the accepted value, not a running trial's candidate, in the config
+            AutoTuner.get().stop();
+            // Particles join their worker tasks before the pool goes away
+            OptimizedParticleSystem.get().close();
+            RenderTaskScheduler.get().shutdown();
+        });
     }
 
     public static void saveConfig() {
@@ -0,0 +1,72 @@
+package com.itarqos.threadium.client.blockentity;
+
+import net.minecraft.client.gl.GlUsage;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BuiltBuffer;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.util.BufferAllocator;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Vertex consumer provider that records block entity renderer output per render layer
+ * so it can be uploaded once into static vertex buffers.
+ * Allocators are kept between bakes and only released by {@link #close()}.
+ */
+final class BakeCapture implements VertexConsumerProvider {
+    private static final int INITIAL_ALLOCATOR_BYTES = 8192;
+
+    private final Map<RenderLayer, BufferAllocator> allocators = new HashMap<>();
+    private final Map<RenderLayer, BufferBuilder> builders = new LinkedHashMap<>();
+
+    @Override
+    public VertexConsumer getBuffer(RenderLayer layer) {
+        BufferBuilder builder = builders.get(layer);
+        if (builder == null) {
+            BufferAllocator allocator = allocators.computeIfAbsent(layer, l -> new BufferAllocator(INITIAL_ALLOCATOR_BYTES));
+            builder = new BufferBuilder(allocator, layer.getDrawMode(), layer.getVertexFormat());
+            builders.put(layer, builder);
+        }
+        return builder;
+    }
+
+    /**
+     * Finish all layers recorded since the last call and upload them into fresh vertex buffers.
+     */
+    void uploadInto(Map<RenderLayer, VertexBuffer> out) {
+        for (Map.Entry<RenderLayer, BufferBuilder> e : builders.entrySet()) {
+            BuiltBuffer built = e.getValue().endNullable();
+            if (built == null) continue;
+            VertexBuffer vb = new VertexBuffer(GlUsage.STATIC_WRITE);
+            vb.bind();
+            vb.upload(built); // upload releases the built buffer
+            VertexBuffer.unbind();
+            out.put(e.getKey(), vb);
+        }
+        builders.clear();
+    }
+
+    /**
+     * Drop any partially recorded layers without uploading them (e.g. after a renderer threw).
+     */
+    void discard() {
+        for (BufferBuilder builder : builders.values()) {
+            BuiltBuffer built = builder.endNullable();
+            if (built != null) built.close();
+        }
+        builders.clear();
+    }
+
+    void close() {
+        discard();
+        for (BufferAllocator allocator : allocators.values()) {
+            allocator.close();
+        }
+        allocators.clear();
+    }
+}
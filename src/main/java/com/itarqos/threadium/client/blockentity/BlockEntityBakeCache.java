@@ -0,0 +1,326 @@
+package com.itarqos.threadium.client.blockentity;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.util.CullingStats;
+import com.itarqos.threadium.util.ThreadiumLog;
+import com.mojang.blaze3d.systems.RenderSystem;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.entity.DecoratedPotBlockEntity;
+import net.minecraft.block.entity.EnderChestBlockEntity;
+import net.minecraft.block.entity.LecternBlockEntity;
+import net.minecraft.block.entity.SignBlockEntity;
+import net.minecraft.block.entity.SkullBlockEntity;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.OverlayTexture;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.client.render.block.entity.BlockEntityRenderDispatcher;
+import net.minecraft.client.render.block.entity.BlockEntityRenderer;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import org.joml.Matrix4f;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bakes idle block entities (signs, chests, skulls, lecterns, decorated pots) into static,
+ * section-relative vertex buffers grouped per chunk section.
+ *
+ * The dispatcher mixin asks {@link #tryConsume} for every block entity that survived culling.
+ * A block entity covered by a clean baked section skips its renderer. The section is drawn once
+ * from its buffers when every member was consumed this frame and its geometry is still current;
+ * otherwise only the consumed members are rendered live, so members rejected by culling or LOD
+ * (or one that just started animating) never show up from the baked geometry. Sections are
+ * re-recorded only when a member receives new data, changes block state, starts animating or
+ * sees a different light value.
+ */
+public final class BlockEntityBakeCache {
+    private static final BlockEntityBakeCache INSTANCE = new BlockEntityBakeCache();
+
+    public static BlockEntityBakeCache get() { return INSTANCE; }
+
+    // Sections not touched by the block entity pass for this many frames release their buffers
+    private static final int EVICT_AFTER_FRAMES = 600;
+    // Decorated pots wobble for at most 15 ticks after being hit
+    private static final long POT_WOBBLE_TICKS = 20L;
+
+    private final Long2ObjectOpenHashMap<BakedSection> sections = new Long2ObjectOpenHashMap<>();
+    private final BakeCapture capture = new BakeCapture();
+    private final MatrixStack bakeMatrices = new MatrixStack();
+    private final MatrixStack liveMatrices = new MatrixStack();
+    private final Matrix4f drawMatrix = new Matrix4f();
+    private long frame = 0L;
+
+    private BlockEntityBakeCache() {}
+
+    private static boolean isEnabled() {
+        return ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableBlockEntityBaking;
+    }
+
+    public void beginFrame() {
+        frame++;
+    }
+
+    /**
+     * Register a block entity that is about to be rendered this frame.
+     * Returns true when a clean baked section already covers it and the vanilla renderer can be skipped.
+     */
+    public boolean tryConsume(BlockEntity blockEntity, World world, Vec3d cameraPos) {
+        if (!isEnabled() || world == null) return false;
+        BlockPos pos = blockEntity.getPos();
+        long posKey = pos.asLong();
+        long sectionKey = ChunkSectionPos.toLong(pos);
+        BakedSection section = sections.get(sectionKey);
+
+        if (!isIdle(blockEntity, world)) {
+            // Animating block entities go through their renderer; re-bake the section without them
+            if (section != null && section.members.remove(posKey) != null) {
+                section.dirty = true;
+            }
+            return false;
+        }
+
+        BlockEntityRenderer<BlockEntity> renderer = MinecraftClient.getInstance().getBlockEntityRenderDispatcher().get(blockEntity);
+        if (renderer == null || !renderer.isInRenderDistance(blockEntity, cameraPos)) return false;
+
+        if (section == null) {
+            section = new BakedSection(pos.getX() & ~15, pos.getY() & ~15, pos.getZ() & ~15);
+            sections.put(sectionKey, section);
+        }
+        int light = WorldRenderer.getLightmapCoordinates(world, pos);
+        Member member = section.members.get(posKey);
+        if (member == null) {
+            section.members.put(posKey, new Member(blockEntity, light));
+            section.dirty = true;
+        } else if (member.blockEntity != blockEntity || member.light != light) {
+            member.blockEntity = blockEntity;
+            member.light = light;
+            section.dirty = true;
+        }
+        section.lastUsedFrame = frame;
+        if (section.dirty || !section.built) return false;
+        member = section.members.get(posKey);
+        if (member.consumedFrame != frame) {
+            member.consumedFrame = frame;
+            if (section.consumedFrame != frame) {
+                section.consumedFrame = frame;
+                section.consumedCount = 0;
+            }
+            section.consumedCount++;
+        }
+        CullingStats.incBlockEntityBaked();
+        return true;
+    }
+
+    /**
+     * Mark the section holding this position for re-baking (block entity data or block state changed).
+     */
+    public void invalidate(BlockPos pos) {
+        BakedSection section = sections.get(ChunkSectionPos.toLong(pos));
+        if (section != null && section.members.containsKey(pos.asLong())) {
+            section.dirty = true;
+        }
+    }
+
+    public void remove(BlockEntity blockEntity) {
+        BlockPos pos = blockEntity.getPos();
+        BakedSection section = sections.get(ChunkSectionPos.toLong(pos));
+        if (section != null && section.members.remove(pos.asLong()) != null) {
+            section.dirty = true;
+        }
+    }
+
+    /**
+     * Draw all baked sections used this frame and re-bake dirty ones within the per-frame rebuild budget.
+     * Must run after the vanilla block entity pass so this frame's {@link #tryConsume} calls are known.
+     */
+    public void renderFrame(Camera camera, Matrix4f positionMatrix, Matrix4f projectionMatrix, float tickDelta) {
+        if (sections.isEmpty()) return;
+        if (!isEnabled()) {
+            clear();
+            return;
+        }
+        Vec3d cam = camera.getPos();
+        int rebuilds = Math.max(1, ThreadiumClient.CONFIG.bakeRebuildsPerFrame);
+        VertexConsumerProvider.Immediate live = null;
+        Iterator<BakedSection> it = sections.values().iterator();
+        while (it.hasNext()) {
+            BakedSection s = it.next();
+            if (s.members.isEmpty() || frame - s.lastUsedFrame > EVICT_AFTER_FRAMES) {
+                s.closeBuffers();
+                it.remove();
+                continue;
+            }
+            if (s.lastUsedFrame != frame) continue;
+            if (s.built && s.consumedFrame == frame) {
+                if (!s.dirty && s.consumedCount == s.members.size()) {
+                    draw(s, cam, positionMatrix, projectionMatrix);
+                } else {
+                    // Baked geometry is stale or holds members that were not consumed: draw the consumed ones live
+                    if (live == null) live = MinecraftClient.getInstance().getBufferBuilders().getEntityVertexConsumers();
+                    renderConsumedLive(s, cam, tickDelta, live);
+                }
+            }
+            if (s.dirty && rebuilds > 0) {
+                rebuild(s);
+                rebuilds--;
+            }
+        }
+        if (live != null) live.draw();
+    }
+
+    private void renderConsumedLive(BakedSection s, Vec3d cam, float tickDelta, VertexConsumerProvider.Immediate live) {
+        BlockEntityRenderDispatcher dispatcher = MinecraftClient.getInstance().getBlockEntityRenderDispatcher();
+        for (Member m : s.members.values()) {
+            if (m.consumedFrame != frame || m.blockEntity.isRemoved()) continue;
+            BlockEntityRenderer<BlockEntity> renderer = dispatcher.get(m.blockEntity);
+            if (renderer == null) continue;
+            BlockPos p = m.blockEntity.getPos();
+            liveMatrices.push();
+            liveMatrices.translate(p.getX() - cam.x, p.getY() - cam.y, p.getZ() - cam.z);
+            renderer.render(m.blockEntity, tickDelta, liveMatrices, live, m.light, OverlayTexture.DEFAULT_UV);
+            liveMatrices.pop();
+        }
+    }
+
+    private void draw(BakedSection s, Vec3d cam, Matrix4f positionMatrix, Matrix4f projectionMatrix) {
+        drawMatrix.set(positionMatrix).translate((float) (s.originX - cam.x), (float) (s.originY - cam.y), (float) (s.originZ - cam.z));
+        for (Map.Entry<RenderLayer, VertexBuffer> e : s.buffers.entrySet()) {
+            RenderLayer layer = e.getKey();
+            VertexBuffer vb = e.getValue();
+            layer.startDrawing();
+            vb.bind();
+            vb.draw(drawMatrix, projectionMatrix, RenderSystem.getShader());
+            VertexBuffer.unbind();
+            layer.endDrawing();
+        }
+    }
+
+    private void rebuild(BakedSection s) {
+        BlockEntityRenderDispatcher dispatcher = MinecraftClient.getInstance().getBlockEntityRenderDispatcher();
+        s.closeBuffers();
+        try {
+            for (Member m : s.members.values()) {
+                BlockEntity be = m.blockEntity;
+                if (be.isRemoved()) continue;
+                BlockEntityRenderer<BlockEntity> renderer = dispatcher.get(be);
+                if (renderer == null) continue;
+                BlockPos p = be.getPos();
+                bakeMatrices.push();
+                bakeMatrices.translate(p.getX() - s.originX, p.getY() - s.originY, p.getZ() - s.originZ);
+                renderer.render(be, 0.0f, bakeMatrices, capture, m.light, OverlayTexture.DEFAULT_UV);
+                bakeMatrices.pop();
+            }
+            capture.uploadInto(s.buffers);
+            s.built = true;
+            CullingStats.incBlockEntitySectionRebaked();
+        } catch (Throwable t) {
+            // Leave the section dirty-free but unbuilt so its members keep using the vanilla renderer
+            capture.discard();
+            s.closeBuffers();
+            s.built = false;
+            bakeMatrices.loadIdentity();
+            ThreadiumLog.error("Block entity bake failed for section at %d,%d,%d: %s", s.originX, s.originY, s.originZ, t.getMessage());
+        }
+        s.dirty = false;
+    }
+
+    /**
+     * Only block entities whose renderer output is fully determined by their data, block state and light
+     * may be baked. Banners sway with world time and are always rendered live.
+     */
+    private static boolean isIdle(BlockEntity be, World world) {
+        if (be instanceof SignBlockEntity) return true; // includes hanging signs
+        if (be instanceof LecternBlockEntity) return true;
+        if (be instanceof ChestBlockEntity chest) {
+            return chest.getAnimationProgress(0.0f) <= 0.0f && chest.getAnimationProgress(1.0f) <= 0.0f;
+        }
+        if (be instanceof EnderChestBlockEntity chest) {
+            return chest.getAnimationProgress(0.0f) <= 0.0f && chest.getAnimationProgress(1.0f) <= 0.0f;
+        }
+        if (be instanceof SkullBlockEntity skull) {
+            // Powered dragon/piglin heads animate; an unpowered head keeps a constant pose
+            return skull.getPoweredTicks(0.0f) == skull.getPoweredTicks(1.0f);
+        }
+        if (be instanceof DecoratedPotBlockEntity pot) {
+            return world.getTime() - pot.lastWobbleTime > POT_WOBBLE_TICKS;
+        }
+        return false;
+    }
+
+    public void onChunkUnload(ChunkPos pos) {
+        ObjectIterator<Long2ObjectMap.Entry<BakedSection>> it = sections.long2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            Long2ObjectMap.Entry<BakedSection> e = it.next();
+            long key = e.getLongKey();
+            if (ChunkSectionPos.unpackX(key) == pos.x && ChunkSectionPos.unpackZ(key) == pos.z) {
+                e.getValue().closeBuffers();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Release every baked buffer (renderer invalidated, world change, feature disabled).
+     */
+    public void clear() {
+        for (BakedSection s : sections.values()) {
+            s.closeBuffers();
+        }
+        sections.clear();
+        capture.close();
+    }
+
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    private static final class Member {
+        BlockEntity blockEntity;
+        int light;
+        long consumedFrame = -1L;
+
+        Member(BlockEntity blockEntity, int light) {
+            this.blockEntity = blockEntity;
+            this.light = light;
+        }
+    }
+
+    private static final class BakedSection {
+        final int originX, originY, originZ;
+        final Long2ObjectOpenHashMap<Member> members = new Long2ObjectOpenHashMap<>();
+        final Map<RenderLayer, VertexBuffer> buffers = new LinkedHashMap<>();
+        boolean dirty = true;
+        boolean built = false;
+        long lastUsedFrame;
+        long consumedFrame = -1L;
+        int consumedCount;
+
+        BakedSection(int originX, int originY, int originZ) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+        }
+
+        void closeBuffers() {
+            for (VertexBuffer vb : buffers.values()) {
+                vb.close();
+            }
+            buffers.clear();
+            built = false;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.itarqos.threadium.client.blockentity;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.util.CullingContext;
+import com.itarqos.threadium.util.CullingStats;
+import com.itarqos.threadium.util.FrameBudgetController;
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import com.itarqos.threadium.util.MovementPredictor;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Per-chunk-section index of loaded block entity positions.
+ *
+ * Each frame the culling context is computed once, and every section that is asked about gets a single
+ * accept/reject/partial verdict from the tight bounds of its block entities. Only block entities in
+ * partial sections are tested individually by the dispatcher mixin.
+ */
+public final class BlockEntitySectionIndex {
+    private static final BlockEntitySectionIndex INSTANCE = new BlockEntitySectionIndex();
+
+    public static BlockEntitySectionIndex get() { return INSTANCE; }
+
+    private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+    private final CullingContext context = new CullingContext();
+    private long frame = 0L;
+    private boolean contextValid = false;
+
+    private BlockEntitySectionIndex() {}
+
+    public void add(BlockEntity blockEntity) {
+        BlockPos pos = blockEntity.getPos();
+        long key = ChunkSectionPos.toLong(pos);
+        Section s = sections.get(key);
+        if (s == null) {
+            s = new Section();
+            sections.put(key, s);
+        }
+        s.add(pos);
+    }
+
+    public void remove(BlockEntity blockEntity) {
+        BlockPos pos = blockEntity.getPos();
+        long key = ChunkSectionPos.toLong(pos);
+        Section s = sections.get(key);
+        if (s == null) return;
+        s.remove(pos.asLong());
+        if (s.positions.isEmpty()) sections.remove(key);
+    }
+
+    public void onChunkLoad(WorldChunk chunk) {
+        for (BlockEntity be : chunk.getBlockEntities().values()) {
+            add(be);
+        }
+    }
+
+    public void onChunkUnload(ChunkPos pos) {
+        ObjectIterator<Long2ObjectMap.Entry<Section>> it = sections.long2ObjectEntrySet().fastIterator();
+        while (it.hasNext()) {
+            long key = it.next().getLongKey();
+            if (ChunkSectionPos.unpackX(key) == pos.x && ChunkSectionPos.unpackZ(key) == pos.z) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Forget every section. Called when the client world changes or the connection closes, before the new world's
+     * chunk and block entity load events repopulate the index.
+     */
+    public void clear() {
+        sections.clear();
+        contextValid = false;
+    }
+
+    /**
+     * Compute the shared culling context for this frame. Called once at the start of world rendering.
+     */
+    public void beginFrame(float tickDelta) {
+        frame++;
+        contextValid = false;
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableBlockEntityCulling) return;
+        if (mc.world == null || mc.getCameraEntity() == null) return;
+
+        Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
+        if (ThreadiumClient.CONFIG.enablePredictionEverywhere) {
+            camPos = MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+        }
+        Vec3d forward = MovementPredictor.get().getSmoothedForward();
+        int bandHalf = ThreadiumClient.CONFIG.enableEntityVerticalBandCulling ? Math.max(1, ThreadiumClient.CONFIG.verticalBandHalfHeight) : 0;
+        context.setEntityThresholds(camPos.x, camPos.y, camPos.z, forward.x, forward.y, forward.z,
+                MovementPredictor.get().getSmoothedSpeed(),
+                FrameBudgetController.get().getFarCutoffMultiplier(FramePhaseProfiler.Phase.BLOCK_ENTITIES),
+                MovementPredictor.get().getCullingMargin(),
+                MovementPredictor.get().getConeWidening(),
+                ThreadiumClient.CONFIG.enableEntityBehindCulling,
+                bandHalf);
+        contextValid = true;
+    }
+
+    public boolean hasFrameContext() {
+        return contextValid;
+    }
+
+    public CullingContext getContext() {
+        return context;
+    }
+
+    /**
+     * Verdict for the section holding this position, computed at most once per frame.
+     * Positions the index has not seen yet are reported as partial so they get an individual test.
+     */
+    public CullingContext.Verdict verdictFor(BlockPos pos) {
+        Section s = sections.get(ChunkSectionPos.toLong(pos));
+        if (s == null) return CullingContext.Verdict.PARTIAL;
+        if (s.verdictFrame != frame) {
+            if (s.boundsDirty) s.recomputeBounds();
+            s.verdict = context.classifyBox(s.minX + 0.5, s.minY + 0.5, s.minZ + 0.5,
+                    s.maxX + 0.5, s.maxY + 0.5, s.maxZ + 0.5);
+            s.verdictFrame = frame;
+            CullingStats.incBlockEntitySectionVerdict(s.verdict);
+        }
+        return s.verdict;
+    }
+
+    public void forEachPosition(LongConsumer consumer) {
+        for (Section s : sections.values()) {
+            s.positions.forEach(consumer);
+        }
+    }
+
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    private static final class Section {
+        final LongOpenHashSet positions = new LongOpenHashSet();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        boolean boundsDirty = false;
+        CullingContext.Verdict verdict = CullingContext.Verdict.PARTIAL;
+        long verdictFrame = -1L;
+
+        void add(BlockPos pos) {
+            if (!positions.add(pos.asLong())) return;
+            // Growing the bounds is exact; shrinking is deferred to the next verdict
+            minX = Math.min(minX, pos.getX()); maxX = Math.max(maxX, pos.getX());
+            minY = Math.min(minY, pos.getY()); maxY = Math.max(maxY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ()); maxZ = Math.max(maxZ, pos.getZ());
+            verdictFrame = -1L;
+        }
+
+        void remove(long posKey) {
+            if (positions.remove(posKey)) {
+                boundsDirty = true;
+                verdictFrame = -1L;
+            }
+        }
+
+        void recomputeBounds() {
+            minX = minY = minZ = Integer.MAX_VALUE;
+            maxX = maxY = maxZ = Integer.MIN_VALUE;
+            LongIterator it = positions.iterator();
+            while (it.hasNext()) {
+                long p = it.nextLong();
+                int x = BlockPos.unpackLongX(p), y = BlockPos.unpackLongY(p), z = BlockPos.unpackLongZ(p);
+                minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+                minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+            }
+            boundsDirty = false;
+        }
+    }
+}
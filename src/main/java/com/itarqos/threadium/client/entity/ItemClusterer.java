@@ -0,0 +1,194 @@
+package com.itarqos.threadium.client.entity;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.LightmapTextureManager;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ExperienceOrbEntity;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.item.Item;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups dropped items and experience orbs that share a small world-space cell (and item type)
+ * beyond a near distance. Only one representative per cluster is rendered; the others are
+ * rejected in EntityRenderDispatcher.shouldRender until the player comes close again.
+ *
+ * Clusters are rebuilt once per client tick; the representative is the lowest entity id in the
+ * cluster so the chosen entity stays stable while the pile is unchanged.
+ */
+public final class ItemClusterer {
+    private static final ItemClusterer INSTANCE = new ItemClusterer();
+
+    public static ItemClusterer get() { return INSTANCE; }
+
+    private static final int XP_ORB_TYPE = -1;
+
+    private final Long2ObjectOpenHashMap<Cluster> clusters = new Long2ObjectOpenHashMap<>();
+    private final List<Cluster> pool = new ArrayList<>();
+    private int poolUsed = 0;
+    // hidden member entity id -> representative entity id
+    private final Int2IntOpenHashMap hiddenMembers = new Int2IntOpenHashMap();
+    private int clusterCount = 0;
+    private final MatrixStack badgeMatrices = new MatrixStack();
+
+    private ItemClusterer() {}
+
+    private static boolean isClusterable(Entity e) {
+        return e instanceof ItemEntity || e instanceof ExperienceOrbEntity;
+    }
+
+    private static int typeKey(Entity e) {
+        if (e instanceof ItemEntity item) return Item.getRawId(item.getStack().getItem());
+        return XP_ORB_TYPE;
+    }
+
+    /**
+     * True when the entity belongs to a cluster and is not its representative.
+     */
+    public boolean isHiddenMember(Entity entity) {
+        if (hiddenMembers.isEmpty() || !isClusterable(entity)) return false;
+        return hiddenMembers.containsKey(entity.getId());
+    }
+
+    public int getHiddenCount() { return hiddenMembers.size(); }
+
+    public int getClusterCount() { return clusterCount; }
+
+    /**
+     * Recompute clusters from the client world. Called once per client tick.
+     */
+    public void rebuild(MinecraftClient mc) {
+        clusters.clear();
+        hiddenMembers.clear();
+        poolUsed = 0;
+        clusterCount = 0;
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableItemClustering) return;
+        if (mc == null || mc.world == null || mc.getCameraEntity() == null) return;
+
+        ClientWorld world = mc.world;
+        Vec3d cam = mc.getCameraEntity().getPos();
+        double near = Math.max(0.0, ThreadiumClient.CONFIG.itemClusterNearDistance);
+        double nearSq = near * near;
+        double cell = Math.max(0.25, ThreadiumClient.CONFIG.itemClusterCellSize);
+
+        // Pass 1: count members and pick the lowest id per (cell, type)
+        for (Entity e : world.getEntities()) {
+            if (!isClusterable(e) || e.squaredDistanceTo(cam) <= nearSq) continue;
+            int cx = MathHelper.floor(e.getX() / cell);
+            int cy = MathHelper.floor(e.getY() / cell);
+            int cz = MathHelper.floor(e.getZ() / cell);
+            int type = typeKey(e);
+            long key = key(cx, cy, cz, type);
+            Cluster c = clusters.get(key);
+            if (c == null) {
+                c = obtain();
+                c.set(cx, cy, cz, type);
+                clusters.put(key, c);
+            } else if (!c.matches(cx, cy, cz, type)) {
+                continue; // hash collision: leave this entity unclustered
+            }
+            c.count++;
+            if (e.getId() < c.representativeId) {
+                c.representativeId = e.getId();
+                c.x = e.getX();
+                c.y = e.getY();
+                c.z = e.getZ();
+            }
+        }
+        if (clusters.isEmpty()) return;
+
+        // Pass 2: everything that is not its cluster's representative is hidden
+        for (Entity e : world.getEntities()) {
+            if (!isClusterable(e) || e.squaredDistanceTo(cam) <= nearSq) continue;
+            int cx = MathHelper.floor(e.getX() / cell);
+            int cy = MathHelper.floor(e.getY() / cell);
+            int cz = MathHelper.floor(e.getZ() / cell);
+            int type = typeKey(e);
+            Cluster c = clusters.get(key(cx, cy, cz, type));
+            if (c == null || c.count < 2 || !c.matches(cx, cy, cz, type)) continue;
+            if (e.getId() != c.representativeId) {
+                hiddenMembers.put(e.getId(), c.representativeId);
+            }
+        }
+        for (int i = 0; i < poolUsed; i++) {
+            if (pool.get(i).count >= 2) clusterCount++;
+        }
+    }
+
+    /**
+     * Debug mode: draw an "xN" badge above each cluster representative.
+     */
+    public void renderBadges(Camera camera) {
+        if (clusterCount == 0 || ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableDebugMode) return;
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc == null || mc.textRenderer == null) return;
+        TextRenderer tr = mc.textRenderer;
+        VertexConsumerProvider.Immediate consumers = mc.getBufferBuilders().getEntityVertexConsumers();
+        Vec3d cam = camera.getPos();
+        for (int i = 0; i < poolUsed; i++) {
+            Cluster c = pool.get(i);
+            if (c.count < 2) continue;
+            String label = "x" + c.count;
+            badgeMatrices.push();
+            badgeMatrices.translate(c.x - cam.x, c.y + 0.75 - cam.y, c.z - cam.z);
+            badgeMatrices.multiply(camera.getRotation());
+            badgeMatrices.scale(0.025f, -0.025f, 0.025f);
+            float x = -tr.getWidth(label) / 2.0f;
+            tr.draw(label, x, 0.0f, 0xFFFFFF55, false, badgeMatrices.peek().getPositionMatrix(), consumers,
+                    TextRenderer.TextLayerType.SEE_THROUGH, 0x40000000, LightmapTextureManager.MAX_LIGHT_COORDINATE);
+            badgeMatrices.pop();
+        }
+        consumers.draw();
+    }
+
+    public void clear() {
+        clusters.clear();
+        hiddenMembers.clear();
+        poolUsed = 0;
+        clusterCount = 0;
+    }
+
+    private Cluster obtain() {
+        if (poolUsed == pool.size()) pool.add(new Cluster());
+        Cluster c = pool.get(poolUsed++);
+        c.count = 0;
+        c.representativeId = Integer.MAX_VALUE;
+        return c;
+    }
+
+    private static long key(int cx, int cy, int cz, int type) {
+        long h = 1469598103934665603L;
+        h ^= cx; h *= 1099511628211L;
+        h ^= cy; h *= 1099511628211L;
+        h ^= cz; h *= 1099511628211L;
+        h ^= type; h *= 1099511628211L;
+        return h;
+    }
+
+    private static final class Cluster {
+        int cx, cy, cz, type;
+        int count;
+        int representativeId;
+        double x, y, z;
+
+        void set(int cx, int cy, int cz, int type) {
+            this.cx = cx; this.cy = cy; this.cz = cz; this.type = type;
+        }
+
+        boolean matches(int cx, int cy, int cz, int type) {
+            return this.cx == cx && this.cy == cy && this.cz == cz && this.type == type;
+        }
+    }
+}
@@ -1,41 +1,71 @@
 package com.itarqos.threadium.client.particles;
 
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.gl.ShaderProgramKeys;
-import net.minecraft.client.render.*;
-import net.minecraft.client.util.BufferAllocator;
+import net.minecraft.client.render.LightmapTextureManager;
+import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
-import com.mojang.blaze3d.systems.RenderSystem;
-import org.joml.Quaternionf;
+import org.joml.FrustumIntersection;
 import org.joml.Vector3f;
-import net.minecraft.client.render.GameRenderer;
-import net.minecraft.client.gl.ShaderProgram;
-import net.minecraft.client.render.BufferBuilder;
-import net.minecraft.client.render.VertexFormat;
-import net.minecraft.client.render.VertexFormats;
+import org.lwjgl.system.MemoryUtil;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
-import static net.minecraft.client.render.GameRenderer.*;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
- * Holds pooled particles for a single chunk and updates/renders them together.
+ * Holds the particles of a single chunk and updates/renders them together.
+ *
+ * Storage is structure-of-arrays: one primitive array per attribute, live particles packed in [0, count).
+ * Positions are floats relative to the chunk's origin (block x/z of its corner, y 0), which keeps full precision
+ * at any world coordinate. A dead particle is replaced by the last live one (swap-remove), so ticking is one
+ * linear pass with no allocation and no per-particle objects.
  */
 public final class ChunkParticleContainer {
+    private static final int INITIAL_CAPACITY = 64;
+    // Shrink when a burst has died down and the arrays are mostly empty
+    private static final int MIN_TRIM_CAPACITY = 1024;
+    // Bytes per vertex in VertexFormats.POSITION_COLOR: 3 floats + 4 color bytes
+    static final int POSITION_COLOR_BYTES = 16;
+    // Bytes per vertex in VertexFormats.POSITION_TEXTURE_COLOR_LIGHT: 3 floats, 2 floats, 4 color bytes, 2 shorts
+    static final int PARTICLE_BYTES = 28;
+    // Light of each particle is re-sampled every (mask + 1) ticks, a slice of the particles per tick
+    static final int LIGHT_REFRESH_MASK = 7;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    static final int FULL_BRIGHT = LightmapTextureManager.MAX_LIGHT_COORDINATE;
+
     private final ChunkPos chunkPos;
-    private final ParticlePool pool;
-    private final List<PooledParticle> active = new ArrayList<>(256);
-    // Reusable buffer per container to batch quads and submit a single draw call
-    private final BufferBuilder buffer = new BufferBuilder(new BufferAllocator(1024), VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
+    private final double originX;
+    private final double originZ;
+
+    private int count = 0;
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] z = new float[INITIAL_CAPACITY];
+    private float[] vx = new float[INITIAL_CAPACITY];
+    private float[] vy = new float[INITIAL_CAPACITY];
+    private float[] vz = new float[INITIAL_CAPACITY];
+    private float[] size = new float[INITIAL_CAPACITY];
+    private float[] gravity = new float[INITIAL_CAPACITY];  // subtracted from vy each tick
+    private float[] drag = new float[INITIAL_CAPACITY];     // velocity multiplier each tick
+    private int[] color = new int[INITIAL_CAPACITY];      // ARGB
+    private short[] age = new short[INITIAL_CAPACITY];
+    private short[] lifetime = new short[INITIAL_CAPACITY];
+    private short[] texture = new short[INITIAL_CAPACITY]; // ParticleSpriteTable index
+    private byte[] layer = new byte[INITIAL_CAPACITY];     // ParticleLayer ordinal, fixed by the texture
+    private int[] light = new int[INITIAL_CAPACITY];       // packed lightmap coordinates, refreshed every few ticks
+    private final int[] layerCounts = new int[ParticleLayer.VALUES.length];
+    // Bounds of the particle centers in the container's frame, rebuilt each tick and grown by spawns
+    private float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+    private float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+    // Margin for quad extent and one tick of interpolated motion
+    private float pad = 0f;
 
-    public ChunkParticleContainer(ChunkPos chunkPos, ParticlePool pool) {
+    public ChunkParticleContainer(ChunkPos chunkPos) {
         this.chunkPos = chunkPos;
-        this.pool = pool;
+        this.originX = chunkPos.getStartX();
+        this.originZ = chunkPos.getStartZ();
     }
 
     public ChunkPos getChunkPos() {
@@ -44,54 +74,288 @@ public final class ChunkParticleContainer {
 
     public void addParticle(Vec3d pos, Vec3d vel, int lifetime, float size,
                             float r, float g, float b, float a, int textureIndex) {
-        PooledParticle p = pool.obtain();
-        p.init(pos, vel, lifetime, size, r, g, b, a, textureIndex);
-        active.add(p);
+        add(pos.x, pos.y, pos.z, (float) vel.x, (float) vel.y, (float) vel.z, lifetime, size,
+                packColor(r, g, b, a), textureIndex);
+    }
+
+    /**
+     * Append one particle. {@code argb} is a packed color, see {@link #packColor}.
+     */
+    public void add(double wx, double wy, double wz, float velX, float velY, float velZ,
+                    int lifetimeTicks, float particleSize, int argb, int textureIndex) {
+        add(wx, wy, wz, velX, velY, velZ, lifetimeTicks, particleSize, argb, 0f, 1f, textureIndex, FULL_BRIGHT);
+    }
+
+    /**
+     * Append one particle with vanilla-style motion: each tick {@code gravityPerTick} is subtracted from the
+     * vertical velocity before moving, and the velocity is then multiplied by {@code dragFactor}.
+     * {@code packedLight} is the lightmap value at the spawn position, used until the next refresh.
+     */
+    public void add(double wx, double wy, double wz, float velX, float velY, float velZ,
+                    int lifetimeTicks, float particleSize, int argb, float gravityPerTick, float dragFactor,
+                    int textureIndex, int packedLight) {
+        if (count == x.length) grow(count * 2);
+        int i = count++;
+        x[i] = (float) (wx - originX);
+        y[i] = (float) wy;
+        z[i] = (float) (wz - originZ);
+        vx[i] = velX;
+        vy[i] = velY;
+        vz[i] = velZ;
+        size[i] = particleSize;
+        gravity[i] = gravityPerTick;
+        drag[i] = dragFactor;
+        color[i] = argb;
+        age[i] = 0;
+        lifetime[i] = (short) MathHelper.clamp(lifetimeTicks, 1, Short.MAX_VALUE);
+        texture[i] = (short) textureIndex;
+        int l = ParticleSpriteTable.get().layerOf(textureIndex).ordinal();
+        layer[i] = (byte) l;
+        layerCounts[l]++;
+        light[i] = packedLight;
+        include(x[i], y[i], z[i], Math.max(Math.abs(velX), Math.max(Math.abs(velY), Math.abs(velZ))) + particleSize * 0.5f);
+    }
+
+    /**
+     * Make room for {@code n} particles sharing one texture at the end of the arrays and return the first index.
+     * Every reserved slot must be filled with {@link #setBatched} before the container is ticked or drawn.
+     */
+    int appendBatch(int n, int textureIndex) {
+        if (count + n > x.length) grow(Math.max(x.length * 2, count + n));
+        int first = count;
+        count += n;
+        int l = ParticleSpriteTable.get().layerOf(textureIndex).ordinal();
+        Arrays.fill(texture, first, count, (short) textureIndex);
+        Arrays.fill(layer, first, count, (byte) l);
+        Arrays.fill(age, first, count, (short) 0);
+        layerCounts[l] += n;
+        return first;
+    }
+
+    /**
+     * Fill a slot reserved by {@link #appendBatch}; same parameters as {@link #add}, minus the texture.
+     */
+    void setBatched(int i, double wx, double wy, double wz, float velX, float velY, float velZ,
+                    int lifetimeTicks, float particleSize, int argb, float gravityPerTick, float dragFactor, int packedLight) {
+        x[i] = (float) (wx - originX);
+        y[i] = (float) wy;
+        z[i] = (float) (wz - originZ);
+        vx[i] = velX;
+        vy[i] = velY;
+        vz[i] = velZ;
+        size[i] = particleSize;
+        gravity[i] = gravityPerTick;
+        drag[i] = dragFactor;
+        color[i] = argb;
+        lifetime[i] = (short) MathHelper.clamp(lifetimeTicks, 1, Short.MAX_VALUE);
+        light[i] = packedLight;
+        include(x[i], y[i], z[i], Math.max(Math.abs(velX), Math.max(Math.abs(velY), Math.abs(velZ))) + particleSize * 0.5f);
+    }
+
+    private void include(float px, float py, float pz, float margin) {
+        if (px < minX) minX = px;
+        if (py < minY) minY = py;
+        if (pz < minZ) minZ = pz;
+        if (px > maxX) maxX = px;
+        if (py > maxY) maxY = py;
+        if (pz > maxZ) maxZ = pz;
+        if (margin > pad) pad = margin;
+    }
+
+    private void resetBounds() {
+        minX = minY = minZ = Float.POSITIVE_INFINITY;
+        maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+        pad = 0f;
     }
 
     public void tick() {
-        // Update all particles and return dead ones to pool
-        Iterator<PooledParticle> it = active.iterator();
-        while (it.hasNext()) {
-            PooledParticle p = it.next();
-            p.tick();
-            if (!p.alive) {
-                it.remove();
-                pool.free(p);
+        resetBounds();
+        int n = count;
+        int i = 0;
+        while (i < n) {
+            int a = age[i] + 1;
+            if (a >= lifetime[i]) {
+                // Swap-remove: the last live particle takes this slot and is ticked next
+                layerCounts[layer[i]]--;
+                moveLast(--n, i);
+                continue;
             }
+            age[i] = (short) a;
+            // Euler integration in vanilla's order: gravity, move, drag (no collision)
+            vy[i] -= gravity[i];
+            x[i] += vx[i];
+            y[i] += vy[i];
+            z[i] += vz[i];
+            float d = drag[i];
+            vx[i] *= d;
+            vy[i] *= d;
+            vz[i] *= d;
+            include(x[i], y[i], z[i], Math.max(Math.abs(vx[i]), Math.max(Math.abs(vy[i]), Math.abs(vz[i]))) + size[i] * 0.5f);
+            i++;
         }
+        count = n;
+        if (x.length >= MIN_TRIM_CAPACITY && count < x.length / 4) {
+            grow(Math.max(INITIAL_CAPACITY, x.length / 2));
+        }
+    }
+
+    private void moveLast(int last, int to) {
+        if (last == to) return;
+        x[to] = x[last];
+        y[to] = y[last];
+        z[to] = z[last];
+        vx[to] = vx[last];
+        vy[to] = vy[last];
+        vz[to] = vz[last];
+        size[to] = size[last];
+        gravity[to] = gravity[last];
+        drag[to] = drag[last];
+        color[to] = color[last];
+        age[to] = age[last];
+        lifetime[to] = lifetime[last];
+        texture[to] = texture[last];
+        layer[to] = layer[last];
+        light[to] = light[last];
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        vz = Arrays.copyOf(vz, capacity);
+        size = Arrays.copyOf(size, capacity);
+        gravity = Arrays.copyOf(gravity, capacity);
+        drag = Arrays.copyOf(drag, capacity);
+        color = Arrays.copyOf(color, capacity);
+        age = Arrays.copyOf(age, capacity);
+        lifetime = Arrays.copyOf(lifetime, capacity);
+        texture = Arrays.copyOf(texture, capacity);
+        layer = Arrays.copyOf(layer, capacity);
+        light = Arrays.copyOf(light, capacity);
     }
 
     public boolean isEmpty() {
-        return active.isEmpty();
+        return count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int size(ParticleLayer l) {
+        return layerCounts[l.ordinal()];
+    }
+
+    /**
+     * Quads per layer that {@link #emit} writes with the given stride, into {@code out} from {@code offset}.
+     */
+    public void countLayers(int stride, int[] out, int offset) {
+        if (stride <= 1) {
+            System.arraycopy(layerCounts, 0, out, offset, layerCounts.length);
+            return;
+        }
+        Arrays.fill(out, offset, offset + layerCounts.length, 0);
+        for (int i = 0; i < count; i += stride) out[offset + layer[i]]++;
     }
 
     /**
-     * Placeholder for batched rendering. Currently a no-op to ensure safe compilation
-     * without hard dependency on specific buffer builders. You can implement a proper
-     * buffered draw by building a quad per particle into a shared BufferBuilder.
+     * Squared distance from a world position to the padded bounds (0 inside).
      */
-    public void renderBatched(float tickDelta) {
-        MinecraftClient mc = MinecraftClient.getInstance();
-        if (mc == null || mc.getCameraEntity() == null || active.isEmpty()) return;
+    public double distanceSq(double wx, double wy, double wz) {
+        if (count == 0) return Double.POSITIVE_INFINITY;
+        double dx = axisGap(wx - originX, minX - pad, maxX + pad);
+        double dy = axisGap(wy, minY - pad, maxY + pad);
+        double dz = axisGap(wz - originZ, minZ - pad, maxZ + pad);
+        return dx * dx + dy * dy + dz * dz;
+    }
 
-        // Camera data
-        Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
-        Quaternionf camRot = mc.gameRenderer.getCamera().getRotation();
-        Vector3f right = new Vector3f(1f, 0f, 0f).rotate(camRot);
-        Vector3f up = new Vector3f(0f, 1f, 0f).rotate(camRot);
+    private static double axisGap(double v, double lo, double hi) {
+        return v < lo ? lo - v : v > hi ? v - hi : 0.0;
+    }
 
-        // BufferBuilder is already configured with DrawMode and VertexFormat via constructor in modern mappings.
-        // No explicit begin() call is needed here.
+    /**
+     * Whether the padded bounds intersect a view frustum built from camera-relative matrices.
+     */
+    public boolean isVisible(FrustumIntersection frustum, double camX, double camY, double camZ) {
+        if (count == 0) return false;
+        float ox = (float) (originX - camX), oz = (float) (originZ - camZ), oy = (float) -camY;
+        return frustum.testAab(ox + minX - pad, oy + minY - pad, oz + minZ - pad,
+                ox + maxX + pad, oy + maxY + pad, oz + maxZ + pad);
+    }
 
-        for (PooledParticle p : active) {
-            if (!p.alive) continue;
+    /**
+     * Re-sample world light for the lit, textured particles whose slot falls in this tick's slice.
+     * Client thread only (reads the world).
+     */
+    public void refreshLight(ClientWorld world, int tick, ParticleSpriteTable table, BlockPos.Mutable pos) {
+        for (int i = tick & LIGHT_REFRESH_MASK; i < count; i += LIGHT_REFRESH_MASK + 1) {
+            if (layer[i] == 0 || table.isFullBright(texture[i])) continue;
+            pos.set(MathHelper.floor(originX + x[i]), MathHelper.floor(y[i]), MathHelper.floor(originZ + z[i]));
+            light[i] = WorldRenderer.getLightmapCoordinates(world, pos);
+        }
+    }
 
+    /**
+     * Move every particle of {@code other} (a container for the same chunk) into this one and empty it.
+     */
+    public void appendFrom(ChunkParticleContainer other) {
+        int n = other.count;
+        if (n == 0) return;
+        if (count + n > x.length) grow(Math.max(x.length * 2, count + n));
+        System.arraycopy(other.x, 0, x, count, n);
+        System.arraycopy(other.y, 0, y, count, n);
+        System.arraycopy(other.z, 0, z, count, n);
+        System.arraycopy(other.vx, 0, vx, count, n);
+        System.arraycopy(other.vy, 0, vy, count, n);
+        System.arraycopy(other.vz, 0, vz, count, n);
+        System.arraycopy(other.size, 0, size, count, n);
+        System.arraycopy(other.gravity, 0, gravity, count, n);
+        System.arraycopy(other.drag, 0, drag, count, n);
+        System.arraycopy(other.color, 0, color, count, n);
+        System.arraycopy(other.age, 0, age, count, n);
+        System.arraycopy(other.lifetime, 0, lifetime, count, n);
+        System.arraycopy(other.texture, 0, texture, count, n);
+        System.arraycopy(other.layer, 0, layer, count, n);
+        System.arraycopy(other.light, 0, light, count, n);
+        for (int l = 0; l < layerCounts.length; l++) {
+            layerCounts[l] += other.layerCounts[l];
+            other.layerCounts[l] = 0;
+        }
+        count += n;
+        other.count = 0;
+        if (other.minX <= other.maxX) {
+            include(other.minX, other.minY, other.minZ, other.pad);
+            include(other.maxX, other.maxY, other.maxZ, other.pad);
+        }
+        other.resetBounds();
+    }
+
+    /**
+     * Write one camera-facing quad per particle, positioned relative to the camera, straight into native vertex
+     * memory. {@code pointers[offset + layer]} is where this container's quads of that layer go; the caller reserves
+     * {@link #countLayers} quads there, and those slots are advanced in place as quads are written. Textured layers
+     * take their UVs from {@code table}, animated by age.
+     * A {@code stride} above 1 draws only every stride-th particle (distant containers).
+     * Safe to run on a worker thread as long as nothing else touches this container or the table.
+     */
+    public void emit(long[] pointers, int offset, double camX, double camY, double camZ, Vector3f right, Vector3f up,
+                     float tickDelta, ParticleSpriteTable table, int stride) {
+        if (count == 0) return;
+        // Move the camera into the container's frame once so the per-particle math stays in float
+        float cx = (float) (camX - originX);
+        float cy = (float) camY;
+        float cz = (float) (camZ - originZ);
+        long[] p = pointers;
+        float[] uv = table.uv;
+
+        for (int i = 0; i < count; i += stride) {
             // Interpolate position for smoothness
-            float px = (float) (p.x + p.vx * tickDelta - camPos.x);
-            float py = (float) (p.y + p.vy * tickDelta - camPos.y);
-            float pz = (float) (p.z + p.vz * tickDelta - camPos.z);
-            float hs = p.size * 0.5f;
+            float px = x[i] + vx[i] * tickDelta - cx;
+            float py = y[i] + vy[i] * tickDelta - cy;
+            float pz = z[i] + vz[i] * tickDelta - cz;
+            float hs = size[i] * 0.5f;
 
             // Quad corners (billboard facing camera):
             // v0 = center - right*hs - up*hs
@@ -101,32 +365,67 @@ public final class ChunkParticleContainer {
             float rx = right.x * hs, ry = right.y * hs, rz = right.z * hs;
             float ux = up.x * hs, uy = up.y * hs, uz = up.z * hs;
 
-            float r = p.r, g = p.g, b = p.b, a = p.a;
-
-            // v0
-            buffer.vertex(px - rx - ux, py - ry - uy, pz - rz - uz)
-                  .color(r, g, b, a);
-            // v1
-            buffer.vertex(px - rx + ux, py - ry + uy, pz - rz + uz)
-                  .color(r, g, b, a);
-            // v2
-            buffer.vertex(px + rx + ux, py + ry + uy, pz + rz + uz)
-                  .color(r, g, b, a);
-            // v3
-            buffer.vertex(px + rx - ux, py + ry - uy, pz + rz - uz)
-                  .color(r, g, b, a);
+            int c = toVertexColor(color[i]);
+            int l = layer[i];
+
+            if (l == 0) {
+                long q = p[offset];
+                q = putVertex(q, px - rx - ux, py - ry - uy, pz - rz - uz, c);
+                q = putVertex(q, px - rx + ux, py - ry + uy, pz - rz + uz, c);
+                q = putVertex(q, px + rx + ux, py + ry + uy, pz + rz + uz, c);
+                p[offset] = putVertex(q, px + rx - ux, py + ry - uy, pz + rz - uz, c);
+                continue;
+            }
+            int tex = texture[i];
+            int frame = table.firstFrame[tex];
+            int frames = table.frameCount[tex];
+            // Same frame choice as vanilla setSpriteForAge
+            if (frames > 1) frame += age[i] * (frames - 1) / lifetime[i];
+            int o = frame * 4;
+            float u0 = uv[o], v0 = uv[o + 1], u1 = uv[o + 2], v1 = uv[o + 3];
+            int lt = light[i];
+
+            long q = p[offset + l];
+            q = putTexturedVertex(q, px - rx - ux, py - ry - uy, pz - rz - uz, u0, v1, c, lt);
+            q = putTexturedVertex(q, px - rx + ux, py - ry + uy, pz - rz + uz, u0, v0, c, lt);
+            q = putTexturedVertex(q, px + rx + ux, py + ry + uy, pz + rz + uz, u1, v0, c, lt);
+            p[offset + l] = putTexturedVertex(q, px + rx - ux, py + ry - uy, pz + rz - uz, u1, v1, c, lt);
         }
+    }
+
+    private static long putVertex(long p, float vx, float vy, float vz, int color) {
+        MemoryUtil.memPutFloat(p, vx);
+        MemoryUtil.memPutFloat(p + 4, vy);
+        MemoryUtil.memPutFloat(p + 8, vz);
+        MemoryUtil.memPutInt(p + 12, color);
+        return p + POSITION_COLOR_BYTES;
+    }
+
+    private static long putTexturedVertex(long p, float vx, float vy, float vz, float u, float v, int color, int light) {
+        MemoryUtil.memPutFloat(p, vx);
+        MemoryUtil.memPutFloat(p + 4, vy);
+        MemoryUtil.memPutFloat(p + 8, vz);
+        MemoryUtil.memPutFloat(p + 12, u);
+        MemoryUtil.memPutFloat(p + 16, v);
+        MemoryUtil.memPutInt(p + 20, color);
+        MemoryUtil.memPutShort(p + 24, (short) (light & 0xFFFF));
+        MemoryUtil.memPutShort(p + 26, (short) (light >>> 16));
+        return p + PARTICLE_BYTES;
+    }
 
-        // Finish building; if nothing was emitted, bail out
-        BuiltBuffer built = buffer.endNullable();
-        if (built == null) return;
+    /**
+     * ARGB to the int whose in-memory bytes are R, G, B, A, as vertex colors are laid out.
+     */
+    private static int toVertexColor(int argb) {
+        int abgr = (argb & 0xFF00FF00) | ((argb >> 16) & 0xFF) | ((argb & 0xFF) << 16);
+        return LITTLE_ENDIAN ? abgr : Integer.reverseBytes(abgr);
+    }
 
-        // Submit a single draw call for this container
-        RenderSystem.enableBlend();
-        RenderSystem.defaultBlendFunc();
-        RenderSystem.disableCull();
-        RenderSystem.setShader(ShaderProgramKeys.POSITION_COLOR_LIGHTMAP);
-        BufferRenderer.drawWithGlobalProgram(built);
+    public static int packColor(float r, float g, float b, float a) {
+        return ((int) (MathHelper.clamp(a, 0f, 1f) * 255f + 0.5f) << 24)
+                | ((int) (MathHelper.clamp(r, 0f, 1f) * 255f + 0.5f) << 16)
+                | ((int) (MathHelper.clamp(g, 0f, 1f) * 255f + 0.5f) << 8)
+                | (int) (MathHelper.clamp(b, 0f, 1f) * 255f + 0.5f);
     }
 
     public static ChunkPos posToChunk(double x, double z) {
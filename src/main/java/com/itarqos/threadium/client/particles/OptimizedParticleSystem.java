@@ -1,42 +1,140 @@
 package com.itarqos.threadium.client.particles;
 
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.render.RenderWorkerPool;
 import com.itarqos.threadium.util.FrameBudgetController;
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import com.itarqos.threadium.util.WorkBudgetArbiter;
+import com.mojang.blaze3d.systems.RenderSystem;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
-import java.util.HashMap;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Client-only particle system that groups sub-particles per chunk for
  * batched ticking and rendering. No server-side entities are created.
+ * All containers share one {@link ParticleVertexArena} per {@link ParticleLayer}, so a frame costs one draw call per
+ * layer. Textured particles take precomputed UVs from {@link ParticleSpriteTable} and a cached light value.
+ * Large effects should use a {@link ParticleEmitter} rather than one {@link #spawn} call per particle.
+ *
+ * Above {@code parallelParticleThreshold} particles, containers are split into contiguous ranges across the render
+ * worker pool, both for simulation and for writing vertices. The simulation is forked at the end of the client tick
+ * and joined when the frame renders; in between, spawns go to a staging set and are handed over at the join. Each
+ * container writes its own precomputed vertex range, so the output is identical however the work is split.
  */
 public final class OptimizedParticleSystem {
     private static final OptimizedParticleSystem INSTANCE = new OptimizedParticleSystem();
 
+    // More ranges than workers so one dense chunk does not leave the others idle
+    private static final int PARTS_PER_WORKER = 2;
+    // Sparsest sampling of a distant container: every 4th particle
+    private static final int MAX_SAMPLE_STRIDE = 4;
+
     public static OptimizedParticleSystem get() { return INSTANCE; }
 
-    private final Map<Long, ChunkParticleContainer> containers = new HashMap<>();
-    // Per-tick tile counts for budgeting
-    private final Map<Long, Integer> tileCounts = new HashMap<>();
-    private final ParticlePool pool = new ParticlePool(4096);
+    // Spawns within this distance of the player count as player-caused for the tile budget
+    private static final double PLAYER_CAUSED_RADIUS_SQ = 9.0;
+    private static final double PLAYER_CAUSED_WEIGHT = 2.0;
 
-    private OptimizedParticleSystem() {}
+    private final Long2ObjectOpenHashMap<ChunkParticleContainer> containers = new Long2ObjectOpenHashMap<>();
+    // Tile budget: a weighted sample per tile over one tick, committed at the start of the next
+    private final ParticleTileReservoir reservoir = new ParticleTileReservoir();
+    private final ParticleTileReservoir.Sink admit = new ParticleTileReservoir.Sink() {
+        @Override
+        public int grant(int candidates) {
+            return WorkBudgetArbiter.get().grant(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN, candidates);
+        }
 
-    private static long key(ChunkPos pos) {
-        return (((long) pos.x) << 32) ^ (pos.z & 0xffffffffL);
+        @Override
+        public void accept(double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                           int argb, float gravity, float drag, int textureIndex) {
+            int light = spawnLight(MinecraftClient.getInstance(), x, y, z, textureIndex);
+            insert(x, y, z, vx, vy, vz, lifetime, size, argb, gravity, drag, textureIndex, light);
+        }
+    };
+    private final List<ParticleEmitter> emitters = new ArrayList<>();
+    private int lastEmitted = 0;
+    private int particleCount = 0;
+    private final ParticleVertexArena[] arenas = new ParticleVertexArena[ParticleLayer.VALUES.length];
+    private final BlockPos.Mutable lightPos = new BlockPos.Mutable();
+    private int tickIndex = 0;
+    // Spawns made while a simulation is in flight; appended to the containers when it is joined
+    private final Long2ObjectOpenHashMap<ChunkParticleContainer> staged = new Long2ObjectOpenHashMap<>();
+    private List<ForkJoinTask<?>> simulation;
+    private int lastParallelParts = 0;
+    // Render-time culling
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final Matrix4f cullMatrix = new Matrix4f();
+    private int lastFrustumCulled = 0;
+    private int lastDistanceCulled = 0;
+    private int lastSubsampled = 0;
+    private int lastDrawnParticles = 0;
+    // Scratch reused every tick/frame so the particle path does not allocate per container
+    private ChunkParticleContainer[] snapshot = new ChunkParticleContainer[0];
+    private long[] snapshotKeys = new long[0];
+    private int snapshotSize = 0;
+    private ChunkParticleContainer[] drawList = new ChunkParticleContainer[0];
+    private int[] drawStrides = new int[0];
+    private int[] drawLayerQuads = new int[0];   // per drawn container and layer
+    private long[] drawPointers = new long[0];   // per drawn container and layer
+    private final int[] layerQuads = new int[ParticleLayer.VALUES.length];
+    private final Vector3f right = new Vector3f();
+    private final Vector3f up = new Vector3f();
+    // Per-frame inputs of the vertex writer
+    private double writeCamX, writeCamY, writeCamZ;
+    private float writeTickDelta;
+    private final RangeJob writeJob = this::writeRange;
+    private final RangeJob tickJob = this::tickRange;
+
+    private OptimizedParticleSystem() {
+        for (int i = 0; i < arenas.length; i++) arenas[i] = new ParticleVertexArena();
     }
 
-    private ChunkParticleContainer getOrCreate(ChunkPos pos) {
-        return containers.computeIfAbsent(key(pos), k -> new ChunkParticleContainer(pos, pool));
+    private static long key(int chunkX, int chunkZ) {
+        return (((long) chunkX) << 32) ^ (chunkZ & 0xffffffffL);
     }
 
     public void spawn(Vec3d pos, Vec3d vel, int lifetime, float size,
                       float r, float g, float b, float a, int textureIndex) {
+        spawn(pos.x, pos.y, pos.z, (float) vel.x, (float) vel.y, (float) vel.z, lifetime, size,
+                ChunkParticleContainer.packColor(r, g, b, a), 0f, 1f, textureIndex);
+    }
+
+    public void spawn(double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                      int argb, float gravity, float drag, int textureIndex) {
+        spawn(x, y, z, vx, vy, vz, lifetime, size, argb, gravity, drag, textureIndex, 1f);
+    }
+
+    /**
+     * Spawn one particle through the budgets below. {@code argb} is packed (see {@link ChunkParticleContainer#packColor});
+     * gravity and drag follow {@link ChunkParticleContainer#add(double, double, double, float, float, float, int, float, int, float, float, int, int)}.
+     * {@code textureIndex} comes from {@link ParticleSpriteTable} (0 for an untextured quad).
+     * {@code priority} (1 = normal) weights the particle against others competing for the same tile budget.
+     * The particle may be dropped by any budget; that is intended thinning, not an error.
+     */
+    public void spawn(double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                      int argb, float gravity, float drag, int textureIndex, float priority) {
         // Global disable check
         if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.disableAllParticles) {
             return;
@@ -46,79 +144,510 @@ public final class OptimizedParticleSystem {
             return;
         }
 
-        // Tile budget check (world-space tiling)
+        // Distance-based thinning & quality scaling
+        MinecraftClient mc = MinecraftClient.getInstance();
+        double camDist = 0.0;
+        Vec3d cam = scalingCamera(mc);
+        if (cam != null) {
+            double d = Math.sqrt(cam.squaredDistanceTo(x, y, z));
+            camDist = d;
+            double t = distanceFraction(d);
+            // Randomly drop spawns beyond density
+            if (ThreadLocalRandom.current().nextFloat() > densityAt(t)) {
+                return;
+            }
+            size *= sizeScaleAt(t);
+        }
+        // Tile budget (world-space tiling): the particle competes for a slot until the next tick commits the sample.
+        // The frame budget and the light lookup are paid at commit, only for the survivors
         if (ThreadiumClient.CONFIG == null || ThreadiumClient.CONFIG.enableParticleTileBudget) {
             int tileSize = Math.max(4, ThreadiumClient.CONFIG != null ? ThreadiumClient.CONFIG.particleTileSize : 32);
-            int tx = (int)Math.floor(pos.x / tileSize);
-            int tz = (int)Math.floor(pos.z / tileSize);
+            int tx = (int)Math.floor(x / tileSize);
+            int tz = (int)Math.floor(z / tileSize);
             long tkey = (((long)tx) << 32) ^ (tz & 0xffffffffL);
             int baseBudget = ThreadiumClient.CONFIG != null ? Math.max(1, ThreadiumClient.CONFIG.particleTileBudget) : 6;
             int budget = (int)Math.max(1, Math.floor(baseBudget * FrameBudgetController.get().getParticleBudgetScale()));
-            int used = tileCounts.getOrDefault(tkey, 0);
-            if (used >= budget) {
-                return;
-            }
-            tileCounts.put(tkey, used + 1);
+            double weight = spawnWeight(mc, x, y, z, camDist, priority);
+            reservoir.offer(tkey, budget, weight, 1.0 - ThreadLocalRandom.current().nextDouble(),
+                    x, y, z, vx, vy, vz, lifetime, size, argb, gravity, drag, textureIndex);
+            return;
         }
-        // Distance-based thinning & quality scaling
+        // Shared frame budget across all deferrable work
+        if (!WorkBudgetArbiter.get().tryConsume(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN)) {
+            return;
+        }
+        // Light is sampled at spawn and then refreshed a slice per tick
+        int light = spawnLight(mc, x, y, z, textureIndex);
+        insert(x, y, z, vx, vy, vz, lifetime, size, argb, gravity, drag, textureIndex, light);
+    }
+
+    /**
+     * Camera position for distance scaling, or null when distance scaling is off.
+     */
+    private static Vec3d scalingCamera(MinecraftClient mc) {
+        if (mc == null || ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.particleDistanceScaling || mc.getCameraEntity() == null) {
+            return null;
+        }
+        if (ThreadiumClient.CONFIG.enablePredictionEverywhere) {
+            return com.itarqos.threadium.util.MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+        }
+        return mc.getCameraEntity().getPos();
+    }
+
+    /** 0 at {@code particleNear} or closer, 1 at {@code particleFar} or beyond. */
+    private static double distanceFraction(double d) {
+        double near = Math.max(0.0, ThreadiumClient.CONFIG.particleNear);
+        double far = Math.max(near + 1.0, ThreadiumClient.CONFIG.particleFar);
+        double t = (d - near) / (far - near);
+        if (t < 0) t = 0; else if (t > 1) t = 1;
+        return t;
+    }
+
+    private static float densityAt(double t) {
+        float minDensity = Math.max(0.0f, Math.min(1.0f, ThreadiumClient.CONFIG.particleMinDensity));
+        return (float)(1.0 - t) + (float)t * minDensity; // lerp(1, minDensity, t)
+    }
+
+    private static float sizeScaleAt(double t) {
+        // Scale particle size toward far size scale
+        float sizeScaleFar = Math.max(0.1f, ThreadiumClient.CONFIG.particleFarSizeScale);
+        return (float)(1.0 - t) + (float)t * sizeScaleFar; // lerp(1, farScale, t)
+    }
+
+    private int spawnLight(MinecraftClient mc, double x, double y, double z, int textureIndex) {
+        ParticleSpriteTable table = ParticleSpriteTable.get();
+        if (mc != null && mc.world != null && table.layerOf(textureIndex).isTextured() && !table.isFullBright(textureIndex)) {
+            return WorldRenderer.getLightmapCoordinates(mc.world, lightPos.set(x, y, z));
+        }
+        return ChunkParticleContainer.FULL_BRIGHT;
+    }
+
+    /**
+     * Tile budget weight: closer to the camera, higher priority and spawned right at the player all make a particle
+     * more likely to keep its slot. {@code camDist} is 0 when distance scaling is off, which leaves closeness neutral.
+     */
+    private static double spawnWeight(MinecraftClient mc, double x, double y, double z, double camDist, float priority) {
+        double near = ThreadiumClient.CONFIG != null ? Math.max(1.0, ThreadiumClient.CONFIG.particleNear) : 16.0;
+        double weight = Math.max(0.01, priority) / (1.0 + camDist / near);
+        if (mc != null && mc.player != null && mc.player.squaredDistanceTo(x, y, z) <= PLAYER_CAUSED_RADIUS_SQ) {
+            weight *= PLAYER_CAUSED_WEIGHT;
+        }
+        return weight;
+    }
+
+    /**
+     * Add a particle that passed every budget to its chunk's container.
+     */
+    private void insert(double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                        int argb, float gravity, float drag, int textureIndex, int light) {
+        containerAt(x, z).add(x, y, z, vx, vy, vz, lifetime, size, argb, gravity, drag, textureIndex, light);
+    }
+
+    private ChunkParticleContainer containerAt(double x, double z) {
+        int cx = MathHelper.floor(x) >> 4;
+        int cz = MathHelper.floor(z) >> 4;
+        long k = key(cx, cz);
+        // While workers own the containers, new particles wait in the staging set until the join
+        Long2ObjectOpenHashMap<ChunkParticleContainer> target = simulation != null ? staged : containers;
+        ChunkParticleContainer c = target.get(k);
+        if (c == null) {
+            c = new ChunkParticleContainer(new ChunkPos(cx, cz));
+            target.put(k, c);
+        }
+        return c;
+    }
+
+    /**
+     * Start an emitter; it is stepped every client tick until it is done or stopped. Emitting an emitter that is
+     * already running does nothing.
+     */
+    public void emit(ParticleEmitter emitter) {
+        if (emitter.active || emitter.isDone()) return;
+        emitter.active = true;
+        emitters.add(emitter);
+    }
+
+    /**
+     * Step every emitter once. Each costs one round of budget and distance checks, one light sample and one container
+     * lookup for its center; its particles are then generated straight into that container. Emitters skip the tile
+     * budget, which arbitrates between individual spawns: their size is bounded by the QoS particle scale and the
+     * shared frame budget instead.
+     */
+    private void stepEmitters(ClientWorld world) {
+        lastEmitted = 0;
+        if (emitters.isEmpty()) return;
         MinecraftClient mc = MinecraftClient.getInstance();
-        if (mc != null && ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.particleDistanceScaling && mc.getCameraEntity() != null) {
-            Vec3d cam = mc.getCameraEntity().getPos();
-            if (ThreadiumClient.CONFIG.enablePredictionEverywhere) {
-                cam = com.itarqos.threadium.util.MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+        boolean blocked = world == null
+                || (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.disableAllParticles)
+                || (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableMicroStutterGuard && FrameBudgetController.get().wasLongFrame());
+        Vec3d cam = scalingCamera(mc);
+        float qos = FrameBudgetController.get().getParticleBudgetScale();
+        WorkBudgetArbiter arbiter = WorkBudgetArbiter.get();
+        Iterator<ParticleEmitter> it = emitters.iterator();
+        while (it.hasNext()) {
+            ParticleEmitter e = it.next();
+            int wanted = e.advance();
+            if (e.isDone()) {
+                e.active = false;
+                it.remove();
             }
-            double d = cam.distanceTo(pos);
-            double near = Math.max(0.0, ThreadiumClient.CONFIG.particleNear);
-            double far = Math.max(near + 1.0, ThreadiumClient.CONFIG.particleFar);
-            double t = (d - near) / (far - near);
-            if (t < 0) t = 0; else if (t > 1) t = 1;
-            float minDensity = Math.max(0.0f, Math.min(1.0f, ThreadiumClient.CONFIG.particleMinDensity));
-            float density = (float)(1.0 - t) + (float)t * minDensity; // lerp(1, minDensity, t)
-            // Randomly drop spawns beyond density
-            if (ThreadLocalRandom.current().nextFloat() > density) {
-                return;
+            if (wanted <= 0 || blocked) continue;
+            double cx = e.centerX(), cy = e.centerY(), cz = e.centerZ();
+            if (!world.getChunkManager().isChunkLoaded(MathHelper.floor(cx) >> 4, MathHelper.floor(cz) >> 4)) continue;
+            float sizeScale = 1f;
+            if (cam != null) {
+                double t = distanceFraction(Math.sqrt(cam.squaredDistanceTo(cx, cy, cz)));
+                // Expected count kept exact by rounding the fraction at random
+                wanted = (int) (wanted * densityAt(t) + e.random().nextFloat());
+                sizeScale = sizeScaleAt(t);
             }
-            // Scale particle size toward far size scale
-            float sizeScaleFar = Math.max(0.1f, ThreadiumClient.CONFIG.particleFarSizeScale);
-            float scale = (float)(1.0 - t) + (float)t * sizeScaleFar; // lerp(1, farScale, t)
-            size *= scale;
+            wanted = (int) (wanted * qos + e.random().nextFloat());
+            int n = arbiter.grant(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN, wanted);
+            if (n <= 0) continue;
+            long start = System.nanoTime();
+            e.generate(containerAt(cx, cz), n, sizeScale, spawnLight(mc, cx, cy, cz, e.textureIndex()));
+            arbiter.charge(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN, n, System.nanoTime() - start);
+            lastEmitted += n;
         }
-        ChunkPos cp = ChunkParticleContainer.posToChunk(pos.x, pos.z);
-        getOrCreate(cp).addParticle(pos, vel, lifetime, size, r, g, b, a, textureIndex);
     }
 
     public void tick() {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null) return;
         ClientWorld world = mc.world;
-        // Update all and drop empty/unloaded
-        Iterator<Map.Entry<Long, ChunkParticleContainer>> it = containers.entrySet().iterator();
+        // Normally already joined by the frame's render; a tick without a frame in between joins here
+        joinSimulation();
+        // Last tick's spawn window closes: its tile samples become particles and age from this tick on
+        long commitStart = System.nanoTime();
+        reservoir.commit(admit);
+        WorkBudgetArbiter.get().charge(WorkBudgetArbiter.Consumer.PARTICLE_SPAWN, reservoir.getAdmitted(), System.nanoTime() - commitStart);
+        stepEmitters(world);
+        // Drop empty/unloaded containers before handing the rest to the workers
+        ObjectIterator<ChunkParticleContainer> it = containers.values().iterator();
         while (it.hasNext()) {
-            Map.Entry<Long, ChunkParticleContainer> e = it.next();
-            ChunkParticleContainer c = e.getValue();
+            ChunkParticleContainer c = it.next();
             // unload if world is null or chunk not loaded
-            if (world == null || !world.getChunkManager().isChunkLoaded(c.getChunkPos().x, c.getChunkPos().z)) {
+            if (world == null || c.isEmpty() || !world.getChunkManager().isChunkLoaded(c.getChunkPos().x, c.getChunkPos().z)) {
                 it.remove();
-                continue;
             }
-            c.tick();
-            if (c.isEmpty()) {
-                it.remove();
+        }
+        int n = snapshotContainers();
+        ChunkParticleContainer[] list = snapshot;
+        int total = 0;
+        ParticleSpriteTable table = ParticleSpriteTable.get();
+        int slice = tickIndex++;
+        for (int i = 0; i < n; i++) {
+            total += list[i].size();
+            // World reads stay on this thread, before the containers are handed to the workers
+            if (world != null) list[i].refreshLight(world, slice, table, lightPos);
+        }
+        if (shouldParallelize(total)) {
+            // Fork now, join when the frame renders: simulation overlaps the rest of the tick and world rendering.
+            // The snapshot is not touched again before the join
+            simulation = fork(list, n, tickJob);
+        } else {
+            tickRange(0, n);
+            particleCount = countParticles();
+            lastParallelParts = 0;
+        }
+    }
+
+    private void tickRange(int from, int to) {
+        ChunkParticleContainer[] list = snapshot;
+        for (int i = from; i < to; i++) list[i].tick();
+    }
+
+    /**
+     * Wait for an in-flight simulation and hand its result back to this thread: the containers are ours again and
+     * spawns staged meanwhile are appended to them.
+     */
+    private void joinSimulation() {
+        if (simulation == null) return;
+        List<ForkJoinTask<?>> parts = simulation;
+        simulation = null;
+        for (ForkJoinTask<?> part : parts) part.join();
+        if (!staged.isEmpty()) {
+            for (Long2ObjectMap.Entry<ChunkParticleContainer> e : staged.long2ObjectEntrySet()) {
+                ChunkParticleContainer c = containers.get(e.getLongKey());
+                if (c == null) {
+                    c = new ChunkParticleContainer(e.getValue().getChunkPos());
+                    containers.put(e.getLongKey(), c);
+                }
+                c.appendFrom(e.getValue());
+            }
+            staged.clear();
+        }
+        particleCount = countParticles();
+    }
+
+    /**
+     * Fill {@link #snapshot} with the containers in a stable order (by chunk key), so partitions and vertex ranges
+     * come out the same every frame. Returns how many there are. Only call with the simulation joined.
+     */
+    private int snapshotContainers() {
+        int n = containers.size();
+        if (snapshotKeys.length < n) {
+            snapshotKeys = new long[Math.max(n, snapshotKeys.length * 2)];
+            snapshot = new ChunkParticleContainer[snapshotKeys.length];
+        }
+        int i = 0;
+        for (LongIterator it = containers.keySet().iterator(); it.hasNext(); ) snapshotKeys[i++] = it.nextLong();
+        Arrays.sort(snapshotKeys, 0, n);
+        for (i = 0; i < n; i++) snapshot[i] = containers.get(snapshotKeys[i]);
+        // Do not keep dropped containers reachable
+        if (snapshotSize > n) Arrays.fill(snapshot, n, snapshotSize, null);
+        snapshotSize = n;
+        return n;
+    }
+
+    private int countParticles() {
+        int total = 0;
+        for (ChunkParticleContainer c : containers.values()) total += c.size();
+        return total;
+    }
+
+    private static boolean shouldParallelize(int particles) {
+        if (ThreadiumClient.CONFIG == null) return false;
+        return ThreadiumClient.CONFIG.parallelParticles && particles >= Math.max(1, ThreadiumClient.CONFIG.parallelParticleThreshold);
+    }
+
+    @FunctionalInterface
+    private interface RangeJob {
+        void run(int from, int to);
+    }
+
+    /**
+     * Split the first {@code n} containers of {@code list} into contiguous ranges of roughly equal particle count and
+     * start one pool task per range. Every container belongs to exactly one range, so no two tasks ever touch the same
+     * container.
+     */
+    private List<ForkJoinTask<?>> fork(ChunkParticleContainer[] list, int n, RangeJob job) {
+        ForkJoinPool pool = RenderWorkerPool.get().getFramePool();
+        int total = 0;
+        for (int i = 0; i < n; i++) total += list[i].size();
+        int parts = Math.max(1, Math.min(n, pool.getParallelism() * PARTS_PER_WORKER));
+        int perPart = Math.max(1, (total + parts - 1) / parts);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(parts);
+        int from = 0;
+        int acc = 0;
+        for (int i = 0; i < n; i++) {
+            acc += list[i].size();
+            if (acc >= perPart || i == n - 1) {
+                int a = from, b = i + 1;
+                tasks.add(pool.submit(() -> job.run(a, b)));
+                from = i + 1;
+                acc = 0;
             }
         }
-        // Reset tile counts each tick
-        tileCounts.clear();
+        lastParallelParts = tasks.size();
+        return tasks;
     }
 
-    public void render(float tickDelta) {
+    /**
+     * Draw all particles: every container is written into the shared vertex arenas, one draw per layer.
+     * {@code positionMatrix} is the camera rotation the world was rendered with.
+     * Containers outside the view or beyond the particle cull distance are skipped; distant ones are subsampled.
+     */
+    public void render(Camera camera, Matrix4f positionMatrix, Matrix4f projectionMatrix, float tickDelta) {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null || mc.world == null) return;
-        for (ChunkParticleContainer c : containers.values()) {
-            c.renderBatched(tickDelta);
+        joinSimulation();
+        if (particleCount > 0) {
+            Vec3d cam = camera.getPos();
+            Quaternionf rot = camera.getRotation();
+            right.set(1f, 0f, 0f).rotate(rot);
+            up.set(0f, 1f, 0f).rotate(rot);
+            ParticleSpriteTable.get().refreshIfReloaded();
+
+            // Cull whole containers, pick a sample stride for distant ones and count each layer's quads
+            int layers = ParticleLayer.VALUES.length;
+            int total = snapshotContainers();
+            ensureDrawCapacity(total, layers);
+            int[] quads = layerQuads;
+            Arrays.fill(quads, 0);
+            int n = 0;
+            int drawn = 0;
+            cullSetup(projectionMatrix, positionMatrix);
+            for (int k = 0; k < total; k++) {
+                ChunkParticleContainer c = snapshot[k];
+                int stride = cullStride(c, cam);
+                if (stride == 0) continue;
+                int row = n * layers;
+                c.countLayers(stride, drawLayerQuads, row);
+                for (int l = 0; l < layers; l++) {
+                    quads[l] += drawLayerQuads[row + l];
+                    drawn += drawLayerQuads[row + l];
+                }
+                drawStrides[n] = stride;
+                drawList[n++] = c;
+            }
+            lastDrawnParticles = drawn;
+
+            // Each container owns a fixed range of every layer's vertices, so the output does not depend on how the
+            // work is split; all layers are filled in one pass over the particles
+            for (ParticleLayer layer : ParticleLayer.VALUES) {
+                int l = layer.ordinal();
+                if (quads[l] == 0) continue;
+                long base = arenas[l].reserve(layer.format, quads[l]);
+                long stride = 4L * layer.format.getVertexSizeByte();
+                int before = 0;
+                for (int i = 0; i < n; i++) {
+                    drawPointers[i * layers + l] = base + before * stride;
+                    before += drawLayerQuads[i * layers + l];
+                }
+            }
+            writeCamX = cam.x;
+            writeCamY = cam.y;
+            writeCamZ = cam.z;
+            writeTickDelta = tickDelta;
+            if (shouldParallelize(drawn)) {
+                for (ForkJoinTask<?> part : fork(drawList, n, writeJob)) part.join();
+            } else {
+                writeRange(0, n);
+            }
+            // Do not keep dropped containers reachable from the draw list
+            Arrays.fill(drawList, 0, n, null);
+
+            RenderSystem.enableBlend();
+            RenderSystem.defaultBlendFunc();
+            RenderSystem.disableCull();
+            RenderSystem.enableDepthTest();
+            RenderSystem.depthMask(false);
+            for (ParticleLayer layer : ParticleLayer.VALUES) {
+                int l = layer.ordinal();
+                if (quads[l] == 0) continue;
+                if (layer.isTextured()) {
+                    RenderSystem.setShaderTexture(0, layer.atlas);
+                    mc.gameRenderer.getLightmapTextureManager().enable();
+                }
+                arenas[l].draw(layer.format, layer.shader, positionMatrix, quads[l]);
+                if (layer.isTextured()) mc.gameRenderer.getLightmapTextureManager().disable();
+            }
+            RenderSystem.depthMask(true);
+            RenderSystem.enableCull();
+            RenderSystem.disableBlend();
         }
+        for (ParticleVertexArena arena : arenas) arena.endFrame();
+    }
+
+    private void writeRange(int from, int to) {
+        ParticleSpriteTable table = ParticleSpriteTable.get();
+        int layers = ParticleLayer.VALUES.length;
+        for (int i = from; i < to; i++) {
+            drawList[i].emit(drawPointers, i * layers, writeCamX, writeCamY, writeCamZ, right, up, writeTickDelta,
+                    table, drawStrides[i]);
+        }
+    }
+
+    private void ensureDrawCapacity(int containers, int layers) {
+        if (drawList.length >= containers) return;
+        int cap = Math.max(containers, drawList.length * 2);
+        drawList = new ChunkParticleContainer[cap];
+        drawStrides = new int[cap];
+        drawLayerQuads = new int[cap * layers];
+        drawPointers = new long[cap * layers];
+    }
+
+    private void cullSetup(Matrix4f projectionMatrix, Matrix4f positionMatrix) {
+        frustum.set(cullMatrix.set(projectionMatrix).mul(positionMatrix));
+        lastFrustumCulled = 0;
+        lastDistanceCulled = 0;
+        lastSubsampled = 0;
+    }
+
+    /**
+     * 0 to skip the container, otherwise draw every n-th particle. Full density up to {@code particleFar}, then the
+     * stride grows to {@link #MAX_SAMPLE_STRIDE} at the cull distance (both scaled by QoS); nothing beyond it.
+     */
+    private int cullStride(ChunkParticleContainer c, Vec3d cam) {
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableParticleCulling) return 1;
+        if (!c.isVisible(frustum, cam.x, cam.y, cam.z)) {
+            lastFrustumCulled++;
+            return 0;
+        }
+        double scale = FrameBudgetController.get().getFarCutoffMultiplier(FramePhaseProfiler.Phase.PARTICLES);
+        double cutoff = Math.max(8.0, ThreadiumClient.CONFIG.particleCullDistance) * scale;
+        double start = Math.min(cutoff, Math.max(0.0, ThreadiumClient.CONFIG.particleFar) * scale);
+        double d = Math.sqrt(c.distanceSq(cam.x, cam.y, cam.z));
+        if (d > cutoff) {
+            lastDistanceCulled++;
+            return 0;
+        }
+        if (d <= start || cutoff - start < 1e-3) return 1;
+        int stride = 1 + (int) ((d - start) / (cutoff - start) * (MAX_SAMPLE_STRIDE - 1) + 0.5);
+        if (stride > 1) lastSubsampled++;
+        return stride;
     }
 
     public void clearAll() {
+        joinSimulation();
         containers.clear();
+        reservoir.reset();
+        for (ParticleEmitter e : emitters) e.active = false;
+        emitters.clear();
+        particleCount = 0;
+    }
+
+    /**
+     * Release native vertex memory; called on client shutdown.
+     */
+    public void close() {
+        clearAll();
+        for (ParticleVertexArena arena : arenas) arena.close();
+    }
+
+    /** Draw calls issued for particles last frame (at most one per layer). */
+    public int getLastFrameDraws() {
+        int draws = 0;
+        for (ParticleVertexArena arena : arenas) draws += arena.getLastFrameDraws();
+        return draws;
+    }
+
+    /** Approximate native vertex memory held across all layers. */
+    public long getVertexMemoryBytes() {
+        long bytes = 0L;
+        for (ParticleVertexArena arena : arenas) bytes += arena.getAllocatedBytes();
+        return bytes;
+    }
+
+    /** Live particles as of the last tick. */
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    public int getContainerCount() {
+        return containers.size();
+    }
+
+    /** Containers skipped last frame because they were outside the view. */
+    public int getLastFrustumCulled() { return lastFrustumCulled; }
+
+    /** Containers skipped last frame because they were beyond the cull distance. */
+    public int getLastDistanceCulled() { return lastDistanceCulled; }
+
+    /** Containers drawn at reduced density last frame. */
+    public int getLastSubsampled() { return lastSubsampled; }
+
+    /** Particles actually drawn last frame. */
+    public int getLastDrawnParticles() { return lastDrawnParticles; }
+
+    /** Spawns offered to the tile budget over the last spawn window. */
+    public int getLastBudgetOffered() { return reservoir.getOffered(); }
+
+    /** Spawns the tile budget kept from the last spawn window. */
+    public int getLastBudgetAdmitted() { return reservoir.getAdmitted(); }
+
+    /** Tile budget candidates displaced by higher-weight spawns in the last spawn window. */
+    public int getLastBudgetReplaced() { return reservoir.getReplaced(); }
+
+    /** Emitters currently running. */
+    public int getActiveEmitterCount() { return emitters.size(); }
+
+    /** Particles generated by emitters on the last tick. */
+    public int getLastEmitted() { return lastEmitted; }
+
+    /** Ranges the last parallel pass was split into. */
+    public int getLastParallelParts() {
+        return lastParallelParts;
     }
 }
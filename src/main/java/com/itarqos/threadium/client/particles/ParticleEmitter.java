@@ -0,0 +1,337 @@
+package com.itarqos.threadium.client.particles;
+
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.random.Random;
+
+/**
+ * Declarative source of many pooled particles: a shape, parameter ranges, and a burst and/or a continuous rate.
+ *
+ * Hand an emitter to {@link OptimizedParticleSystem#emit(ParticleEmitter)}; from then on the system steps it once per
+ * client tick. Budgets, distance thinning, light and the container lookup are resolved once per emitter per tick for
+ * its center, and the particles are then written straight into the container's arrays. All of an emitter's particles
+ * in one tick land in the container of the chunk holding its center; containers keep positions relative to their
+ * own origin, so particles a little outside that chunk stay exact.
+ *
+ * Emitters draw from their own seeded random source, so the same emitter with the same seed produces the same
+ * particles (as long as the budgets grant the same counts). Client thread only.
+ *
+ * <pre>
+ * OptimizedParticleSystem.get().emit(ParticleEmitter.builder()
+ *         .at(x, y, z).sphere(1.5)
+ *         .burst(400).speed(0.05f, 0.2f).lifetime(20, 40)
+ *         .color(0xFFFFD040, 0xFFFF6000).gravity(0.02f)
+ *         .build());
+ * </pre>
+ */
+public final class ParticleEmitter {
+    public enum Shape {
+        /** Every particle starts at the origin. */
+        POINT,
+        /** Uniformly inside a ball around the origin; particles move outward from the center. */
+        SPHERE,
+        /** Uniformly inside an axis-aligned box centered on the origin. */
+        BOX,
+        /** Uniformly along the segment from the origin to the end point. */
+        LINE
+    }
+
+    private final Shape shape;
+    private final double radius;
+    private final double halfX, halfY, halfZ;
+    private final double lineX, lineY, lineZ;      // end point relative to the origin
+    private final float rate;                        // particles per tick
+    private final float baseVx, baseVy, baseVz;
+    private final float minSpeed, maxSpeed;
+    private final int minLifetime, maxLifetime;
+    private final float minSize, maxSize;
+    private final int colorFrom, colorTo;            // ARGB
+    private final float gravity, drag;
+    private final int textureIndex;
+    private final Random random;
+
+    private double originX, originY, originZ;
+    private int pendingBurst;
+    private int remainingTicks;                      // rate ticks left, -1 until stopped
+    private float carry = 0f;                        // fractional particles owed by the rate
+    private boolean stopped = false;
+    boolean active = false;                          // registered with the particle system
+
+    private ParticleEmitter(Builder b) {
+        this.shape = b.shape;
+        this.radius = b.radius;
+        this.halfX = b.halfX;
+        this.halfY = b.halfY;
+        this.halfZ = b.halfZ;
+        this.lineX = b.endX - b.x;
+        this.lineY = b.endY - b.y;
+        this.lineZ = b.endZ - b.z;
+        this.rate = b.rate;
+        this.baseVx = b.vx;
+        this.baseVy = b.vy;
+        this.baseVz = b.vz;
+        this.minSpeed = b.minSpeed;
+        this.maxSpeed = b.maxSpeed;
+        this.minLifetime = b.minLifetime;
+        this.maxLifetime = b.maxLifetime;
+        this.minSize = b.minSize;
+        this.maxSize = b.maxSize;
+        this.colorFrom = b.colorFrom;
+        this.colorTo = b.colorTo;
+        this.gravity = b.gravity;
+        this.drag = b.drag;
+        this.textureIndex = b.textureIndex;
+        this.random = Random.create(b.seed);
+        this.originX = b.x;
+        this.originY = b.y;
+        this.originZ = b.z;
+        this.pendingBurst = b.burst;
+        this.remainingTicks = b.rate > 0f ? b.durationTicks : 0;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Move the emitter (and its line end with it), e.g. to follow an entity. */
+    public void moveTo(double x, double y, double z) {
+        this.originX = x;
+        this.originY = y;
+        this.originZ = z;
+    }
+
+    /** Stop emitting; particles already spawned live out their lifetime. */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isDone() {
+        return stopped || (pendingBurst == 0 && remainingTicks == 0);
+    }
+
+    double centerX() { return shape == Shape.LINE ? originX + lineX * 0.5 : originX; }
+
+    double centerY() { return shape == Shape.LINE ? originY + lineY * 0.5 : originY; }
+
+    double centerZ() { return shape == Shape.LINE ? originZ + lineZ * 0.5 : originZ; }
+
+    int textureIndex() { return textureIndex; }
+
+    Random random() { return random; }
+
+    /**
+     * Particles wanted this tick: the pending burst plus the rate's share, before any budget.
+     */
+    int advance() {
+        if (stopped) return 0;
+        int n = pendingBurst;
+        pendingBurst = 0;
+        if (remainingTicks != 0) {
+            carry += rate;
+            int whole = (int) carry;
+            carry -= whole;
+            n += whole;
+            if (remainingTicks > 0) remainingTicks--;
+        }
+        return n;
+    }
+
+    /**
+     * Write {@code n} particles into {@code target}. Sizes are multiplied by {@code sizeScale}; all particles start
+     * with {@code light} until the container's next light refresh.
+     */
+    void generate(ChunkParticleContainer target, int n, float sizeScale, int light) {
+        int first = target.appendBatch(n, textureIndex);
+        Random r = random;
+        for (int i = first, end = first + n; i < end; i++) {
+            // Random unit vector by rejection; for a sphere the sample itself is also the uniform offset in the ball
+            double dx, dy, dz, len2;
+            do {
+                dx = r.nextDouble() * 2.0 - 1.0;
+                dy = r.nextDouble() * 2.0 - 1.0;
+                dz = r.nextDouble() * 2.0 - 1.0;
+                len2 = dx * dx + dy * dy + dz * dz;
+            } while (len2 > 1.0 || len2 < 1.0E-6);
+            double px = originX, py = originY, pz = originZ;
+            switch (shape) {
+                case SPHERE -> {
+                    px += dx * radius;
+                    py += dy * radius;
+                    pz += dz * radius;
+                }
+                case BOX -> {
+                    px += (r.nextDouble() * 2.0 - 1.0) * halfX;
+                    py += (r.nextDouble() * 2.0 - 1.0) * halfY;
+                    pz += (r.nextDouble() * 2.0 - 1.0) * halfZ;
+                }
+                case LINE -> {
+                    double t = r.nextDouble();
+                    px += lineX * t;
+                    py += lineY * t;
+                    pz += lineZ * t;
+                }
+                case POINT -> { }
+            }
+            float speed = (float) (range(r, minSpeed, maxSpeed) / Math.sqrt(len2));
+            int lifetime = minLifetime + (maxLifetime > minLifetime ? r.nextInt(maxLifetime - minLifetime + 1) : 0);
+            float size = range(r, minSize, maxSize) * sizeScale;
+            int argb = colorFrom == colorTo ? colorFrom : lerpColor(colorFrom, colorTo, r.nextFloat());
+            target.setBatched(i, px, py, pz,
+                    baseVx + (float) dx * speed, baseVy + (float) dy * speed, baseVz + (float) dz * speed,
+                    lifetime, size, argb, gravity, drag, light);
+        }
+    }
+
+    private static float range(Random r, float min, float max) {
+        return max > min ? min + r.nextFloat() * (max - min) : min;
+    }
+
+    private static int lerpColor(int from, int to, float t) {
+        int out = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = (from >>> shift) & 0xFF, b = (to >>> shift) & 0xFF;
+            out |= ((int) (a + (b - a) * t + 0.5f) & 0xFF) << shift;
+        }
+        return out;
+    }
+
+    /**
+     * Emitter description. Defaults: a point, no particles, no motion, 20-tick white untextured particles of size 0.1,
+     * no gravity and no drag.
+     */
+    public static final class Builder {
+        private Shape shape = Shape.POINT;
+        private double x, y, z;
+        private double radius;
+        private double halfX, halfY, halfZ;
+        private double endX, endY, endZ;
+        private int burst;
+        private float rate;
+        private int durationTicks = -1;
+        private float vx, vy, vz;
+        private float minSpeed, maxSpeed;
+        private int minLifetime = 20, maxLifetime = 20;
+        private float minSize = 0.1f, maxSize = 0.1f;
+        private int colorFrom = 0xFFFFFFFF, colorTo = 0xFFFFFFFF;
+        private float gravity = 0f, drag = 1f;
+        private int textureIndex = ParticleSpriteTable.UNTEXTURED;
+        private long seed = System.nanoTime();
+
+        private Builder() {}
+
+        /** Emitter origin; the center of a point, sphere or box and the start of a line. */
+        public Builder at(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            return this;
+        }
+
+        public Builder point() {
+            this.shape = Shape.POINT;
+            return this;
+        }
+
+        public Builder sphere(double radius) {
+            this.shape = Shape.SPHERE;
+            this.radius = Math.max(0.0, radius);
+            return this;
+        }
+
+        /** Box with the given half extents around the origin. */
+        public Builder box(double halfX, double halfY, double halfZ) {
+            this.shape = Shape.BOX;
+            this.halfX = Math.abs(halfX);
+            this.halfY = Math.abs(halfY);
+            this.halfZ = Math.abs(halfZ);
+            return this;
+        }
+
+        /** Line from the origin (see {@link #at}) to this end point; set the origin first. */
+        public Builder line(double toX, double toY, double toZ) {
+            this.shape = Shape.LINE;
+            this.endX = toX;
+            this.endY = toY;
+            this.endZ = toZ;
+            return this;
+        }
+
+        /** Particles emitted at once, on the first tick. */
+        public Builder burst(int count) {
+            this.burst = Math.max(0, count);
+            return this;
+        }
+
+        /** Continuous emission; fractional rates accumulate across ticks. {@code ticks} <= 0 runs until stopped. */
+        public Builder rate(float perTick, int ticks) {
+            this.rate = Math.max(0f, perTick);
+            this.durationTicks = ticks > 0 ? ticks : -1;
+            return this;
+        }
+
+        /** Velocity shared by every particle, in blocks per tick. */
+        public Builder velocity(float vx, float vy, float vz) {
+            this.vx = vx;
+            this.vy = vy;
+            this.vz = vz;
+            return this;
+        }
+
+        /** Extra speed in a random direction (outward for a sphere), uniform in [min, max] blocks per tick. */
+        public Builder speed(float min, float max) {
+            this.minSpeed = Math.max(0f, Math.min(min, max));
+            this.maxSpeed = Math.max(0f, Math.max(min, max));
+            return this;
+        }
+
+        public Builder lifetime(int minTicks, int maxTicks) {
+            this.minLifetime = MathHelper.clamp(Math.min(minTicks, maxTicks), 1, Short.MAX_VALUE);
+            this.maxLifetime = MathHelper.clamp(Math.max(minTicks, maxTicks), 1, Short.MAX_VALUE);
+            return this;
+        }
+
+        /** Quad width range in blocks. */
+        public Builder size(float min, float max) {
+            this.minSize = Math.max(0f, Math.min(min, max));
+            this.maxSize = Math.max(0f, Math.max(min, max));
+            return this;
+        }
+
+        public Builder color(int argb) {
+            return color(argb, argb);
+        }
+
+        /** Each particle gets a color between the two (per channel, including alpha). */
+        public Builder color(int argbFrom, int argbTo) {
+            this.colorFrom = argbFrom;
+            this.colorTo = argbTo;
+            return this;
+        }
+
+        /** Subtracted from the vertical velocity each tick, as in {@link OptimizedParticleSystem#spawn}. */
+        public Builder gravity(float gravity) {
+            this.gravity = gravity;
+            return this;
+        }
+
+        /** Velocity multiplier applied each tick (1 = none). */
+        public Builder drag(float drag) {
+            this.drag = drag;
+            return this;
+        }
+
+        /** Index from {@link ParticleSpriteTable}; 0 for untextured quads. */
+        public Builder texture(int textureIndex) {
+            this.textureIndex = textureIndex;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ParticleEmitter build() {
+            return new ParticleEmitter(this);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.itarqos.threadium.client.particles;
+
+import net.minecraft.client.gl.ShaderProgramKey;
+import net.minecraft.client.gl.ShaderProgramKeys;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.util.Identifier;
+
+/**
+ * Pooled particle render layers. Each layer is written into its own {@link ParticleVertexArena} and drawn with one
+ * call per frame; a particle's layer follows from its texture index (see {@link ParticleSpriteTable}).
+ */
+enum ParticleLayer {
+    // Untextured quads (texture index 0): POSITION_COLOR data needs the matching shader
+    COLORED(VertexFormats.POSITION_COLOR, ShaderProgramKeys.POSITION_COLOR, null),
+    // Vanilla particle sprites
+    PARTICLE_ATLAS(VertexFormats.POSITION_TEXTURE_COLOR_LIGHT, ShaderProgramKeys.PARTICLE, SpriteAtlasTexture.PARTICLE_ATLAS_TEXTURE),
+    // Block crumbs, textured with the block's particle sprite
+    BLOCK_ATLAS(VertexFormats.POSITION_TEXTURE_COLOR_LIGHT, ShaderProgramKeys.PARTICLE, SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE);
+
+    static final ParticleLayer[] VALUES = values();
+
+    final VertexFormat format;
+    final ShaderProgramKey shader;
+    final Identifier atlas;   // null when untextured
+
+    ParticleLayer(VertexFormat format, ShaderProgramKey shader, Identifier atlas) {
+        this.format = format;
+        this.shader = shader;
+        this.atlas = atlas;
+    }
+
+    boolean isTextured() {
+        return atlas != null;
+    }
+}
@@ -0,0 +1,263 @@
+package com.itarqos.threadium.client.particles;
+
+import com.itarqos.threadium.mixin.render.particles.ParticleManagerAccessor;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.particle.SpriteProvider;
+import net.minecraft.client.texture.MissingSprite;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.particle.ParticleType;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Precomputed atlas UVs behind pooled particle texture indices.
+ *
+ * A texture index names an entry: a run of one or more frames in a flat UV table (four floats per frame), the atlas
+ * layer it samples and whether it ignores world light. Animated entries pick their frame from age and lifetime
+ * exactly as vanilla's {@code setSpriteForAge} does; types that vanilla gives a random sprite get one single-frame
+ * entry per frame and the random choice is made once, at spawn. Rendering therefore never looks up a sprite.
+ *
+ * Frames are read from the particle manager's sprite providers (and from block models for block crumbs). A resource
+ * reload replaces every sprite, which {@link #refreshIfReloaded()} notices once per frame and answers by rebuilding
+ * the UVs in place; indices stay valid. Index 0 is reserved for untextured particles.
+ *
+ * Registration and refresh are client thread only. Vertex writers read the tables while that thread waits on them.
+ */
+public final class ParticleSpriteTable {
+    private static final ParticleSpriteTable INSTANCE = new ParticleSpriteTable();
+    public static ParticleSpriteTable get() { return INSTANCE; }
+
+    public static final int UNTEXTURED = 0;
+    // Ages sampled to discover a provider's frames; more than any vanilla sprite set has
+    private static final int PROBE_STEPS = 256;
+    // Vanilla block crumbs show a quarter of the block's sprite
+    private static final float CRUMB_FRACTION = 0.25f;
+
+    /** Where an entry's frames come from, kept so the UVs can be rebuilt after a reload. */
+    private record Source(Identifier type, int frame, BlockState state) {}
+
+    // Per texture index; read directly by ChunkParticleContainer when writing vertices
+    byte[] layer = new byte[64];
+    int[] firstFrame = new int[64];
+    int[] frameCount = new int[64];
+    boolean[] fullBright = new boolean[64];
+    // minU, minV, maxU, maxV per frame
+    float[] uv = new float[256];
+
+    private Source[] sources = new Source[64];
+    private int entries = 1;
+    private int frames = 0;
+    private final Map<Object, Integer> byKey = new HashMap<>();
+    private final Map<Identifier, int[]> randomRuns = new HashMap<>();   // type -> {first index, count}
+    private Sprite particleSentinel;
+    private Identifier particleSentinelType;
+    private Sprite blockSentinel;
+    private BlockState blockSentinelState;
+    private int rebuilds = 0;
+
+    private ParticleSpriteTable() {}
+
+    /**
+     * Entry for every frame of a particle type's sprite set, animated by age. Returns {@link #UNTEXTURED} when the
+     * type has no sprites.
+     */
+    public int animated(ParticleType<?> type, boolean ignoreLight) {
+        Identifier id = Registries.PARTICLE_TYPE.getId(type);
+        if (id == null) return UNTEXTURED;
+        Integer known = byKey.get(id);
+        if (known != null) return known;
+        int index = register(new Source(id, -1, null), ParticleLayer.PARTICLE_ATLAS, ignoreLight);
+        byKey.put(id, index);
+        return index;
+    }
+
+    /**
+     * Entry for one randomly chosen frame of a particle type's sprite set, as vanilla's {@code setSprite(provider)}.
+     */
+    public int randomFrame(ParticleType<?> type, boolean ignoreLight, ThreadLocalRandom rnd) {
+        Identifier id = Registries.PARTICLE_TYPE.getId(type);
+        if (id == null) return UNTEXTURED;
+        int[] run = randomRuns.get(id);
+        if (run == null) {
+            int n = probe(providerFor(id)).size();
+            if (n == 0) return UNTEXTURED;
+            run = new int[] {entries, 0};
+            for (int f = 0; f < n; f++) {
+                if (register(new Source(id, f, null), ParticleLayer.PARTICLE_ATLAS, ignoreLight) == UNTEXTURED) break;
+                run[1]++;
+            }
+            if (run[1] == 0) return UNTEXTURED;
+            randomRuns.put(id, run);
+        }
+        return run[0] + rnd.nextInt(run[1]);
+    }
+
+    /**
+     * Entry for crumbs of a block: a quarter of the block model's particle sprite on the block atlas.
+     */
+    public int blockCrumb(BlockState state) {
+        Integer known = byKey.get(state);
+        if (known != null) return known;
+        int index = register(new Source(null, 0, state), ParticleLayer.BLOCK_ATLAS, false);
+        byKey.put(state, index);
+        return index;
+    }
+
+    public ParticleLayer layerOf(int index) {
+        return ParticleLayer.VALUES[index > 0 && index < entries ? layer[index] : 0];
+    }
+
+    public boolean isFullBright(int index) {
+        return index > 0 && index < entries && fullBright[index];
+    }
+
+    private int register(Source source, ParticleLayer target, boolean ignoreLight) {
+        List<Sprite> resolved = resolve(source);
+        if (resolved.isEmpty() || entries > Short.MAX_VALUE) return UNTEXTURED;
+        int index = entries++;
+        if (index == layer.length) {
+            int cap = layer.length * 2;
+            layer = Arrays.copyOf(layer, cap);
+            firstFrame = Arrays.copyOf(firstFrame, cap);
+            frameCount = Arrays.copyOf(frameCount, cap);
+            fullBright = Arrays.copyOf(fullBright, cap);
+            sources = Arrays.copyOf(sources, cap);
+        }
+        sources[index] = source;
+        layer[index] = (byte) target.ordinal();
+        fullBright[index] = ignoreLight;
+        writeFrames(index, resolved);
+        if (source.state() != null) {
+            if (blockSentinelState == null) {
+                blockSentinelState = source.state();
+                blockSentinel = resolved.get(0);
+            }
+        } else if (particleSentinelType == null) {
+            particleSentinelType = source.type();
+            particleSentinel = probe(providerFor(source.type())).get(0);
+        }
+        return index;
+    }
+
+    private void writeFrames(int index, List<Sprite> sprites) {
+        Source source = sources[index];
+        firstFrame[index] = frames;
+        frameCount[index] = sprites.size();
+        for (Sprite s : sprites) {
+            if ((frames + 1) * 4 > uv.length) uv = Arrays.copyOf(uv, uv.length * 2);
+            int o = frames * 4;
+            float u0 = s.getMinU(), v0 = s.getMinV(), u1 = s.getMaxU(), v1 = s.getMaxV();
+            if (source.state() != null) {
+                // Fixed quarter-size cell one step in from the corner, like a typical vanilla crumb
+                float du = (u1 - u0) * CRUMB_FRACTION, dv = (v1 - v0) * CRUMB_FRACTION;
+                u0 += du;
+                v0 += dv;
+                u1 = u0 + du;
+                v1 = v0 + dv;
+            }
+            uv[o] = u0;
+            uv[o + 1] = v0;
+            uv[o + 2] = u1;
+            uv[o + 3] = v1;
+            frames++;
+        }
+    }
+
+    /**
+     * Rebuild every entry's UVs if the atlases were reloaded since the last check. Call once per frame before
+     * writing vertices.
+     */
+    public void refreshIfReloaded() {
+        boolean reloaded = false;
+        if (particleSentinelType != null) {
+            SpriteProvider provider = providerFor(particleSentinelType);
+            reloaded = provider != null && firstSprite(provider) != particleSentinel;
+        }
+        if (!reloaded && blockSentinelState != null) {
+            reloaded = blockSprite(blockSentinelState) != blockSentinel;
+        }
+        if (!reloaded) return;
+
+        frames = 0;
+        for (int i = 1; i < entries; i++) {
+            List<Sprite> sprites = resolve(sources[i]);
+            // A resource pack may have removed frames; keep the index usable
+            writeFrames(i, sprites.isEmpty() ? List.of(missingSprite(ParticleLayer.VALUES[layer[i]])) : sprites);
+        }
+        if (particleSentinelType != null) {
+            SpriteProvider provider = providerFor(particleSentinelType);
+            particleSentinel = provider != null ? firstSprite(provider) : null;
+        }
+        if (blockSentinelState != null) blockSentinel = blockSprite(blockSentinelState);
+        rebuilds++;
+    }
+
+    private List<Sprite> resolve(Source source) {
+        if (source.state() != null) {
+            Sprite s = blockSprite(source.state());
+            return s != null ? List.of(s) : List.of();
+        }
+        List<Sprite> all = probe(providerFor(source.type()));
+        if (source.frame() < 0 || all.isEmpty()) return all;
+        return List.of(all.get(source.frame() % all.size()));
+    }
+
+    private static SpriteProvider providerFor(Identifier type) {
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.particleManager == null) return null;
+        return ((ParticleManagerAccessor) mc.particleManager).threadium$getSpriteProviders().get(type);
+    }
+
+    /**
+     * A provider's frames in order, found by sampling {@code getSprite(age, maxAge)} over a full lifetime.
+     */
+    private static List<Sprite> probe(SpriteProvider provider) {
+        List<Sprite> out = new ArrayList<>();
+        if (provider == null) return out;
+        try {
+            Sprite last = null;
+            for (int age = 0; age <= PROBE_STEPS; age++) {
+                Sprite s = provider.getSprite(age, PROBE_STEPS);
+                if (s != last) {
+                    out.add(s);
+                    last = s;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Sprites not loaded yet
+            out.clear();
+        }
+        return out;
+    }
+
+    private static Sprite firstSprite(SpriteProvider provider) {
+        try {
+            return provider.getSprite(0, 1);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Sprite blockSprite(BlockState state) {
+        return MinecraftClient.getInstance().getBlockRenderManager().getModels().getModelParticleSprite(state);
+    }
+
+    private static Sprite missingSprite(ParticleLayer target) {
+        return MinecraftClient.getInstance().getSpriteAtlas(target.atlas).apply(MissingSprite.getMissingSpriteId());
+    }
+
+    /** Registered texture indices, including the reserved untextured one. */
+    public int getEntryCount() { return entries; }
+
+    public int getFrameCount() { return frames; }
+
+    public int getRebuildCount() { return rebuilds; }
+}
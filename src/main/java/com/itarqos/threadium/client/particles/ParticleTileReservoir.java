@@ -0,0 +1,248 @@
+package com.itarqos.threadium.client.particles;
+
+import java.util.Arrays;
+
+/**
+ * Per-tile weighted reservoir sample of the particle spawns of one spawn window (one client tick).
+ *
+ * Each world-space tile keeps at most {@code budget} candidates, chosen by A-Res (Efraimidis–Spirakis): every
+ * offer draws the key {@code ln(u) / weight} and the tile keeps the largest keys, so a heavier spawn is more likely to
+ * survive no matter when in the window it arrives. Candidates are held in preallocated structure-of-arrays slots
+ * and are only turned into particles by {@link #commit(Sink)}; a spawn that loses costs nothing but the offer. The
+ * frame budget and the light lookup are only paid at commit, for the survivors, so a burst of early low-weight spawns
+ * cannot use up the budget that later, heavier ones need.
+ *
+ * Tiles live in an open-addressed long-keyed table whose entries carry the window generation, so starting a new window
+ * is a counter increment, not a clear. Nothing is allocated per offer once the arrays have grown to the busiest
+ * window. Client thread only.
+ */
+final class ParticleTileReservoir {
+    private static final int INITIAL_TILES = 64;          // power of two
+    private static final int INITIAL_SLOTS = 512;
+
+    /** Receives the surviving candidates on commit. */
+    interface Sink {
+        /** How many of a tile's {@code candidates} may become particles; the heaviest ones are kept. */
+        int grant(int candidates);
+
+        void accept(double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                    int argb, float gravity, float drag, int textureIndex);
+    }
+
+    // Tile table
+    private long[] tileKeys = new long[INITIAL_TILES];
+    private int[] tileGen = new int[INITIAL_TILES];       // entry is live when == generation
+    private int[] tileBase = new int[INITIAL_TILES];      // first candidate slot
+    private int[] tileCap = new int[INITIAL_TILES];       // budget fixed when the tile was first offered to
+    private int[] tileFill = new int[INITIAL_TILES];
+    private int[] tileMin = new int[INITIAL_TILES];       // slot holding the smallest key once full
+    private int tiles = 0;
+    private int generation = 1;
+
+    // Candidate slots, handed out to tiles in budget-sized runs
+    private double[] px = new double[INITIAL_SLOTS], py = new double[INITIAL_SLOTS], pz = new double[INITIAL_SLOTS];
+    private float[] pvx = new float[INITIAL_SLOTS], pvy = new float[INITIAL_SLOTS], pvz = new float[INITIAL_SLOTS];
+    private float[] psize = new float[INITIAL_SLOTS], pgravity = new float[INITIAL_SLOTS], pdrag = new float[INITIAL_SLOTS];
+    private int[] plifetime = new int[INITIAL_SLOTS], pargb = new int[INITIAL_SLOTS], ptexture = new int[INITIAL_SLOTS];
+    private double[] pkey = new double[INITIAL_SLOTS];
+    private int slotsUsed = 0;
+
+    // Stats for the last committed window
+    private int offered, offeredWindow;
+    private int admitted;
+    private int replaced, replacedWindow;
+
+    /**
+     * Offer one spawn to its tile's reservoir. {@code u} is uniform in (0, 1], {@code weight} > 0.
+     * Returns false when the spawn lost outright (it may also be evicted later in the window).
+     */
+    boolean offer(long tile, int budget, double weight, double u,
+                  double x, double y, double z, float vx, float vy, float vz, int lifetime, float size,
+                  int argb, float gravity, float drag, int textureIndex) {
+        offeredWindow++;
+        int t = findOrAddTile(tile, Math.max(1, budget));
+        double key = Math.log(u) / Math.max(1e-6, weight);
+        int slot;
+        if (tileFill[t] < tileCap[t]) {
+            slot = tileBase[t] + tileFill[t]++;
+        } else {
+            slot = tileMin[t];
+            if (key <= pkey[slot]) return false;
+            replacedWindow++;
+        }
+        px[slot] = x;
+        py[slot] = y;
+        pz[slot] = z;
+        pvx[slot] = vx;
+        pvy[slot] = vy;
+        pvz[slot] = vz;
+        plifetime[slot] = lifetime;
+        psize[slot] = size;
+        pargb[slot] = argb;
+        pgravity[slot] = gravity;
+        pdrag[slot] = drag;
+        ptexture[slot] = textureIndex;
+        pkey[slot] = key;
+        // Track the weakest candidate once the tile is full: it is the one the next heavier spawn replaces
+        if (tileFill[t] == tileCap[t] && (tileMin[t] < 0 || slot == tileMin[t])) tileMin[t] = minSlot(t);
+        return true;
+    }
+
+    /**
+     * Hand the surviving candidates to {@code sink}, as many per tile as it grants, and start a new window.
+     */
+    void commit(Sink sink) {
+        int kept = 0;
+        for (int t = 0; t < tileKeys.length; t++) {
+            if (tileGen[t] != generation) continue;
+            int base = tileBase[t], fill = tileFill[t];
+            int granted = Math.min(fill, sink.grant(fill));
+            if (granted <= 0) continue;
+            kept += granted;
+            if (granted < fill) keepHeaviest(base, fill, granted);
+            for (int s = base, end = base + granted; s < end; s++) {
+                sink.accept(px[s], py[s], pz[s], pvx[s], pvy[s], pvz[s], plifetime[s], psize[s],
+                        pargb[s], pgravity[s], pdrag[s], ptexture[s]);
+            }
+        }
+        offered = offeredWindow;
+        admitted = kept;
+        replaced = replacedWindow;
+        offeredWindow = 0;
+        replacedWindow = 0;
+        reset();
+    }
+
+    /** Drop everything offered this window. */
+    void reset() {
+        generation++;
+        if (generation == 0) {
+            // Wrapped: make sure no stale entry can look live
+            Arrays.fill(tileGen, 0);
+            generation = 1;
+        }
+        tiles = 0;
+        slotsUsed = 0;
+    }
+
+    /**
+     * Move the {@code k} largest keys of a tile's run to its front (selection; runs are budget-sized, so short).
+     */
+    private void keepHeaviest(int base, int fill, int k) {
+        for (int i = 0; i < k; i++) {
+            int best = base + i;
+            for (int s = best + 1; s < base + fill; s++) {
+                if (pkey[s] > pkey[best]) best = s;
+            }
+            if (best != base + i) swap(best, base + i);
+        }
+    }
+
+    private void swap(int a, int b) {
+        double d;
+        float f;
+        int n;
+        d = px[a]; px[a] = px[b]; px[b] = d;
+        d = py[a]; py[a] = py[b]; py[b] = d;
+        d = pz[a]; pz[a] = pz[b]; pz[b] = d;
+        d = pkey[a]; pkey[a] = pkey[b]; pkey[b] = d;
+        f = pvx[a]; pvx[a] = pvx[b]; pvx[b] = f;
+        f = pvy[a]; pvy[a] = pvy[b]; pvy[b] = f;
+        f = pvz[a]; pvz[a] = pvz[b]; pvz[b] = f;
+        f = psize[a]; psize[a] = psize[b]; psize[b] = f;
+        f = pgravity[a]; pgravity[a] = pgravity[b]; pgravity[b] = f;
+        f = pdrag[a]; pdrag[a] = pdrag[b]; pdrag[b] = f;
+        n = plifetime[a]; plifetime[a] = plifetime[b]; plifetime[b] = n;
+        n = pargb[a]; pargb[a] = pargb[b]; pargb[b] = n;
+        n = ptexture[a]; ptexture[a] = ptexture[b]; ptexture[b] = n;
+    }
+
+    /** Slot with the smallest key in a tile. */
+    private int minSlot(int t) {
+        int best = tileBase[t];
+        double bestKey = Double.POSITIVE_INFINITY;
+        int end = tileBase[t] + tileFill[t];
+        for (int s = tileBase[t]; s < end; s++) {
+            double k = pkey[s];
+            if (k < bestKey) {
+                bestKey = k;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    private int findOrAddTile(long tile, int budget) {
+        if ((tiles + 1) * 2 > tileKeys.length) growTiles();
+        int mask = tileKeys.length - 1;
+        int i = mix(tile) & mask;
+        while (tileGen[i] == generation) {
+            if (tileKeys[i] == tile) return i;
+            i = (i + 1) & mask;
+        }
+        if (slotsUsed + budget > px.length) growSlots(Math.max(px.length * 2, slotsUsed + budget));
+        tileKeys[i] = tile;
+        tileGen[i] = generation;
+        tileBase[i] = slotsUsed;
+        tileCap[i] = budget;
+        tileFill[i] = 0;
+        tileMin[i] = -1;
+        slotsUsed += budget;
+        tiles++;
+        return i;
+    }
+
+    private void growTiles() {
+        long[] keys = tileKeys;
+        int[] gen = tileGen, base = tileBase, cap = tileCap, fill = tileFill, min = tileMin;
+        int size = keys.length * 2;
+        tileKeys = new long[size];
+        tileGen = new int[size];
+        tileBase = new int[size];
+        tileCap = new int[size];
+        tileFill = new int[size];
+        tileMin = new int[size];
+        int mask = size - 1;
+        for (int j = 0; j < keys.length; j++) {
+            if (gen[j] != generation) continue;
+            int i = mix(keys[j]) & mask;
+            while (tileGen[i] == generation) i = (i + 1) & mask;
+            tileKeys[i] = keys[j];
+            tileGen[i] = generation;
+            tileBase[i] = base[j];
+            tileCap[i] = cap[j];
+            tileFill[i] = fill[j];
+            tileMin[i] = min[j];
+        }
+    }
+
+    private void growSlots(int size) {
+        px = Arrays.copyOf(px, size);
+        py = Arrays.copyOf(py, size);
+        pz = Arrays.copyOf(pz, size);
+        pvx = Arrays.copyOf(pvx, size);
+        pvy = Arrays.copyOf(pvy, size);
+        pvz = Arrays.copyOf(pvz, size);
+        psize = Arrays.copyOf(psize, size);
+        pgravity = Arrays.copyOf(pgravity, size);
+        pdrag = Arrays.copyOf(pdrag, size);
+        plifetime = Arrays.copyOf(plifetime, size);
+        pargb = Arrays.copyOf(pargb, size);
+        ptexture = Arrays.copyOf(ptexture, size);
+        pkey = Arrays.copyOf(pkey, size);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Spawns offered during the last committed window. */
+    int getOffered() { return offered; }
+
+    /** Spawns kept by the last committed window (after the sink's grants). */
+    int getAdmitted() { return admitted; }
+
+    /** Candidates evicted by heavier late spawns in the last committed window. */
+    int getReplaced() { return replaced; }
+}
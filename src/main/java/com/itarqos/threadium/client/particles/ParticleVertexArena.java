@@ -0,0 +1,111 @@
+package com.itarqos.threadium.client.particles;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gl.ShaderProgramKey;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.BuiltBuffer;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.util.BufferAllocator;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fStack;
+
+/**
+ * Native vertex buffer for one {@link ParticleLayer}; {@link OptimizedParticleSystem} keeps one arena per layer.
+ *
+ * A frame reserves the layer's vertices in one block, fills it (possibly from several threads, each writing its own
+ * range) and submits a single draw; the allocator is reused between frames, growing to the largest frame of this
+ * layer. To give memory back after a burst,
+ * the arena tracks the bytes written per frame: when the peak over the last {@link #TRIM_WINDOW_FRAMES} frames is
+ * well below what the allocator grew to, it is closed and recreated at the smaller size.
+ *
+ * Explicit lifecycle: {@link #close()} releases the native memory (client shutdown); the arena reopens lazily.
+ * Reserve, draw and close are render thread only.
+ */
+public final class ParticleVertexArena {
+    private static final int INITIAL_BYTES = 64 * 1024;
+    private static final int TRIM_WINDOW_FRAMES = 600;
+    // Only bother trimming allocations that are large and mostly unused
+    private static final long MIN_TRIM_BYTES = 1L << 20;
+    private static final int TRIM_RATIO = 4;
+
+    private BufferAllocator allocator;
+    private long allocatedBytes = 0L;   // at least what the allocator has grown to
+    private long frameBytes = 0L;       // largest reservation this frame
+    private long windowPeakBytes = 0L;
+    private int windowFrames = 0;
+    private int drawsThisFrame = 0;
+    private int lastFrameDraws = 0;
+    private int trims = 0;
+
+    /**
+     * Reserve room for this frame's {@code quads} quads and return the native address to write vertices at.
+     * Disjoint ranges of the reservation may be filled from several threads; nothing else may use the arena until
+     * the reservation is passed to {@link #draw}.
+     */
+    public long reserve(VertexFormat format, int quads) {
+        if (allocator == null) {
+            allocator = new BufferAllocator(INITIAL_BYTES);
+            allocatedBytes = INITIAL_BYTES;
+        }
+        int bytes = quads * 4 * format.getVertexSizeByte();
+        frameBytes = Math.max(frameBytes, bytes);
+        allocatedBytes = Math.max(allocatedBytes, bytes);
+        return allocator.allocate(bytes);
+    }
+
+    /**
+     * Draw the reservation once with the camera's view matrix on top of the model-view stack.
+     * {@code quads} must match the reservation, and every vertex in it must have been written.
+     */
+    public void draw(VertexFormat format, ShaderProgramKey shader, Matrix4f positionMatrix, int quads) {
+        BufferAllocator.CloseableBuffer vertices = allocator != null ? allocator.getAllocated() : null;
+        if (vertices == null) return;
+        int vertexCount = quads * 4;
+        int indexCount = VertexFormat.DrawMode.QUADS.getIndexCount(vertexCount);
+        BuiltBuffer built = new BuiltBuffer(vertices, new BuiltBuffer.DrawParameters(format, vertexCount, indexCount,
+                VertexFormat.DrawMode.QUADS, VertexFormat.IndexType.smallestFor(indexCount)));
+
+        Matrix4fStack modelView = RenderSystem.getModelViewStack();
+        modelView.pushMatrix();
+        modelView.mul(positionMatrix);
+        RenderSystem.setShader(shader);
+        BufferRenderer.drawWithGlobalProgram(built);
+        modelView.popMatrix();
+        drawsThisFrame++;
+    }
+
+    /**
+     * Close the frame's accounting and trim the allocator if it has been oversized for a whole window.
+     */
+    public void endFrame() {
+        lastFrameDraws = drawsThisFrame;
+        drawsThisFrame = 0;
+        windowPeakBytes = Math.max(windowPeakBytes, frameBytes);
+        frameBytes = 0L;
+        if (++windowFrames < TRIM_WINDOW_FRAMES) return;
+        if (allocator != null && allocatedBytes >= MIN_TRIM_BYTES && allocatedBytes > windowPeakBytes * TRIM_RATIO) {
+            allocator.close();
+            int size = (int) Math.max(INITIAL_BYTES, Math.min(Integer.MAX_VALUE, windowPeakBytes * 2L));
+            allocator = new BufferAllocator(size);
+            allocatedBytes = size;
+            trims++;
+        }
+        windowPeakBytes = 0L;
+        windowFrames = 0;
+    }
+
+    public void close() {
+        if (allocator != null) {
+            allocator.close();
+            allocator = null;
+        }
+        allocatedBytes = 0L;
+        windowPeakBytes = 0L;
+        windowFrames = 0;
+    }
+
+    /** Approximate native memory held by the arena. */
+    public long getAllocatedBytes() { return allocatedBytes; }
+    public int getLastFrameDraws() { return lastFrameDraws; }
+    public int getTrimCount() { return trims; }
+}
@@ -0,0 +1,272 @@
+package com.itarqos.threadium.client.particles;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.option.ParticlesMode;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.particle.BlockStateParticleEffect;
+import net.minecraft.particle.DustParticleEffect;
+import net.minecraft.particle.ParticleEffect;
+import net.minecraft.particle.ParticleType;
+import net.minecraft.particle.ParticleTypes;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.shape.VoxelShape;
+import org.joml.Vector3f;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in offload of high-volume, simple vanilla particle types into {@link OptimizedParticleSystem}.
+ *
+ * Each supported type is translated into one pooled particle with the vanilla factory's lifetime, size, color,
+ * gravity and drag, so tile budgets, distance thinning and batched rendering apply to the particles that dominate
+ * real scenes. Sprites come from {@link ParticleSpriteTable}, animated by age or picked at random as the vanilla
+ * particle does. Pooled particles do not collide with blocks, which is why only types that rarely rest on surfaces
+ * are translated; everything else, and anything spawned with "always spawn", keeps the vanilla path. Portal motion
+ * (a quadratic ease toward the origin) is approximated linearly. Block break and block hit crumbs do not go through
+ * {@code ClientWorld.addParticle}; the particle manager hands them over through {@link #tryOffloadBlockBreak} and
+ * {@link #tryOffloadBlockBreaking}.
+ *
+ * Client thread only.
+ */
+public final class VanillaParticleTranslator {
+    // Vanilla's particle spawn distance (WorldRenderer): 32 blocks
+    private static final double MAX_DISTANCE_SQ = 1024.0;
+    // Vanilla gravity unit: gravityStrength * 0.04 per tick
+    private static final float GRAVITY_UNIT = 0.04f;
+    // Tile budget priorities: feedback the player reads (hits, block breaking) beats ambient effects
+    private static final float PRIORITY_CRIT = 2.0f;
+    private static final float PRIORITY_BLOCK = 1.5f;
+    private static final float PRIORITY_DEFAULT = 1.0f;
+    private static final float PRIORITY_AMBIENT = 0.75f;
+    private static final float PRIORITY_WEATHER = 0.5f;
+
+    private static long offloaded = 0L;
+    private static long passedThrough = 0L;
+
+    private VanillaParticleTranslator() {}
+
+    public static boolean isEnabled() {
+        return ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.offloadVanillaParticles;
+    }
+
+    /**
+     * Take over a particle spawn. Returns true when the spawn was handled here (translated, or dropped exactly as
+     * vanilla would have dropped it) and the vanilla particle must not be created.
+     */
+    public static boolean tryOffload(ParticleEffect effect, double x, double y, double z, double vx, double vy, double vz) {
+        if (!isEnabled()) return false;
+        ParticleType<?> type = effect.getType();
+        if (type.shouldAlwaysSpawn() || !isSupported(effect)) {
+            passedThrough++;
+            return false;
+        }
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.world == null || !mc.gameRenderer.getCamera().isReady()) return false;
+
+        // Same culling as WorldRenderer.spawnParticle for non-forced particles
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        ParticlesMode mode = mc.options.getParticles().getValue();
+        if (mode == ParticlesMode.DECREASED && rnd.nextInt(3) == 0) mode = ParticlesMode.MINIMAL;
+        Vec3d cam = mc.gameRenderer.getCamera().getPos();
+        if (mode == ParticlesMode.MINIMAL || cam.squaredDistanceTo(x, y, z) > MAX_DISTANCE_SQ) {
+            offloaded++;
+            return true;
+        }
+
+        translate(mc.world, effect, x, y, z, vx, vy, vz, rnd);
+        offloaded++;
+        return true;
+    }
+
+    /**
+     * Take over {@code ParticleManager.addBlockBreakParticles}: the same grid of crumbs over the block's outline boxes
+     * (at least 2 and at most 4 per axis and box), each pushed outward from the block center.
+     */
+    public static boolean tryOffloadBlockBreak(ClientWorld world, BlockPos pos, BlockState state) {
+        if (!isEnabled() || world == null) return false;
+        offloaded++;
+        if (state.isAir() || !state.hasBlockBreakParticles()) return true;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        VoxelShape shape = state.getOutlineShape(world, pos);
+        shape.forEachBox((minX, minY, minZ, maxX, maxY, maxZ) -> {
+            double dx = Math.min(1.0, maxX - minX), dy = Math.min(1.0, maxY - minY), dz = Math.min(1.0, maxZ - minZ);
+            int nx = Math.max(2, MathHelper.ceil(dx / 0.25));
+            int ny = Math.max(2, MathHelper.ceil(dy / 0.25));
+            int nz = Math.max(2, MathHelper.ceil(dz / 0.25));
+            for (int i = 0; i < nx; i++) {
+                for (int j = 0; j < ny; j++) {
+                    for (int k = 0; k < nz; k++) {
+                        double fx = (i + 0.5) / nx, fy = (j + 0.5) / ny, fz = (k + 0.5) / nz;
+                        spawnCrumb(world, pos, state, pos.getX() + fx * dx + minX, pos.getY() + fy * dy + minY, pos.getZ() + fz * dz + minZ,
+                                fx - 0.5, fy - 0.5, fz - 0.5, 1f, 1f, rnd);
+                    }
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Take over {@code ParticleManager.addBlockBreakingParticles}: one slowed, smaller crumb just outside the face
+     * being mined.
+     */
+    public static boolean tryOffloadBlockBreaking(ClientWorld world, BlockPos pos, Direction direction) {
+        if (!isEnabled() || world == null) return false;
+        offloaded++;
+        BlockState state = world.getBlockState(pos);
+        if (state.getRenderType() == BlockRenderType.INVISIBLE || !state.hasBlockBreakParticles()) return true;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Box box = state.getOutlineShape(world, pos).getBoundingBox();
+        double x = pos.getX() + rnd.nextDouble() * (box.maxX - box.minX - 0.2) + 0.1 + box.minX;
+        double y = pos.getY() + rnd.nextDouble() * (box.maxY - box.minY - 0.2) + 0.1 + box.minY;
+        double z = pos.getZ() + rnd.nextDouble() * (box.maxZ - box.minZ - 0.2) + 0.1 + box.minZ;
+        switch (direction) {
+            case DOWN -> y = pos.getY() + box.minY - 0.1;
+            case UP -> y = pos.getY() + box.maxY + 0.1;
+            case NORTH -> z = pos.getZ() + box.minZ - 0.1;
+            case SOUTH -> z = pos.getZ() + box.maxZ + 0.1;
+            case WEST -> x = pos.getX() + box.minX - 0.1;
+            case EAST -> x = pos.getX() + box.maxX + 0.1;
+        }
+        // Particle.move(0.2f) and scale(0.6f)
+        spawnCrumb(world, pos, state, x, y, z, 0.0, 0.0, 0.0, 0.2f, 0.6f, rnd);
+        return true;
+    }
+
+    /**
+     * BlockDustParticle: randomized velocity, full gravity, half size, tinted by the block at {@code pos}. {@code speed}
+     * is vanilla's {@code move} factor (the vertical part keeps its 0.1 lift) and {@code sizeScale} its {@code scale}.
+     */
+    private static void spawnCrumb(ClientWorld world, BlockPos pos, BlockState state, double x, double y, double z, double vx, double vy, double vz,
+                                   float speed, float sizeScale, ThreadLocalRandom rnd) {
+        float[] v = scatter(vx, vy, vz, rnd);
+        int tex = ParticleSpriteTable.get().blockCrumb(state);
+        int life = (int) (4.0f / (rnd.nextFloat() * 0.9f + 0.1f));
+        float scale = 0.2f * (rnd.nextFloat() * 0.5f + 0.5f);
+        // Textured crumbs are shaded like vanilla: 0.6 times the block tint (grass blocks stay untinted, their sprite
+        // is the dirt side). Without a sprite fall back to the block's map color
+        int rgb;
+        if (tex == ParticleSpriteTable.UNTEXTURED) rgb = blockColor(state);
+        else if (state.isOf(Blocks.GRASS_BLOCK)) rgb = 0xFFFFFF;
+        else rgb = MinecraftClient.getInstance().getBlockColors().getColor(state, world, pos, 0);
+        float r = ((rgb >> 16) & 0xFF) / 255f * 0.6f, g = ((rgb >> 8) & 0xFF) / 255f * 0.6f, b = (rgb & 0xFF) / 255f * 0.6f;
+        OptimizedParticleSystem.get().spawn(x, y, z, v[0] * speed, (v[1] - 0.1f) * speed + 0.1f, v[2] * speed,
+                life, scale * 0.5f * sizeScale, ChunkParticleContainer.packColor(r, g, b, 1f), GRAVITY_UNIT, 0.98f, tex, PRIORITY_BLOCK);
+    }
+
+    private static boolean isSupported(ParticleEffect effect) {
+        ParticleType<?> type = effect.getType();
+        if (effect instanceof BlockStateParticleEffect block) {
+            // Only plain block crumbs; block markers and dust pillars behave differently
+            return type == ParticleTypes.BLOCK && !block.getBlockState().isAir();
+        }
+        return type == ParticleTypes.SMOKE || type == ParticleTypes.FLAME || type == ParticleTypes.SMALL_FLAME
+                || type == ParticleTypes.RAIN || type == ParticleTypes.SPLASH || type == ParticleTypes.CRIT
+                || type == ParticleTypes.PORTAL || effect instanceof DustParticleEffect;
+    }
+
+    private static void translate(ClientWorld world, ParticleEffect effect, double x, double y, double z,
+                                  double vx, double vy, double vz, ThreadLocalRandom rnd) {
+        OptimizedParticleSystem sys = OptimizedParticleSystem.get();
+        ParticleSpriteTable sprites = ParticleSpriteTable.get();
+        ParticleType<?> type = effect.getType();
+        // Vanilla billboard scale is a half-width of 0.1..0.2; pooled sizes are full widths
+        float scale = 0.2f * (rnd.nextFloat() * 0.5f + 0.5f);
+
+        if (effect instanceof DustParticleEffect dust) {
+            // AbstractDustParticle: randomized velocity * 0.1, darkened color, scale * 0.75 * effect scale
+            float[] v = scatter(vx, vy, vz, rnd);
+            Vector3f c = dust.getColor();
+            float shade = rnd.nextFloat() * 0.4f + 0.6f;
+            float s = scale * 0.75f * dust.getScale();
+            int life = Math.max(1, (int) (baseLifetime(rnd) * dust.getScale()));
+            sys.spawn(x, y, z, v[0] * 0.1f, v[1] * 0.1f, v[2] * 0.1f, life, s,
+                    ChunkParticleContainer.packColor(c.x() * shade, c.y() * shade, c.z() * shade, 1f), 0f, 0.96f,
+                    sprites.animated(type, false), PRIORITY_AMBIENT);
+        } else if (effect instanceof BlockStateParticleEffect block) {
+            spawnCrumb(world, BlockPos.ofFloored(x, y, z), block.getBlockState(), x, y, z, vx, vy, vz, 1f, 1f, rnd);
+        } else if (type == ParticleTypes.SMOKE) {
+            // SmokeParticle: slow drift, rises (gravity -0.1), gray up to 0.3
+            float gray = rnd.nextFloat() * 0.3f;
+            sys.spawn(x, y, z, (float) vx + jitter(rnd), (float) vy + jitter(rnd), (float) vz + jitter(rnd),
+                    baseLifetime(rnd), scale * 0.75f, ChunkParticleContainer.packColor(gray, gray, gray, 1f),
+                    -0.1f * GRAVITY_UNIT, 0.96f, sprites.animated(type, false), PRIORITY_AMBIENT);
+        } else if (type == ParticleTypes.FLAME || type == ParticleTypes.SMALL_FLAME) {
+            // FlameParticle: given velocity, no gravity, emissive; the sprite carries the color
+            float s = type == ParticleTypes.SMALL_FLAME ? scale * 0.5f : scale;
+            int tex = sprites.randomFrame(type, true, rnd);
+            int argb = tex != ParticleSpriteTable.UNTEXTURED ? 0xFFFFFFFF : ChunkParticleContainer.packColor(1f, 0.62f, 0.2f, 1f);
+            sys.spawn(x, y, z, (float) vx, (float) vy, (float) vz, baseLifetime(rnd) + 4, s, argb, 0f, 0.96f, tex, PRIORITY_DEFAULT);
+        } else if (type == ParticleTypes.RAIN || type == ParticleTypes.SPLASH) {
+            // RainSplashParticle: small hop (0.1..0.3 up), strong gravity; water splashes keep a given sideways push
+            boolean push = type == ParticleTypes.SPLASH && vy == 0.0 && (vx != 0.0 || vz != 0.0);
+            float hx = push ? (float) vx : jitter(rnd) * 3f;
+            float hz = push ? (float) vz : jitter(rnd) * 3f;
+            float hy = push ? (float) vy + 0.1f : rnd.nextFloat() * 0.2f + 0.1f;
+            int tex = sprites.randomFrame(type, false, rnd);
+            int argb = tex != ParticleSpriteTable.UNTEXTURED ? 0xFFFFFFFF : ChunkParticleContainer.packColor(0.6f, 0.7f, 1f, 0.8f);
+            sys.spawn(x, y, z, hx, hy, hz, baseLifetime(rnd), scale, argb, GRAVITY_UNIT, 0.98f, tex, PRIORITY_WEATHER);
+        } else if (type == ParticleTypes.CRIT) {
+            // DamageParticle: small random drift plus 0.4 of the given velocity, heavy drag
+            float c = rnd.nextFloat() * 0.3f + 0.6f;
+            int life = Math.max(1, (int) (6.0f / (rnd.nextFloat() * 0.8f + 0.6f)));
+            sys.spawn(x, y, z, jitter(rnd) + (float) vx * 0.4f, jitter(rnd) + (float) vy * 0.4f, jitter(rnd) + (float) vz * 0.4f,
+                    life, scale * 0.75f, ChunkParticleContainer.packColor(c, c, c, 1f), 0.5f * GRAVITY_UNIT, 0.7f,
+                    sprites.animated(type, false), PRIORITY_CRIT);
+        } else if (type == ParticleTypes.PORTAL) {
+            // PortalParticle eases from (pos + velocity, 1 block up) back to pos over its life; approximate linearly.
+            // Vanilla portal particles are always fully lit
+            int life = rnd.nextInt(10) + 40;
+            float j = rnd.nextFloat() * 0.6f + 0.4f;
+            float s = 0.2f * (rnd.nextFloat() * 0.2f + 0.5f);
+            sys.spawn(x + vx, y + vy + 1.0, z + vz, (float) -vx / life, (float) (-vy - 1.0) / life, (float) -vz / life,
+                    life, s, ChunkParticleContainer.packColor(j * 0.9f, j * 0.3f, j, 1f), 0f, 1f,
+                    sprites.randomFrame(type, true, rnd), PRIORITY_DEFAULT);
+        }
+    }
+
+    /** Vanilla's common lifetime: 8 / (0.2..1.0) ticks. */
+    private static int baseLifetime(ThreadLocalRandom rnd) {
+        return (int) (8.0f / (rnd.nextFloat() * 0.8f + 0.2f));
+    }
+
+    private static float jitter(ThreadLocalRandom rnd) {
+        return (rnd.nextFloat() * 2f - 1f) * 0.01f;
+    }
+
+    /**
+     * The velocity randomization of the base Particle constructor: the given direction is jittered and rescaled
+     * to a small random speed with a slight upward bias.
+     */
+    private static float[] scatter(double vx, double vy, double vz, ThreadLocalRandom rnd) {
+        double rx = vx + (rnd.nextDouble() * 2.0 - 1.0) * 0.4;
+        double ry = vy + (rnd.nextDouble() * 2.0 - 1.0) * 0.4;
+        double rz = vz + (rnd.nextDouble() * 2.0 - 1.0) * 0.4;
+        double speed = (rnd.nextDouble() + rnd.nextDouble() + 1.0) * 0.15;
+        double len = Math.max(1.0E-6, Math.sqrt(rx * rx + ry * ry + rz * rz));
+        return new float[] {
+                (float) (rx / len * speed * 0.4),
+                (float) (ry / len * speed * 0.4 + 0.1),
+                (float) (rz / len * speed * 0.4)
+        };
+    }
+
+    private static int blockColor(BlockState state) {
+        int rgb = state.getBlock().getDefaultMapColor().color;
+        return rgb != 0 ? rgb : 0x808080;
+    }
+
+    /** Vanilla spawns taken over (translated or culled as vanilla would). */
+    public static long getOffloadedCount() { return offloaded; }
+
+    /** Spawns of enabled-but-unsupported types left to vanilla. */
+    public static long getPassedThroughCount() { return passedThrough; }
+}
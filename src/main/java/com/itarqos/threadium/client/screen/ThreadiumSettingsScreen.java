@@ -294,6 +294,15 @@ public class ThreadiumSettingsScreen extends Screen {
                   .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
                 y += 24;
 
+                // Dropped item / XP orb clustering
+                addIfVisible(ButtonWidget.builder(itemClusteringLabel(), b -> {
+                    cfg.enableItemClustering = !cfg.enableItemClustering;
+                    b.setMessage(itemClusteringLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.item_clustering")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
                 // Distance slider for entity culling
                 addIfVisible(new DistanceSlider(left, y, colW, 20, cfg.entityCullingDistance), y, 20, visibleTop, visibleBottom);
                 y += 28;
@@ -326,6 +335,15 @@ public class ThreadiumSettingsScreen extends Screen {
                   .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
                 y += 24;
 
+                // Block entity baking
+                addIfVisible(ButtonWidget.builder(blockEntityBakingLabel(), b -> {
+                    cfg.enableBlockEntityBaking = !cfg.enableBlockEntityBaking;
+                    b.setMessage(blockEntityBakingLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.blockentity_baking")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
                 // Shared vertical band half-height slider
                 addIfVisible(new VerticalBandSlider(left, y, colW, 20, cfg.verticalBandHalfHeight), y, 20, visibleTop, visibleBottom);
                 y += 28;
@@ -395,12 +413,55 @@ public class ThreadiumSettingsScreen extends Screen {
                 y += 24;
                 addIfVisible(new MicroStutterThresholdSlider(left, y, colW, 20, cfg.microStutterThresholdMs), y, 20, visibleTop, visibleBottom);
                 y += 28;
+                addIfVisible(ButtonWidget.builder(gcAwareGuardLabel(), b -> {
+                    cfg.gcAwareStutterGuard = !cfg.gcAwareStutterGuard;
+                    b.setMessage(gcAwareGuardLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.gc_aware_guard")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
 
                 // QoS controller: target FPS & aggressiveness
                 addIfVisible(new TargetFpsSlider(left, y, colW, 20, cfg.targetFps), y, 20, visibleTop, visibleBottom);
                 y += 28;
                 addIfVisible(new QosAggressivenessSlider(left, y, colW, 20, (float)cfg.qosAggressiveness), y, 20, visibleTop, visibleBottom);
                 y += 28;
+                addIfVisible(ButtonWidget.builder(qosPercentileLabel(), b -> {
+                    cfg.qosTargetPercentile = nextQosPercentile(cfg.qosTargetPercentile);
+                    b.setMessage(qosPercentileLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.qos_target_percentile")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+                addIfVisible(ButtonWidget.builder(phaseAttributionLabel(), b -> {
+                    cfg.enablePhaseAttribution = !cfg.enablePhaseAttribution;
+                    b.setMessage(phaseAttributionLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.phase_attribution")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+                addIfVisible(ButtonWidget.builder(workBudgetLabel(), b -> {
+                    cfg.enableWorkBudgetArbiter = !cfg.enableWorkBudgetArbiter;
+                    b.setMessage(workBudgetLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.work_budget")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+                addIfVisible(ButtonWidget.builder(autoTunerLabel(), b -> {
+                    cfg.enableAutoTuner = !cfg.enableAutoTuner;
+                    b.setMessage(autoTunerLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.auto_tuner")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
+                addIfVisible(ButtonWidget.builder(idleTimeWorkLabel(), b -> {
+                    cfg.enableIdleTimeWork = !cfg.enableIdleTimeWork;
+                    b.setMessage(idleTimeWorkLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.idle_time_work")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
             }
             case PARTICLES -> {
                 // Global disable all particles
@@ -492,6 +553,24 @@ public class ThreadiumSettingsScreen extends Screen {
                   .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
                 y += 24;
 
+                // Camera trace recording (for offline replay)
+                addIfVisible(ButtonWidget.builder(Text.translatable("threadium.settings.trace_recording", Text.translatable(cfg.enableTraceRecording ? "threadium.common.on" : "threadium.common.off")), b -> {
+                    cfg.enableTraceRecording = !cfg.enableTraceRecording;
+                    b.setMessage(Text.translatable("threadium.settings.trace_recording", Text.translatable(cfg.enableTraceRecording ? "threadium.common.on" : "threadium.common.off")));
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.trace_recording")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
+                // Dump recent internal events on hitches (Chrome trace JSON)
+                addIfVisible(ButtonWidget.builder(Text.translatable("threadium.settings.trace_dump_on_hitch", Text.translatable(cfg.traceDumpOnHitch ? "threadium.common.on" : "threadium.common.off")), b -> {
+                    cfg.traceDumpOnHitch = !cfg.traceDumpOnHitch;
+                    b.setMessage(Text.translatable("threadium.settings.trace_dump_on_hitch", Text.translatable(cfg.traceDumpOnHitch ? "threadium.common.on" : "threadium.common.off")));
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.trace_dump_on_hitch")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
                 // Prediction everywhere toggle
                 addIfVisible(ButtonWidget.builder(Text.translatable("threadium.settings.prediction_everywhere", Text.translatable(cfg.enablePredictionEverywhere ? "threadium.common.on" : "threadium.common.off")), b -> {
                     cfg.enablePredictionEverywhere = !cfg.enablePredictionEverywhere;
@@ -505,6 +584,15 @@ public class ThreadiumSettingsScreen extends Screen {
                 addIfVisible(new PredictionAheadSlider(left, y, colW, 20, cfg.predictionAheadTicks), y, 20, visibleTop, visibleBottom);
                 y += 28;
 
+                // Uncertainty-scaled culling margins
+                addIfVisible(ButtonWidget.builder(Text.translatable("threadium.settings.uncertainty_margins", Text.translatable(cfg.enableUncertaintyMargins ? "threadium.common.on" : "threadium.common.off")), b -> {
+                    cfg.enableUncertaintyMargins = !cfg.enableUncertaintyMargins;
+                    b.setMessage(Text.translatable("threadium.settings.uncertainty_margins", Text.translatable(cfg.enableUncertaintyMargins ? "threadium.common.on" : "threadium.common.off")));
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.uncertainty_margins")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+
                 // Visibility deprioritization toggle & sliders
                 addIfVisible(ButtonWidget.builder(Text.translatable("threadium.settings.visibility_deprioritization", Text.translatable(cfg.enableVisibilityDeprioritization ? "threadium.common.on" : "threadium.common.off")), b -> {
                     cfg.enableVisibilityDeprioritization = !cfg.enableVisibilityDeprioritization;
@@ -534,6 +622,13 @@ public class ThreadiumSettingsScreen extends Screen {
                 y += 28;
                 addIfVisible(new ParticleFarSizeScaleSlider(left, y, colW, 20, cfg.particleFarSizeScale), y, 20, visibleTop, visibleBottom);
                 y += 28;
+                addIfVisible(ButtonWidget.builder(particleCullingLabel(), b -> {
+                    cfg.enableParticleCulling = !cfg.enableParticleCulling;
+                    b.setMessage(particleCullingLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.particle_culling")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
 
                 // QoS controller: target FPS & aggressiveness
                 addIfVisible(new TargetFpsSlider(left, y, colW, 20, cfg.targetFps), y, 20, visibleTop, visibleBottom);
@@ -573,6 +668,13 @@ public class ThreadiumSettingsScreen extends Screen {
                 y += 24;
                 addIfVisible(new MicroStutterThresholdSlider(left, y, colW, 20, cfg.microStutterThresholdMs), y, 20, visibleTop, visibleBottom);
                 y += 28;
+                addIfVisible(ButtonWidget.builder(gcAwareGuardLabel(), b -> {
+                    cfg.gcAwareStutterGuard = !cfg.gcAwareStutterGuard;
+                    b.setMessage(gcAwareGuardLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.gc_aware_guard")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
 
                 // Particle tile budgeting toggle & sliders
                 addIfVisible(ButtonWidget.builder(particleTileBudgetLabel(), b -> {
@@ -586,6 +688,20 @@ public class ThreadiumSettingsScreen extends Screen {
                 y += 28;
                 addIfVisible(new ParticleTileSizeSlider(left, y, colW, 20, cfg.particleTileSize), y, 20, visibleTop, visibleBottom);
                 y += 28;
+                addIfVisible(ButtonWidget.builder(parallelParticlesLabel(), b -> {
+                    cfg.parallelParticles = !cfg.parallelParticles;
+                    b.setMessage(parallelParticlesLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.parallel_particles")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
+                addIfVisible(ButtonWidget.builder(offloadParticlesLabel(), b -> {
+                    cfg.offloadVanillaParticles = !cfg.offloadVanillaParticles;
+                    b.setMessage(offloadParticlesLabel());
+                    ThreadiumClient.saveConfig();
+                }).tooltip(Tooltip.of(Text.translatable("threadium.tooltip.offload_vanilla_particles")))
+                  .dimensions(left, y, colW, 20).build(), y, 20, visibleTop, visibleBottom);
+                y += 24;
             }
             case EXTRA -> {
                 // Overlay toggle
@@ -796,6 +912,10 @@ public class ThreadiumSettingsScreen extends Screen {
         return Text.translatable("threadium.settings.entity_y_band", Text.translatable(cfg.enableEntityVerticalBandCulling ? "threadium.common.on" : "threadium.common.off"));
     }
 
+    private Text itemClusteringLabel() {
+        return Text.translatable("threadium.settings.item_clustering", Text.translatable(cfg.enableItemClustering ? "threadium.common.on" : "threadium.common.off"));
+    }
+
     private Text chunkBandLabel() {
         return Text.translatable("threadium.settings.chunk_y_band", Text.translatable(cfg.enableChunkVerticalBandCulling ? "threadium.common.on" : "threadium.common.off"));
     }
@@ -804,6 +924,10 @@ public class ThreadiumSettingsScreen extends Screen {
         return Text.translatable("threadium.settings.blockentity_culling", Text.translatable(cfg.enableBlockEntityCulling ? "threadium.common.on" : "threadium.common.off"));
     }
 
+    private Text blockEntityBakingLabel() {
+        return Text.translatable("threadium.settings.blockentity_baking", Text.translatable(cfg.enableBlockEntityBaking ? "threadium.common.on" : "threadium.common.off"));
+    }
+
     private Text dynamicBandLabel() {
         return Text.translatable("threadium.settings.dynamic_y_band", Text.translatable(cfg.enableDynamicVerticalBand ? "threadium.common.on" : "threadium.common.off"));
     }
@@ -840,10 +964,26 @@ public class ThreadiumSettingsScreen extends Screen {
         return Text.translatable("threadium.settings.micro_stutter_guard", Text.translatable(cfg.enableMicroStutterGuard ? "threadium.common.on" : "threadium.common.off"));
     }
 
+    private Text gcAwareGuardLabel() {
+        return Text.translatable("threadium.settings.gc_aware_guard", Text.translatable(cfg.gcAwareStutterGuard ? "threadium.common.on" : "threadium.common.off"));
+    }
+
     private Text particleTileBudgetLabel() {
         return Text.translatable("threadium.settings.particle_tile_budget", Text.translatable(cfg.enableParticleTileBudget ? "threadium.common.on" : "threadium.common.off"));
     }
 
+    private Text particleCullingLabel() {
+        return Text.translatable("threadium.settings.particle_culling", Text.translatable(cfg.enableParticleCulling ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text parallelParticlesLabel() {
+        return Text.translatable("threadium.settings.parallel_particles", Text.translatable(cfg.parallelParticles ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text offloadParticlesLabel() {
+        return Text.translatable("threadium.settings.offload_vanilla_particles", Text.translatable(cfg.offloadVanillaParticles ? "threadium.common.on" : "threadium.common.off"));
+    }
+
     private Text overlayPositionLabel() {
         return Text.translatable("threadium.settings.overlay_position", overlayPositionValue());
     }
@@ -858,6 +998,39 @@ public class ThreadiumSettingsScreen extends Screen {
         };
     }
 
+    private Text autoTunerLabel() {
+        return Text.translatable("threadium.settings.auto_tuner", Text.translatable(cfg.enableAutoTuner ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text idleTimeWorkLabel() {
+        return Text.translatable("threadium.settings.idle_time_work", Text.translatable(cfg.enableIdleTimeWork ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text workBudgetLabel() {
+        return Text.translatable("threadium.settings.work_budget", Text.translatable(cfg.enableWorkBudgetArbiter ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text phaseAttributionLabel() {
+        return Text.translatable("threadium.settings.phase_attribution", Text.translatable(cfg.enablePhaseAttribution ? "threadium.common.on" : "threadium.common.off"));
+    }
+
+    private Text qosPercentileLabel() {
+        return Text.translatable("threadium.settings.qos_target_percentile", String.format("p%s", formatPercentile(cfg.qosTargetPercentile)));
+    }
+
+    private static final double[] QOS_PERCENTILES = {50.0, 90.0, 95.0, 99.0, 99.9};
+
+    private static double nextQosPercentile(double current) {
+        for (double p : QOS_PERCENTILES) {
+            if (p > current + 1e-6) return p;
+        }
+        return QOS_PERCENTILES[0];
+    }
+
+    private static String formatPercentile(double p) {
+        return p == Math.rint(p) ? String.valueOf((int) p) : String.format("%.1f", p);
+    }
+
     private static ThreadiumConfig.OverlayPosition nextOverlayPosition(ThreadiumConfig.OverlayPosition p) {
         ThreadiumConfig.OverlayPosition[] vals = ThreadiumConfig.OverlayPosition.values();
         int i = (p.ordinal() + 1) % vals.length;
@@ -3,7 +3,9 @@ package com.itarqos.threadium.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.itarqos.threadium.util.ThreadiumLog;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -29,7 +31,12 @@ import java.nio.file.Path;
     // New fine-grained controls
     public boolean enableEntityBehindCulling = true;     // cull entities behind the camera
     public boolean enableEntityVerticalBandCulling = true; // cull entities outside vertical band
+    public boolean enableItemClustering = true;          // render one representative per pile of dropped items/XP orbs
+    public double itemClusterNearDistance = 16.0;        // items closer than this always render individually
+    public double itemClusterCellSize = 1.0;             // world-space cell size (blocks) used to group items
     public boolean enableBlockEntityCulling = true;      // enable block entity hidden/vertical culling
+    public boolean enableBlockEntityBaking = true;       // draw idle signs/chests/skulls from cached per-section buffers
+    public int bakeRebuildsPerFrame = 8;                 // max baked block-entity sections re-recorded per frame
     public boolean enableChunkVerticalBandCulling = true; // cull chunk sections outside vertical band
     public int verticalBandHalfHeight = 5;               // +/- blocks around camera Y
 
@@ -43,6 +50,11 @@ import java.nio.file.Path;
     // Render task scheduler options
     public boolean enableRenderScheduler = true;         // enable smart rendering task scheduling
     public boolean verboseLogging = false;               // enable verbose debug logging
+    public boolean enableTraceRecording = false;         // record camera/entity/block traces to threadium-traces/ for offline replay
+    public int traceMaxMegabytes = 1024;                 // stop recording once a trace file reaches this size
+    public boolean enableEventTrace = true;              // keep a binary ring of recent internal events (allocation-free)
+    public boolean traceDumpOnHitch = false;             // write the event ring as Chrome trace JSON when a frame exceeds microStutterThresholdMs
+    public int traceDumpSeconds = 5;                     // how much history a hitch dump covers
 
     // Visibility cache & gradual unhide
     public boolean enableVisibilityDeprioritization = true; // cache hidden sections and deprioritize after N hidden frames
@@ -55,14 +67,33 @@ import java.nio.file.Path;
     public double particleFar = 64.0;                        // distance at which density reaches minimum
     public float particleMinDensity = 0.3f;                  // minimum fraction of particles rendered at/after far
     public float particleFarSizeScale = 0.8f;                // scale factor for particle size at/after far
+    public boolean enableParticleCulling = true;             // skip particle chunks outside the view; thin out distant ones
+    public double particleCullDistance = 96.0;               // particle chunks beyond this are not drawn (scaled by QoS)
 
     // Movement prediction
     public boolean enablePredictionEverywhere = true;        // apply movement-based prediction across rendering decisions
     public int predictionAheadTicks = 2;                      // how many ticks ahead to predict camera position
+    public boolean enableUncertaintyMargins = true;           // widen cutoffs and cones by the predictor's uncertainty
+    public double uncertaintySigmaScale = 2.0;                // sigmas of prediction error to cover
+    public double maxUncertaintyMargin = 16.0;                // cap on added cutoff distance (blocks)
+    public double maxUncertaintyConeDegrees = 30.0;           // cap on added cone widening (degrees)
 
     // Frame-time QoS controller
     public int targetFps = 120;                               // target FPS for closed-loop adjustments (30..240)
     public double qosAggressiveness = 0.6;                    // 0..1 scaling of dynamic adjustments
+    public double qosTargetPercentile = 99.0;                 // frame-time percentile steered toward the target (50..99.9)
+    public boolean enablePhaseAttribution = true;             // throttle only the subsystems whose frame phases grew
+    public boolean enableWorkBudgetArbiter = true;            // share one per-frame time budget across all deferrable work
+    public int workBudgetPercent = 20;                        // share of the target frame time given to deferrable work (1..80)
+    public int renderWorkerThreads = 0;                       // worker threads for async render task compute (0 = cores - 2)
+    public boolean enableIdleTimeWork = true;                 // run background work while the FPS limiter waits
+    public double idleSafetyMarginMs = 1.0;                   // stop idle-time work this long before the next frame is due
+
+    // Online auto-tuner
+    public boolean enableAutoTuner = false;                   // hill-climb budgets/thresholds during play
+    public int autoTuneTrialSeconds = 15;                     // measured play time per trial (min 5)
+    public double autoTunePopInWeight = 0.02;                 // ms of p95 worth one section of time-averaged rebuild backlog
+    public Map<String, Map<String, Double>> autoTuneProfiles = new HashMap<>(); // learned values per machine (cores/heap/GPU)
 
     // Screen-space aware budgeter
     public boolean enableScreenSpaceBudgeter = true;          // prioritize high on-screen impact sections first
@@ -75,23 +106,31 @@ import java.nio.file.Path;
     // Micro-stutter guard
     public boolean enableMicroStutterGuard = true;            // freeze heavy work next frame after a long frame
     public int microStutterThresholdMs = 22;                   // frame time ms considered a long frame (e.g., >22ms ~ <45 FPS)
+    public boolean gcAwareStutterGuard = true;                // only freeze after render-caused long frames, not GC pauses or tick hitches
 
-    // Particle tile budgeting (reservoir-like)
-    public boolean enableParticleTileBudget = true;           // limit spawns per screen-space tile per tick
+    // Particle tile budgeting (weighted reservoir sample per tile per tick)
+    public boolean enableParticleTileBudget = true;           // keep the closest/most important spawns per world-space tile per tick
     public int particleTileBudget = 6;                         // allowed particles per tile per tick (scaled by QoS)
     public int particleTileSize = 32;                          // approximate world-space tile size used for bucketing
+    public boolean parallelParticles = true;                   // simulate particles and write their vertices on the worker pool
+    public int parallelParticleThreshold = 4096;               // live particles below which everything stays on the client thread
 
     // Particle filtering (GUI-driven)
     public boolean disableAllParticles = false;                // when true, block all particle spawns
     public Set<String> disabledParticleIds = new HashSet<>();  // registry ids of particles to block individually
+    public boolean offloadVanillaParticles = false;            // turn simple vanilla particles (smoke, dust, flame, rain, ...) into pooled ones
 
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Path CONFIG_PATH = Path.of("config", "threadium.json");
 
     public static ThreadiumConfig load() {
+        return load(CONFIG_PATH);
+    }
+
+    public static ThreadiumConfig load(Path path) {
         try {
-            if (Files.exists(CONFIG_PATH)) {
-                String json = Files.readString(CONFIG_PATH, StandardCharsets.UTF_8);
+            if (Files.exists(path)) {
+                String json = Files.readString(path, StandardCharsets.UTF_8);
                 ThreadiumConfig cfg = GSON.fromJson(json, ThreadiumConfig.class);
                 return cfg != null ? cfg : new ThreadiumConfig();
             }
@@ -0,0 +1,26 @@
+package com.itarqos.threadium.mixin.render;
+
+import com.itarqos.threadium.client.blockentity.BlockEntityBakeCache;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Block entity data updates from the server (sign text, lectern book, skull profile) arrive through read().
+ * Re-bake the owning section so the cached geometry reflects the new data.
+ */
+@Mixin(BlockEntity.class)
+public class BlockEntityMixin {
+
+    @Inject(method = "read", at = @At("TAIL"))
+    private void threadium$invalidateBakedSection(CallbackInfo ci) {
+        BlockEntity self = (BlockEntity) (Object) this;
+        World world = self.getWorld();
+        if (world != null && world.isClient) {
+            BlockEntityBakeCache.get().invalidate(self.getPos());
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.itarqos.threadium.mixin.render;
 
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.client.entity.ItemClusterer;
 import com.itarqos.threadium.util.CullingStats;
-import com.itarqos.threadium.util.CullingUtil;
+import com.itarqos.threadium.util.CullingContext;
 import com.itarqos.threadium.util.MovementPredictor;
 import com.itarqos.threadium.util.FrameBudgetController;
+import com.itarqos.threadium.util.FramePhaseProfiler;
 import com.itarqos.threadium.util.ThreadiumLog;
 import net.minecraft.client.render.Frustum;
 import net.minecraft.client.render.entity.EntityRenderDispatcher;
@@ -17,8 +19,19 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(EntityRenderDispatcher.class)
 public class EntityRenderDispatcherMixin {
+    // Render thread only; reused for every shouldRender call
+    private static final CullingContext threadium$culling = new CullingContext();
+
     @Inject(method = "shouldRender", at = @At("HEAD"), cancellable = true)
     private void threadium$entityCulling(Entity entity, Frustum frustum, double x, double y, double z, CallbackInfoReturnable<Boolean> cir) {
+        // Dense item/XP piles: only the cluster representative is rendered beyond the near distance
+        if (ItemClusterer.get().isHiddenMember(entity)) {
+            CullingStats.incEntityClustered();
+            cir.setReturnValue(false);
+            cir.cancel();
+            return;
+        }
+
         if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableEntityCulling) return;
 
         var mc = net.minecraft.client.MinecraftClient.getInstance();
@@ -39,40 +52,32 @@ public class EntityRenderDispatcherMixin {
             double dyAbs = Math.abs(entPos.y - camPos.y);
             if (dyAbs > half) {
                 CullingStats.incEntityCulled();
-                ThreadiumLog.debug("Entity culled by Y-band: %s at Y=%.1f (camera Y=%.1f, dyAbs=%.1f > %d)", 
-                    entity.getType().getName().getString(), entPos.y, camPos.y, dyAbs, half);
+                if (ThreadiumLog.isVerbose()) {
+                    ThreadiumLog.debug("Entity culled by Y-band: %s at Y=%.1f (camera Y=%.1f, dyAbs=%.1f > %d)",
+                        entity.getType().getName().getString(), entPos.y, camPos.y, dyAbs, half);
+                }
                 cir.setReturnValue(false);
                 cir.cancel();
                 return;
             }
         }
 
-        // Dynamic thresholds using predictor
-        double speed = MovementPredictor.get().getSmoothedSpeed();
-        double frontMax = 64.0 + Math.min(48.0, speed * 96.0);
-        double behindMax = Math.max(8.0, 16.0 - Math.min(12.0, speed * 24.0));
-        double behindAngle = 125.0;
-        if (!ThreadiumClient.CONFIG.enableEntityBehindCulling) {
-            // Effectively disable behind-specific culling
-            behindMax = Double.MAX_VALUE;
-            behindAngle = 180.0;
-        }
-        // Apply QoS scaling
-        double cutoffMult = FrameBudgetController.get().getFarCutoffMultiplier();
-        frontMax *= cutoffMult;
-        behindMax *= cutoffMult;
-        boolean cull = CullingUtil.shouldCullByAngleAndDistance(
-                camPos,
-                forward,
-                entPos,
-                frontMax,
-                behindMax,
-                behindAngle
-        );
+        // Dynamic thresholds using predictor (band already applied above)
+        MovementPredictor predictor = MovementPredictor.get();
+        threadium$culling.setEntityThresholds(camPos.x, camPos.y, camPos.z, forward.x, forward.y, forward.z,
+                predictor.getSmoothedSpeed(),
+                FrameBudgetController.get().getFarCutoffMultiplier(FramePhaseProfiler.Phase.ENTITIES),
+                predictor.getCullingMargin(),
+                predictor.getConeWidening(),
+                ThreadiumClient.CONFIG.enableEntityBehindCulling,
+                0);
+        boolean cull = threadium$culling.cullsPoint(entPos.x, entPos.y, entPos.z);
         if (cull) {
             CullingStats.incEntityCulled();
-            ThreadiumLog.debug("Entity culled by angle/distance: %s at distance=%.1f", 
-                entity.getType().getName().getString(), toEntity.length());
+            if (ThreadiumLog.isVerbose()) {
+                ThreadiumLog.debug("Entity culled by angle/distance: %s at distance=%.1f",
+                    entity.getType().getName().getString(), toEntity.length());
+            }
             cir.setReturnValue(false);
             cir.cancel();
             return;
@@ -82,7 +87,7 @@ public class EntityRenderDispatcherMixin {
         if (ThreadiumClient.CONFIG.lodThrottlingEnabled) {
             double dist = toEntity.length();
             long tick = mc.world != null ? mc.world.getTime() : 0L;
-            int level = FrameBudgetController.get().getLodLevel();
+            int level = FrameBudgetController.get().getLodLevel(FramePhaseProfiler.Phase.ENTITIES);
             double farBand = level == 2 ? 32.0 : (level == 1 ? 40.0 : 48.0);
             double midBand = level == 2 ? 16.0 : (level == 1 ? 20.0 : 24.0);
             // Skip cadence increases with level
@@ -90,7 +95,9 @@ public class EntityRenderDispatcherMixin {
                 int mask = (level == 2) ? 5 : (level == 1 ? 3 : 3); // 1-in-6 (mask=5), else 1-in-4
                 if ((tick & mask) != 0L) {
                     CullingStats.incEntityCulled();
-                    ThreadiumLog.debug("Entity LOD throttled (far L%d): %s d=%.1f", level, entity.getType().getName().getString(), dist);
+                    if (ThreadiumLog.isVerbose()) {
+                        ThreadiumLog.debug("Entity LOD throttled (far L%d): %s d=%.1f", level, entity.getType().getName().getString(), dist);
+                    }
                     cir.setReturnValue(false);
                     cir.cancel();
                     return;
@@ -99,7 +106,9 @@ public class EntityRenderDispatcherMixin {
                 int mask = (level >= 1) ? 1 : 1; // >=L1: still every other frame
                 if ((tick & mask) != 0L) {
                     CullingStats.incEntityCulled();
-                    ThreadiumLog.debug("Entity LOD throttled (mid L%d): %s d=%.1f", level, entity.getType().getName().getString(), dist);
+                    if (ThreadiumLog.isVerbose()) {
+                        ThreadiumLog.debug("Entity LOD throttled (mid L%d): %s d=%.1f", level, entity.getType().getName().getString(), dist);
+                    }
                     cir.setReturnValue(false);
                     cir.cancel();
                     return;
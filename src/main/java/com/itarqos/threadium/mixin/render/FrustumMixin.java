@@ -1,6 +1,7 @@
 package com.itarqos.threadium.mixin.render;
 
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.util.FrustumHysteresis;
 import com.itarqos.threadium.util.MovementPredictor;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.Frustum;
@@ -15,9 +16,6 @@ import org.spongepowered.asm.mixin.Unique;
 @Mixin(Frustum.class)
 public class FrustumMixin {
 
-    @Unique
-    private static final java.util.Map<Long, Long> threadium$recentVisibleTick = new java.util.HashMap<>();
-
     @Unique
     private static long threadium$keyFor(Box box) {
         // Quantize center and size to form a stable key
@@ -76,6 +74,11 @@ public class FrustumMixin {
         double behindAngle = 125.0;
         double behindMax = Math.max(16.0, 32.0 - Math.min(16.0, speed * 24.0));
         double farCutoff = 98.0 + Math.min(32.0, speed * 48.0);
+        // Stay conservative while the prediction is uncertain
+        double margin = MovementPredictor.get().getCullingMargin();
+        behindMax += margin;
+        farCutoff += margin;
+        behindAngle = Math.min(180.0, behindAngle + MovementPredictor.get().getConeWidening());
 
         // Center of the box for distance and angle checks
         Vec3d center = box.getCenter();
@@ -92,8 +95,7 @@ public class FrustumMixin {
         long worldTick = mc.world != null ? mc.world.getTime() : 0L;
         int hyst = Math.max(0, ThreadiumClient.CONFIG.frustumHysteresisTicks);
         if (angleDeg > behindAngle && dist > behindMax) {
-            Long lastVis = threadium$recentVisibleTick.get(key);
-            if (lastVis != null && (worldTick - lastVis) <= hyst) {
+            if (FrustumHysteresis.get().isHeld(key, worldTick, hyst)) {
                 // keep visible for hysteresis window
                 return;
             }
@@ -104,8 +106,7 @@ public class FrustumMixin {
 
         // General cutoff for very far chunk/box content (dynamic)
         if (dist > farCutoff) {
-            Long lastVis = threadium$recentVisibleTick.get(key);
-            if (lastVis != null && (worldTick - lastVis) <= hyst) {
+            if (FrustumHysteresis.get().isHeld(key, worldTick, hyst)) {
                 // keep visible for hysteresis window
                 return;
             }
@@ -115,6 +116,6 @@ public class FrustumMixin {
         }
 
         // Mark visible this tick
-        threadium$recentVisibleTick.put(key, worldTick);
+        FrustumHysteresis.get().markVisible(key, worldTick);
     }
 }
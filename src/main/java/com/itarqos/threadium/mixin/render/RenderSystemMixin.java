@@ -0,0 +1,26 @@
+package com.itarqos.threadium.mixin.render;
+
+import com.itarqos.threadium.render.IdleWindowRunner;
+import com.mojang.blaze3d.systems.RenderSystem;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Hands the frame limiter's wait to {@link IdleWindowRunner}. Blaze3D is not obfuscated, hence remap = false.
+ * Optional injections: without them the limiter just sleeps as before.
+ */
+@Mixin(value = RenderSystem.class, remap = false)
+public class RenderSystemMixin {
+
+    @Inject(method = "limitDisplayFPS", at = @At("HEAD"), require = 0)
+    private static void threadium$useIdleWindow(int fps, CallbackInfo ci) {
+        IdleWindowRunner.get().onLimiterEnter(fps);
+    }
+
+    @Inject(method = "limitDisplayFPS", at = @At("RETURN"), require = 0)
+    private static void threadium$markLimiterExit(int fps, CallbackInfo ci) {
+        IdleWindowRunner.get().onLimiterExit();
+    }
+}
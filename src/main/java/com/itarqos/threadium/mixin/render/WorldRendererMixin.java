@@ -2,10 +2,13 @@ package com.itarqos.threadium.mixin.render;
 
 import com.itarqos.threadium.world.SubIdentifierManager;
 import com.itarqos.threadium.util.CullingUtil;
+import com.itarqos.threadium.util.FramePhaseProfiler;
 import com.itarqos.threadium.util.MovementPredictor;
 import com.itarqos.threadium.util.ThreadiumLog;
 import com.itarqos.threadium.client.particles.OptimizedParticleSystem;
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.client.blockentity.BlockEntityBakeCache;
+import com.itarqos.threadium.trace.TraceRecorder;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.render.Camera;
@@ -28,33 +31,31 @@ public class WorldRendererMixin {
     private void threadium$deferRerenderIfOccluded(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo ci) {
         // Track dirty slice and maintain pending sections
         SubIdentifierManager.get().onBlockStateChanged(pos, oldState.isAir(), newState.isAir());
-        if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.verboseLogging && ThreadiumLog.isVerbose()) {
+        // Baked block entities (chest facing, double-chest merge, sign rotation) depend on the block state
+        BlockEntityBakeCache.get().invalidate(pos);
+        TraceRecorder.get().recordBlockChange(pos, oldState.isAir(), newState.isAir());
+        if (ThreadiumLog.isVerbose()) {
             ThreadiumLog.debug("Block state changed at %s: %s -> %s", pos, oldState, newState);
         }
 
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null || mc.getCameraEntity() == null) return;
 
+        // Block/section rerender requests arrive at tick rate; use the predictor's per-tick view
+        MovementPredictor.Snapshot view = MovementPredictor.get().tickView();
         float tickDelta = mc.getRenderTickCounter().getTickDelta(false);
         Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
         if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enablePredictionEverywhere) {
-            camPos = MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+            camPos = view.getPredictedCamPos();
         }
-        Vec3d forward = MovementPredictor.get().getSmoothedForward();
+        Vec3d forward = view.getSmoothedForward();
         Vec3d target = new Vec3d(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5);
 
-        double speed = MovementPredictor.get().getSmoothedSpeed();
-        double frontMax = 64.0 + Math.min(48.0, speed * 96.0);
-        double behindMax = Math.max(12.0, 32.0 - Math.min(16.0, speed * 24.0));
-        double farCutoff = 98.0 + Math.min(32.0, speed * 48.0);
-
-        boolean culledBehind = CullingUtil.shouldCullByAngleAndDistance(camPos, forward, target, frontMax, behindMax, 125.0);
-        boolean tooFar = target.distanceTo(camPos) > farCutoff;
-
-        if (culledBehind || tooFar) {
+        if (CullingUtil.shouldDeferSectionWork(camPos, forward, view.getSmoothedSpeed(),
+                view.getCullingMargin(), view.getConeWidening(), target)) {
             // Defer render until visible; our tick hook will reschedule later
             if (ThreadiumLog.isVerbose()) {
-                ThreadiumLog.debug("Deferred block rerender at %s (culledBehind=%s, tooFar=%s)", pos, culledBehind, tooFar);
+                ThreadiumLog.debug("Deferred block rerender at %s (distance=%.1f)", pos, target.distanceTo(camPos));
             }
             ci.cancel();
         }
@@ -65,26 +66,20 @@ public class WorldRendererMixin {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null || mc.getCameraEntity() == null) return;
 
+        // Block/section rerender requests arrive at tick rate; use the predictor's per-tick view
+        MovementPredictor.Snapshot view = MovementPredictor.get().tickView();
         float tickDelta = mc.getRenderTickCounter().getTickDelta(false);
         Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
         if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enablePredictionEverywhere) {
-            camPos = MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+            camPos = view.getPredictedCamPos();
         }
-        Vec3d forward = MovementPredictor.get().getSmoothedForward();
+        Vec3d forward = view.getSmoothedForward();
         Vec3d target = new Vec3d(pos.getX() + 8.0, pos.getY() + 8.0, pos.getZ() + 8.0); // approximate section center
 
-        double speed = MovementPredictor.get().getSmoothedSpeed();
-        double frontMax = 64.0 + Math.min(48.0, speed * 96.0);
-        double behindMax = Math.max(12.0, 32.0 - Math.min(16.0, speed * 24.0));
-        double farCutoff = 98.0 + Math.min(32.0, speed * 48.0);
-
-        boolean culledBehind = CullingUtil.shouldCullByAngleAndDistance(camPos, forward, target, frontMax, behindMax, 125.0);
-        boolean tooFar = target.distanceTo(camPos) > farCutoff;
-
-        if (culledBehind || tooFar) {
+        if (CullingUtil.shouldDeferSectionWork(camPos, forward, view.getSmoothedSpeed(),
+                view.getCullingMargin(), view.getConeWidening(), target)) {
             if (ThreadiumLog.isVerbose()) {
-                ThreadiumLog.debug("Cancelled section render at %s (culledBehind=%s, tooFar=%s, distance=%.1f)",
-                        pos, culledBehind, tooFar, target.distanceTo(camPos));
+                ThreadiumLog.debug("Cancelled section render at %s (distance=%.1f)", pos, target.distanceTo(camPos));
             }
             ci.cancel();
         }
@@ -106,6 +101,20 @@ public class WorldRendererMixin {
                                                     Matrix4f modelViewMatrix,
                                                     Matrix4f projectionMatrix,
                                                     CallbackInfo ci) {
-        OptimizedParticleSystem.get().render(tickCounter.getTickDelta(false));
+        FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.PARTICLES);
+        OptimizedParticleSystem.get().render(camera, modelViewMatrix, projectionMatrix, tickCounter.getTickDelta(false));
+        FramePhaseProfiler.get().pop();
+    }
+
+    // Carve block entity rendering out of the entity pass for per-subsystem attribution.
+    // Optional: the phase just stays merged with entities if the target moves.
+    @Inject(method = "renderBlockEntities", at = @At("HEAD"), require = 0)
+    private void threadium$beginBlockEntityPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.BLOCK_ENTITIES);
+    }
+
+    @Inject(method = "renderBlockEntities", at = @At("RETURN"), require = 0)
+    private void threadium$endBlockEntityPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().pop();
     }
 }
@@ -1,6 +1,7 @@
 package com.itarqos.threadium.mixin.render.particles;
 
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.client.particles.VanillaParticleTranslator;
 import com.itarqos.threadium.config.ThreadiumConfig;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.particle.ParticleEffect;
@@ -17,6 +18,11 @@ public class ClientWorldMixin {
     private void threadium$filterParticles1(ParticleEffect effect, double x, double y, double z, double vx, double vy, double vz, CallbackInfo ci) {
         if (shouldBlock(effect)) {
             ci.cancel();
+            return;
+        }
+        // Opt-in: simple high-volume types become pooled particles instead of vanilla Particle objects
+        if (VanillaParticleTranslator.tryOffload(effect, x, y, z, vx, vy, vz)) {
+            ci.cancel();
         }
     }
 
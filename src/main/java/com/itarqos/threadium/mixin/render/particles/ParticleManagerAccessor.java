@@ -0,0 +1,16 @@
+package com.itarqos.threadium.mixin.render.particles;
+
+import net.minecraft.client.particle.ParticleManager;
+import net.minecraft.client.particle.SpriteProvider;
+import net.minecraft.util.Identifier;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.util.Map;
+
+@Mixin(ParticleManager.class)
+public interface ParticleManagerAccessor {
+    // Values are ParticleManager.SimpleSpriteProvider, a private SpriteProvider implementation
+    @Accessor("spriteAwareFactories")
+    Map<Identifier, SpriteProvider> threadium$getSpriteProviders();
+}
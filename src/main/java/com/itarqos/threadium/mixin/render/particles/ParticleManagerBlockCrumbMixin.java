@@ -0,0 +1,37 @@
+package com.itarqos.threadium.mixin.render.particles;
+
+import com.itarqos.threadium.client.particles.VanillaParticleTranslator;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.particle.ParticleManager;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Block break and block hit crumbs are built as BlockDustParticle directly, never through ClientWorld.addParticle,
+ * so the vanilla particle offload takes them over here.
+ */
+@Mixin(ParticleManager.class)
+public class ParticleManagerBlockCrumbMixin {
+    @Shadow
+    protected ClientWorld world;
+
+    @Inject(method = "addBlockBreakParticles", at = @At("HEAD"), cancellable = true)
+    private void threadium$offloadBreakCrumbs(BlockPos pos, BlockState state, CallbackInfo ci) {
+        if (VanillaParticleTranslator.tryOffloadBlockBreak(world, pos, state)) {
+            ci.cancel();
+        }
+    }
+
+    @Inject(method = "addBlockBreakingParticles", at = @At("HEAD"), cancellable = true)
+    private void threadium$offloadHitCrumbs(BlockPos pos, Direction direction, CallbackInfo ci) {
+        if (VanillaParticleTranslator.tryOffloadBlockBreaking(world, pos, direction)) {
+            ci.cancel();
+        }
+    }
+}
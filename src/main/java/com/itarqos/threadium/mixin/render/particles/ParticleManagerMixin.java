@@ -1,6 +1,7 @@
 package com.itarqos.threadium.mixin.render.particles;
 
 import com.itarqos.threadium.client.particles.OptimizedParticleSystem;
+import com.itarqos.threadium.util.FramePhaseProfiler;
 import net.minecraft.client.MinecraftClient;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -16,6 +17,8 @@ public class ParticleManagerMixin {
 
     @Inject(method = "tick", at = @At("TAIL"))
     private void threadium$tickOptimizedParticles(CallbackInfo ci) {
+        FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.PARTICLES);
         OptimizedParticleSystem.get().tick();
+        FramePhaseProfiler.get().pop();
     }
 }
@@ -0,0 +1,37 @@
+package com.itarqos.threadium.mixin.render.particles;
+
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import net.minecraft.client.particle.ParticleManager;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Timing probes around vanilla particle ticking and rendering so particle cost is attributed to the
+ * particle phase instead of whatever render stage it happens to run in. Optional injections: without them
+ * the time simply stays with the surrounding phase.
+ */
+@Mixin(ParticleManager.class)
+public class ParticleManagerProbeMixin {
+
+    @Inject(method = "tick", at = @At("HEAD"), require = 0)
+    private void threadium$beginTickPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.PARTICLES);
+    }
+
+    @Inject(method = "tick", at = @At("RETURN"), require = 0)
+    private void threadium$endTickPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().pop();
+    }
+
+    @Inject(method = "renderParticles", at = @At("HEAD"), require = 0)
+    private void threadium$beginRenderPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().push(FramePhaseProfiler.Phase.PARTICLES);
+    }
+
+    @Inject(method = "renderParticles", at = @At("RETURN"), require = 0)
+    private void threadium$endRenderPhase(CallbackInfo ci) {
+        FramePhaseProfiler.get().pop();
+    }
+}
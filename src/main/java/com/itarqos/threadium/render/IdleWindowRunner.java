@@ -0,0 +1,92 @@
+package com.itarqos.threadium.render;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.trace.EventTrace;
+import com.itarqos.threadium.util.FrustumHysteresis;
+import com.itarqos.threadium.world.SubIdentifierManager;
+import net.minecraft.client.MinecraftClient;
+import org.lwjgl.glfw.GLFW;
+
+/**
+ * Uses the time the FPS limiter would spend sleeping.
+ *
+ * When the frame rate is capped, the render thread waits in {@code RenderSystem.limitDisplayFPS} until the next
+ * frame is due. On entry we know that deadline (the previous limiter exit plus one frame at the cap), so the window
+ * up to it, minus {@code idleSafetyMarginMs}, is handed to background work in order: LOW scheduler tasks, gradual
+ * unhide, and, at most once a second, cache pruning. Every consumer checks the clock itself, so the limiter still
+ * wakes on time unless a single item overruns the margin; overruns are counted.
+ *
+ * Render thread only.
+ */
+public final class IdleWindowRunner {
+    private static final IdleWindowRunner INSTANCE = new IdleWindowRunner();
+    public static IdleWindowRunner get() { return INSTANCE; }
+
+    // Windows shorter than this (after the margin) are not worth waking anything for
+    private static final long MIN_WINDOW_NANOS = 300_000L;
+    private static final long MAINTENANCE_PERIOD_NANOS = 1_000_000_000L;
+    private static final double ALPHA = 0.05;
+
+    private double lastLimiterExitSec = Double.NaN;
+    private long lastMaintenanceNanos = 0L;
+    private double avgIdleMs = 0.0;
+    private double avgUsedMs = 0.0;
+    private long overruns = 0L;
+
+    private IdleWindowRunner() {}
+
+    /**
+     * Called as the limiter starts waiting for a frame capped at {@code fps}.
+     */
+    public void onLimiterEnter(int fps) {
+        if (fps <= 0 || Double.isNaN(lastLimiterExitSec)) return;
+        double windowSec = lastLimiterExitSec + 1.0 / fps - GLFW.glfwGetTime();
+        // A frame slower than the cap leaves nothing to use
+        long windowNanos = Math.max(0L, (long) (windowSec * 1_000_000_000.0));
+        long usedNanos = run(windowNanos);
+        avgIdleMs += ALPHA * (windowNanos / 1_000_000.0 - avgIdleMs);
+        avgUsedMs += ALPHA * (usedNanos / 1_000_000.0 - avgUsedMs);
+    }
+
+    public void onLimiterExit() {
+        lastLimiterExitSec = GLFW.glfwGetTime();
+    }
+
+    private long run(long windowNanos) {
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableIdleTimeWork) return 0L;
+        long marginNanos = (long) (Math.max(0.0, ThreadiumClient.CONFIG.idleSafetyMarginMs) * 1_000_000.0);
+        if (windowNanos - marginNanos < MIN_WINDOW_NANOS) return 0L;
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.world == null || mc.isPaused()) return 0L;
+
+        long start = System.nanoTime();
+        long deadline = start + windowNanos - marginNanos;
+        if (ThreadiumClient.CONFIG.enableRenderScheduler) {
+            RenderTaskScheduler.get().processIdle(deadline);
+        }
+        if (System.nanoTime() < deadline) {
+            SubIdentifierManager.get().unhideUntil(deadline);
+        }
+        if (System.nanoTime() < deadline && start - lastMaintenanceNanos >= MAINTENANCE_PERIOD_NANOS) {
+            lastMaintenanceNanos = start;
+            FrustumHysteresis.get().prune(Math.max(0, ThreadiumClient.CONFIG.frustumHysteresisTicks), deadline);
+            SubIdentifierManager.get().pruneDebounce(System.currentTimeMillis(), deadline);
+        }
+        long end = System.nanoTime();
+        if (end > start + windowNanos) overruns++;
+        EventTrace.get().span(EventTrace.IDLE_WORK, start, end - start, windowNanos);
+        return end - start;
+    }
+
+    /** Smoothed idle window per capped frame. */
+    public double getAverageIdleMs() { return avgIdleMs; }
+
+    /** Smoothed time per capped frame spent on background work. */
+    public double getAverageUsedMs() { return avgUsedMs; }
+
+    /** Share of the idle window put to use (0..1). */
+    public double getUtilization() { return avgIdleMs > 1e-6 ? Math.min(1.0, avgUsedMs / avgIdleMs) : 0.0; }
+
+    /** Windows where background work ran past the frame deadline. */
+    public long getOverrunCount() { return overruns; }
+}
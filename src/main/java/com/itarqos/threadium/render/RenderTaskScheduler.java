@@ -1,23 +1,90 @@
 package com.itarqos.threadium.render;
 
+import com.itarqos.threadium.trace.EventTrace;
+import com.itarqos.threadium.util.CullingUtil;
+import com.itarqos.threadium.util.MovementPredictor;
 import com.itarqos.threadium.util.ThreadiumLog;
+import com.itarqos.threadium.util.WorkBudgetArbiter;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Smart "to-do list" for rendering tasks.
  * Splits rendering work into small tasks and spreads them across frames to prevent FPS spikes.
+ *
+ * Tasks are run earliest-deadline-first. A task's deadline is its submission time plus a slack that depends on
+ * its priority, so a LOW task ages into the front of the queue instead of starving behind a stream of HIGH ones.
+ * Each task type keeps a decayed mean and variance of its execution time; a task is admitted only when its
+ * pessimistic estimate (mean + 2 sigma) fits the time left, so a 10 ms task is never started with 1 ms left.
+ * Tasks that go stale without ever being admitted are counted as starved.
+ *
+ * {@link AsyncRenderTask}s split into a thread-safe compute phase, run on {@link RenderWorkerPool}, and a short
+ * apply phase that is admitted against the frame budget like any other task. When the pool is saturated the task
+ * simply stays queued (backpressure). Cancelled or stale results are dropped without being applied.
+ *
+ * Tasks may carry a key and a spatial bound. A submission whose key is already queued replaces (or merges with)
+ * the queued task and inherits its earlier deadline, so re-submitting work for a section never piles up duplicates
+ * or pushes it back. Bounded tasks are indexed by the chunk holding their center: a chunk unload cancels its bucket
+ * in one go, and a periodic sweep cancels buckets that left the predicted view, testing each chunk once rather
+ * than each task. Cancelled entries stay in the queue as tombstones and are compacted away in bulk.
+ *
+ * {@link IncrementalRenderTask}s do large jobs a step at a time. Each step is admitted against the budget with its
+ * own learned cost; when the next step no longer fits, the task yields and goes back in the queue with its state
+ * and deadline intact, resuming in a later frame.
+ *
+ * While the FPS limiter would otherwise sleep, {@link #processIdle} runs LOW tasks up to a deadline inside that idle
+ * window; that time is outside the frame and is not charged to the work budget.
+ *
+ * Submission is thread-safe (tasks land in an inbox); everything else runs on the render thread.
  */
 public class RenderTaskScheduler {
     private static final RenderTaskScheduler INSTANCE = new RenderTaskScheduler();
-    
-    // Task queues by priority
-    private final Queue<RenderTask> highPriorityTasks = new ConcurrentLinkedQueue<>();
-    private final Queue<RenderTask> normalPriorityTasks = new ConcurrentLinkedQueue<>();
-    private final Queue<RenderTask> lowPriorityTasks = new ConcurrentLinkedQueue<>();
-    
+
+    // Deadline slack per priority
+    private static final long HIGH_SLACK_NANOS = 0L;
+    private static final long NORMAL_SLACK_NANOS = 50_000_000L;
+    private static final long LOW_SLACK_NANOS = 500_000_000L;
+    // Estimate for task types that have never run
+    private static final double UNKNOWN_COST_NANOS = 1_000_000.0;
+    private static final double COST_ALPHA = 0.2;
+    // How many queued tasks one processTasks call inspects at most, so the scan itself stays cheap
+    private static final int MAX_SCAN = 64;
+    // How often bounded tasks are checked against the predicted view
+    private static final long VIEW_SWEEP_NANOS = 250_000_000L;
+    // Rebuild the queue once tombstones outnumber live entries (and are worth the rebuild)
+    private static final int MIN_COMPACT_DEAD = 64;
+    private static final long NO_CHUNK = Long.MIN_VALUE;
+
+    private final Queue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inboxSize = new AtomicInteger();
+    private final PriorityQueue<Entry> ready = new PriorityQueue<>();
+    private final Map<String, CostEstimate> costs = new HashMap<>();
+    private final ArrayList<Entry> setAside = new ArrayList<>();
+    // Async tasks whose compute phase finished, waiting for their apply phase on the render thread
+    private final Queue<AsyncRenderTask<?>> computed = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<AsyncRenderTask<?>> pendingApply = new ArrayDeque<>();
+    private final Map<Object, Entry> byKey = new HashMap<>();
+    private final Long2ObjectMap<ArrayList<Entry>> byChunk = new Long2ObjectOpenHashMap<>();
+    // Incremental tasks that have run at least one step and are not finished or dropped
+    private final Set<IncrementalRenderTask> activeIncremental = new LinkedHashSet<>();
+    private int deadInReady = 0;
+    private long lastViewSweepNanos = 0L;
+    // Non-zero while running inside the frame limiter's idle window
+    private long idleDeadlineNanos = 0L;
+    private long sequence = 0L;
+    // Bumped by clear(); async results computed for an older generation are dropped, even if already running
+    private volatile int generation = 0;
+
     // Performance tracking
     private long frameStartTime = 0;
     private long maxFrameTimeNanos = 16_666_666; // ~16.67ms for 60 FPS target
@@ -25,17 +92,23 @@ public class RenderTaskScheduler {
     private int tasksSkippedThisFrame = 0;
     private int totalTasksProcessed = 0;
     private int totalTasksSkipped = 0;
-    
+    private int totalTasksStarved = 0;
+    private int totalTasksOverdue = 0;
+    private int totalTasksCoalesced = 0;
+    private int totalTasksCancelled = 0;
+    private long totalIncrementalSteps = 0L;
+    private long totalIdleTasks = 0L;
+
     // Statistics for logging
     private long lastLogTime = 0;
     private static final long LOG_INTERVAL_MS = 5000; // Log every 5 seconds
-    
+
     private RenderTaskScheduler() {}
-    
+
     public static RenderTaskScheduler get() {
         return INSTANCE;
     }
-    
+
     /**
      * Call this at the start of each frame
      */
@@ -43,7 +116,7 @@ public class RenderTaskScheduler {
         frameStartTime = System.nanoTime();
         tasksProcessedThisFrame = 0;
         tasksSkippedThisFrame = 0;
-        
+
         // Periodic logging
         long now = System.currentTimeMillis();
         if (now - lastLogTime > LOG_INTERVAL_MS) {
@@ -51,7 +124,7 @@ public class RenderTaskScheduler {
             lastLogTime = now;
         }
     }
-    
+
     /**
      * Call this at the end of each frame
      */
@@ -59,112 +132,558 @@ public class RenderTaskScheduler {
         totalTasksProcessed += tasksProcessedThisFrame;
         totalTasksSkipped += tasksSkippedThisFrame;
     }
-    
+
     /**
-     * Submit a rendering task to be processed
+     * Submit a rendering task to be processed. Safe to call from any thread.
      */
     public void submitTask(RenderTask task) {
         if (task == null) return;
-        
-        switch (task.priority) {
-            case HIGH -> highPriorityTasks.offer(task);
-            case NORMAL -> normalPriorityTasks.offer(task);
-            case LOW -> lowPriorityTasks.offer(task);
-        }
-        
-        ThreadiumLog.info("[RenderScheduler] Task submitted: %s (priority: %s)", 
-            task.name, task.priority);
+
+        inbox.offer(new Entry(task, System.nanoTime()));
+        inboxSize.incrementAndGet();
+        EventTrace.get().instant(EventTrace.TASK_SUBMIT, task.priority.ordinal(), 0L);
     }
-    
+
     /**
      * Process tasks for this frame, respecting time budget
      */
     public void processTasks() {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null) return;
-        
+
         // Adjust time budget based on current FPS
         int targetFps = mc.options.getMaxFps().getValue();
         if (targetFps > 0 && targetFps < 260) {
             maxFrameTimeNanos = 1_000_000_000L / targetFps;
         }
-        
-        // Process high priority first
-        processQueue(highPriorityTasks, "HIGH");
-        
-        // Then normal priority if we have time
-        if (hasTimeRemaining()) {
-            processQueue(normalPriorityTasks, "NORMAL");
-        }
-        
-        // Finally low priority if we still have time
-        if (hasTimeRemaining()) {
-            processQueue(lowPriorityTasks, "LOW");
-        }
-    }
-    
-    private void processQueue(Queue<RenderTask> queue, String priorityName) {
-        while (!queue.isEmpty() && hasTimeRemaining()) {
-            RenderTask task = queue.poll();
-            if (task == null) break;
-            
+
+        drainInbox();
+        long now = System.nanoTime();
+        if (now - lastViewSweepNanos >= VIEW_SWEEP_NANOS) {
+            lastViewSweepNanos = now;
+            cancelOutOfView();
+        }
+        compactIfNeeded();
+        applyComputed();
+        runReady(now);
+    }
+
+    /**
+     * Run LOW tasks in the frame limiter's idle window until {@code deadlineNanos}. Returns how many ran.
+     */
+    public int processIdle(long deadlineNanos) {
+        drainInbox();
+        int before = tasksProcessedThisFrame;
+        idleDeadlineNanos = deadlineNanos;
+        try {
+            runReady(System.nanoTime());
+        } finally {
+            idleDeadlineNanos = 0L;
+        }
+        int ran = tasksProcessedThisFrame - before;
+        totalIdleTasks += ran;
+        return ran;
+    }
+
+    private void runReady(long now) {
+        boolean idle = idleDeadlineNanos != 0L;
+        int scanned = 0;
+        while (!ready.isEmpty() && scanned < MAX_SCAN) {
+            Entry e = ready.poll();
+            if (e.dead) {
+                deadInReady--;
+                continue;
+            }
+            scanned++;
+            if (idle && e.task.priority != Priority.LOW) {
+                setAside.add(e);
+                continue;
+            }
+            RenderTask task = e.task;
+            retire(e);
+
             // Check if task is still relevant
             if (!task.isRelevant()) {
+                if (task instanceof IncrementalRenderTask inc) activeIncremental.remove(inc);
                 tasksSkippedThisFrame++;
-                ThreadiumLog.info("[RenderScheduler] Skipped irrelevant task: %s", task.name);
+                if (e.deferrals > 0) totalTasksStarved++;
+                EventTrace.get().instant(EventTrace.TASK_SKIP, labelOf(task.type()), 0L);
+                continue;
+            }
+
+            WorkBudgetArbiter.Consumer consumer = consumerFor(task.priority);
+            if (task instanceof AsyncRenderTask<?> async) {
+                if (async.isCancelled()) {
+                    tasksSkippedThisFrame++;
+                    continue;
+                }
+                // The compute phase costs the render thread nothing; only the pool's capacity limits it
+                if (!async.start(this)) {
+                    setAside.add(e);
+                }
                 continue;
             }
-            
+            if (task instanceof IncrementalRenderTask inc) {
+                // Nothing cheaper can fit once the budget is gone
+                if (runSteps(e, inc, consumer, now)) break;
+                continue;
+            }
+            long remaining = remainingNanos(consumer);
+            CostEstimate cost = costs.get(task.type());
+            double predicted = cost != null ? cost.pessimistic() : UNKNOWN_COST_NANOS;
+            // An overdue task that cannot fit even a whole budget still gets to run first thing in a frame
+            boolean forced = !idle && now > e.deadlineNanos && tasksProcessedThisFrame == 0 && remaining > 0L;
+            if (predicted > remaining && !forced) {
+                e.deferrals++;
+                setAside.add(e);
+                // Nothing cheaper can fit once the budget is gone
+                if (remaining <= 0L) break;
+                continue;
+            }
+
             long taskStart = System.nanoTime();
             try {
                 task.execute();
                 tasksProcessedThisFrame++;
-                long taskDuration = System.nanoTime() - taskStart;
-                ThreadiumLog.info("[RenderScheduler] Executed %s task '%s' in %.2fms", 
-                    priorityName, task.name, taskDuration / 1_000_000.0);
-            } catch (Exception e) {
-                ThreadiumLog.error("[RenderScheduler] Task '%s' failed: %s", 
-                    task.name, e.getMessage());
+            } catch (Exception ex) {
+                ThreadiumLog.error("[RenderScheduler] Task '%s' failed: %s",
+                    task.name, ex.getMessage());
+            }
+            long elapsed = System.nanoTime() - taskStart;
+            CostEstimate learned = costs.computeIfAbsent(task.type(), CostEstimate::new);
+            learned.add(elapsed);
+            EventTrace.get().span(EventTrace.TASK_RUN, taskStart, elapsed, learned.label);
+            chargeBudget(consumer, elapsed);
+        }
+
+        // Whatever did not fit waits for a later frame
+        for (Entry e : setAside) {
+            if (now > e.deadlineNanos && !e.overdue) {
+                e.overdue = true;
+                totalTasksOverdue++;
+            }
+            if (!idle) WorkBudgetArbiter.get().defer(consumerFor(e.task.priority), 1);
+            e.done = false;
+            if (e.task.key != null) byKey.putIfAbsent(e.task.key, e);
+            ready.add(e);
+        }
+        if (!setAside.isEmpty()) EventTrace.get().instant(EventTrace.TASK_DEFER, setAside.size(), 0L);
+        setAside.clear();
+    }
+
+    /**
+     * Run steps of an incremental task while they fit the budget. The task goes back in the queue if it yields
+     * unfinished. Returns true when the budget is exhausted.
+     */
+    private boolean runSteps(Entry e, IncrementalRenderTask task, WorkBudgetArbiter.Consumer consumer, long now) {
+        String stepType = task.type() + "#step";
+        int steps = 0;
+        boolean finished = false;
+        long remaining;
+        while (true) {
+            remaining = remainingNanos(consumer);
+            CostEstimate cost = costs.get(stepType);
+            double predicted = cost != null ? cost.pessimistic() : UNKNOWN_COST_NANOS;
+            boolean forced = idleDeadlineNanos == 0L && steps == 0 && now > e.deadlineNanos && tasksProcessedThisFrame == 0 && remaining > 0L;
+            if (predicted > remaining && !forced) break;
+
+            long stepStart = System.nanoTime();
+            try {
+                finished = task.step();
+            } catch (Exception ex) {
+                ThreadiumLog.error("[RenderScheduler] Task '%s' failed at step %d: %s", task.name, task.steps, ex.getMessage());
+                finished = true;
             }
+            long elapsed = System.nanoTime() - stepStart;
+            CostEstimate learned = costs.computeIfAbsent(stepType, CostEstimate::new);
+            learned.add(elapsed);
+            EventTrace.get().span(EventTrace.TASK_RUN, stepStart, elapsed, learned.label);
+            chargeBudget(consumer, elapsed);
+            steps++;
+            task.steps++;
+            totalIncrementalSteps++;
+            if (finished) break;
+        }
+
+        if (finished) {
+            activeIncremental.remove(task);
+            tasksProcessedThisFrame++;
+            return false;
         }
+        if (steps > 0) {
+            task.lastStepMillis = System.currentTimeMillis();
+            activeIncremental.add(task);
+        } else {
+            e.deferrals++;
+        }
+        setAside.add(e);
+        return remaining <= 0L;
     }
-    
-    private boolean hasTimeRemaining() {
+
+    /**
+     * Commit finished compute phases, oldest first, as long as their apply cost fits the budget.
+     */
+    private void applyComputed() {
+        AsyncRenderTask<?> t;
+        while ((t = computed.poll()) != null) pendingApply.addLast(t);
+        while (!pendingApply.isEmpty()) {
+            AsyncRenderTask<?> task = pendingApply.peekFirst();
+            if (task.isCancelled() || task.generation != generation || !task.isRelevant()) {
+                pendingApply.pollFirst();
+                task.settled = true;
+                tasksSkippedThisFrame++;
+                continue;
+            }
+            WorkBudgetArbiter.Consumer consumer = consumerFor(task.priority);
+            String applyType = task.type() + "#apply";
+            CostEstimate cost = costs.get(applyType);
+            double predicted = cost != null ? cost.pessimistic() : UNKNOWN_COST_NANOS;
+            long remaining = remainingNanos(consumer);
+            if (predicted > remaining && tasksProcessedThisFrame > 0) break;
+            pendingApply.pollFirst();
+
+            long start = System.nanoTime();
+            try {
+                task.commit();
+                tasksProcessedThisFrame++;
+            } catch (Exception ex) {
+                ThreadiumLog.error("[RenderScheduler] Task '%s' failed to apply: %s", task.name, ex.getMessage());
+            }
+            long elapsed = System.nanoTime() - start;
+            CostEstimate learned = costs.computeIfAbsent(applyType, CostEstimate::new);
+            learned.add(elapsed);
+            EventTrace.get().span(EventTrace.TASK_APPLY, start, elapsed, learned.label);
+            WorkBudgetArbiter.get().charge(consumer, 1, elapsed);
+        }
+        if (!pendingApply.isEmpty()) {
+            WorkBudgetArbiter.get().defer(consumerFor(pendingApply.peekFirst().priority), pendingApply.size());
+        }
+    }
+
+    void onComputed(AsyncRenderTask<?> task) {
+        // Started before a clear(): its result belongs to the previous world
+        if (task.generation != generation) {
+            task.settled = true;
+            return;
+        }
+        computed.offer(task);
+    }
+
+    private void drainInbox() {
+        Entry e;
+        while ((e = inbox.poll()) != null) {
+            inboxSize.decrementAndGet();
+            Object key = e.task.key;
+            if (key != null) {
+                Entry queued = byKey.get(key);
+                if (queued != null && !queued.dead) {
+                    RenderTask merged = e.task.merge(queued.task);
+                    // Keep the earlier deadline so re-submission cannot push the work back
+                    e = new Entry(merged, Math.min(e.deadlineNanos, queued.deadlineNanos), queued.deferrals);
+                    kill(queued);
+                    totalTasksCoalesced++;
+                }
+                byKey.put(key, e);
+            }
+            e.sequence = sequence++;
+            if (e.task.bounds != null) {
+                Box b = e.task.bounds;
+                e.chunkKey = ChunkPos.toLong(((int) Math.floor((b.minX + b.maxX) * 0.5)) >> 4, ((int) Math.floor((b.minZ + b.maxZ) * 0.5)) >> 4);
+                byChunk.computeIfAbsent(e.chunkKey, k -> new ArrayList<>()).add(e);
+            }
+            ready.add(e);
+        }
+    }
+
+    /**
+     * Mark a queued entry as a tombstone; it is skipped when dequeued and removed by the next compaction.
+     */
+    private void kill(Entry e) {
+        if (e.dead) return;
+        e.dead = true;
+        deadInReady++;
+        if (e.task instanceof IncrementalRenderTask inc) activeIncremental.remove(inc);
+        if (e.task.key != null && byKey.get(e.task.key) == e) byKey.remove(e.task.key);
+    }
+
+    /**
+     * Drop the key mapping of an entry leaving the queue to be executed or skipped.
+     */
+    private void retire(Entry e) {
+        e.done = true;
+        if (e.task.key != null && byKey.get(e.task.key) == e) byKey.remove(e.task.key);
+    }
+
+    private int cancelBucket(ArrayList<Entry> bucket) {
+        int cancelled = 0;
+        for (Entry e : bucket) {
+            if (e.task instanceof AsyncRenderTask<?> async && async.isInFlight()) {
+                // Also stops work that already left the queue for a worker
+                async.cancel();
+                if (e.done) cancelled++;
+            }
+            if (!e.dead && !e.done) {
+                kill(e);
+                cancelled++;
+            }
+        }
+        totalTasksCancelled += cancelled;
+        return cancelled;
+    }
+
+    /**
+     * Cancel every queued task bounded inside a chunk; called when the chunk unloads.
+     */
+    public int cancelChunk(ChunkPos pos) {
+        ArrayList<Entry> bucket = byChunk.remove(pos.toLong());
+        return bucket != null ? cancelBucket(bucket) : 0;
+    }
+
+    /**
+     * Cancel the queued task submitted under {@code key}, if any.
+     */
+    public boolean cancel(Object key) {
+        Entry e = byKey.get(key);
+        if (e == null || e.dead) return false;
+        if (e.task instanceof AsyncRenderTask<?> async) async.cancel();
+        kill(e);
+        totalTasksCancelled++;
+        return true;
+    }
+
+    /**
+     * Cancel bounded tasks whose chunk fell out of the predicted view, one view test per chunk. Buckets are
+     * pruned of finished entries on the way.
+     */
+    private void cancelOutOfView() {
+        if (byChunk.isEmpty()) return;
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.getCameraEntity() == null) return;
+        MovementPredictor.Snapshot view = MovementPredictor.get().tickView();
+        Vec3d cam = view.getPredictedCamPos();
+        Vec3d forward = view.getSmoothedForward();
+        if (cam == null || forward == null) return;
+        ObjectIterator<Long2ObjectMap.Entry<ArrayList<Entry>>> it = byChunk.long2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            Long2ObjectMap.Entry<ArrayList<Entry>> en = it.next();
+            ArrayList<Entry> bucket = en.getValue();
+            bucket.removeIf(e -> e.dead || (e.done && !(e.task instanceof AsyncRenderTask<?> async && async.isInFlight())));
+            if (bucket.isEmpty()) {
+                it.remove();
+                continue;
+            }
+            // Test the point of the chunk column nearest the camera, so a chunk is only dropped when all of it is out
+            long chunk = en.getLongKey();
+            double minX = ChunkPos.getPackedX(chunk) << 4, minZ = ChunkPos.getPackedZ(chunk) << 4;
+            Vec3d nearest = new Vec3d(CullingUtil.clamp(cam.x, minX, minX + 16.0), cam.y, CullingUtil.clamp(cam.z, minZ, minZ + 16.0));
+            if (CullingUtil.shouldDeferSectionWork(cam, forward, view.getSmoothedSpeed(),
+                    view.getCullingMargin(), view.getConeWidening(), nearest)) {
+                cancelBucket(bucket);
+                it.remove();
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadInReady < MIN_COMPACT_DEAD || deadInReady * 2 < ready.size()) return;
+        ready.removeIf(e -> e.dead);
+        deadInReady = 0;
+    }
+
+    private static WorkBudgetArbiter.Consumer consumerFor(Priority priority) {
+        return switch (priority) {
+            case HIGH -> WorkBudgetArbiter.Consumer.RENDER_TASK_HIGH;
+            case NORMAL -> WorkBudgetArbiter.Consumer.RENDER_TASK_NORMAL;
+            case LOW -> WorkBudgetArbiter.Consumer.RENDER_TASK_LOW;
+        };
+    }
+
+    private long remainingNanos(WorkBudgetArbiter.Consumer consumer) {
+        if (idleDeadlineNanos != 0L) {
+            return idleDeadlineNanos - System.nanoTime();
+        }
+        // The shared arbiter budget replaces the scheduler's private share of the frame
+        if (WorkBudgetArbiter.get().isEnabled()) {
+            return WorkBudgetArbiter.get().remainingNanos(consumer);
+        }
         long elapsed = System.nanoTime() - frameStartTime;
         // Use 80% of frame time budget to leave room for other rendering
-        return elapsed < (maxFrameTimeNanos * 0.8);
+        return (long) (maxFrameTimeNanos * 0.8) - elapsed;
+    }
+
+    private void chargeBudget(WorkBudgetArbiter.Consumer consumer, long elapsedNanos) {
+        // Idle-window work happens after the frame, outside the shared budget
+        if (idleDeadlineNanos == 0L) WorkBudgetArbiter.get().charge(consumer, 1, elapsedNanos);
+    }
+
+    private int labelOf(String type) {
+        CostEstimate cost = costs.get(type);
+        return cost != null ? cost.label : 0;
     }
-    
+
     private void logStatistics() {
-        int queuedHigh = highPriorityTasks.size();
-        int queuedNormal = normalPriorityTasks.size();
-        int queuedLow = lowPriorityTasks.size();
-        int totalQueued = queuedHigh + queuedNormal + queuedLow;
-        
-        ThreadiumLog.info("[RenderScheduler] Stats - Queued: %d (H:%d N:%d L:%d), Processed: %d, Skipped: %d",
-            totalQueued, queuedHigh, queuedNormal, queuedLow, 
-            totalTasksProcessed, totalTasksSkipped);
-        
+        if (!ThreadiumLog.isVerbose()) {
+            totalTasksProcessed = 0;
+            totalTasksSkipped = 0;
+            return;
+        }
+        ThreadiumLog.debug("[RenderScheduler] Stats - Queued: %d, Processed: %d, Skipped: %d, Starved: %d, Overdue: %d",
+            getQueuedTaskCount(), totalTasksProcessed, totalTasksSkipped, totalTasksStarved, totalTasksOverdue);
+
         // Reset counters
         totalTasksProcessed = 0;
         totalTasksSkipped = 0;
     }
-    
+
     /**
      * Clear all pending tasks (e.g., on world change)
      */
     public void clear() {
-        int cleared = highPriorityTasks.size() + normalPriorityTasks.size() + lowPriorityTasks.size();
-        highPriorityTasks.clear();
-        normalPriorityTasks.clear();
-        lowPriorityTasks.clear();
+        generation++;
+        drainInbox();
+        int cleared = ready.size() - deadInReady + pendingApply.size();
+        for (Entry e : ready) {
+            if (e.task instanceof AsyncRenderTask<?> async) async.cancel();
+        }
+        for (ArrayList<Entry> bucket : byChunk.values()) {
+            for (Entry e : bucket) {
+                if (e.task instanceof AsyncRenderTask<?> async) async.cancel();
+            }
+        }
+        ready.clear();
+        pendingApply.clear();
+        computed.clear();
+        byKey.clear();
+        byChunk.clear();
+        activeIncremental.clear();
+        deadInReady = 0;
         ThreadiumLog.info("[RenderScheduler] Cleared %d pending tasks", cleared);
     }
-    
+
     public int getQueuedTaskCount() {
-        return highPriorityTasks.size() + normalPriorityTasks.size() + lowPriorityTasks.size();
+        return inboxSize.get() + ready.size() - deadInReady + pendingApply.size();
     }
-    
+
+    /**
+     * Drop all work and stop the worker pool; called when the client shuts down.
+     */
+    public void shutdown() {
+        clear();
+        RenderWorkerPool.get().shutdown();
+    }
+
+    /** Tasks that went stale after being refused admission at least once. */
+    public int getStarvedTaskCount() {
+        return totalTasksStarved;
+    }
+
+    /** Tasks that missed their deadline while waiting for budget. */
+    public int getOverdueTaskCount() {
+        return totalTasksOverdue;
+    }
+
+    /** Incremental tasks that have started and not finished yet. */
+    public int getActiveIncrementalCount() {
+        return activeIncremental.size();
+    }
+
+    /**
+     * Mean progress (0..1) of the started incremental tasks that report it, or NaN if none do.
+     */
+    public double getIncrementalProgress() {
+        double sum = 0.0;
+        int n = 0;
+        for (IncrementalRenderTask task : activeIncremental) {
+            double p = task.progress();
+            if (Double.isNaN(p)) continue;
+            sum += CullingUtil.clamp(p, 0.0, 1.0);
+            n++;
+        }
+        return n > 0 ? sum / n : Double.NaN;
+    }
+
+    public long getIncrementalStepCount() {
+        return totalIncrementalSteps;
+    }
+
+    /** Tasks run in the frame limiter's idle window. */
+    public long getIdleTaskCount() {
+        return totalIdleTasks;
+    }
+
+    /** Submissions folded into an already queued task with the same key. */
+    public int getCoalescedTaskCount() {
+        return totalTasksCoalesced;
+    }
+
+    /** Tasks dropped because their chunk unloaded, their area left the view, or their key was cancelled. */
+    public int getCancelledTaskCount() {
+        return totalTasksCancelled;
+    }
+
+    /**
+     * Queue entry with the scheduling metadata; ordered by deadline, then submission order.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        final RenderTask task;
+        final long deadlineNanos;
+        long sequence;
+        long chunkKey = NO_CHUNK;
+        int deferrals;
+        boolean overdue = false;
+        // Cancelled while queued (tombstone)
+        boolean dead = false;
+        // Dequeued for execution or skipped
+        boolean done = false;
+
+        Entry(RenderTask task, long submittedNanos) {
+            this(task, submittedNanos + switch (task.priority) {
+                case HIGH -> HIGH_SLACK_NANOS;
+                case NORMAL -> NORMAL_SLACK_NANOS;
+                case LOW -> LOW_SLACK_NANOS;
+            }, 0);
+        }
+
+        Entry(RenderTask task, long deadlineNanos, int deferrals) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.deferrals = deferrals;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Long.compare(deadlineNanos, o.deadlineNanos);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    /**
+     * Exponentially decayed mean and variance of one task type's execution time.
+     */
+    private static final class CostEstimate {
+        final int label;
+        double mean = Double.NaN;
+        double variance = 0.0;
+
+        CostEstimate(String type) {
+            label = EventTrace.get().label(type);
+        }
+
+        void add(long nanos) {
+            if (Double.isNaN(mean)) {
+                mean = nanos;
+                return;
+            }
+            double diff = nanos - mean;
+            mean += COST_ALPHA * diff;
+            variance = (1.0 - COST_ALPHA) * (variance + COST_ALPHA * diff * diff);
+        }
+
+        double pessimistic() {
+            return mean + 2.0 * Math.sqrt(variance);
+        }
+    }
+
     /**
      * Represents a single rendering task
      */
@@ -172,28 +691,200 @@ public class RenderTaskScheduler {
         protected final String name;
         protected final Priority priority;
         protected final long createdAt;
-        
+        private Object key;
+        private Box bounds;
+
         public RenderTask(String name, Priority priority) {
             this.name = name;
             this.priority = priority;
             this.createdAt = System.currentTimeMillis();
         }
-        
+
+        /**
+         * Identify the work (a section, an entity, ...); a later submission with an equal key supersedes this task
+         * while it is still queued. Set before submitting.
+         */
+        public RenderTask withKey(Object key) {
+            this.key = key;
+            return this;
+        }
+
+        /**
+         * World-space area the work is for. The task is cancelled when the chunk holding the center unloads or
+         * leaves the predicted view. Set before submitting.
+         */
+        public RenderTask withBounds(Box bounds) {
+            this.bounds = bounds;
+            return this;
+        }
+
+        /**
+         * Combine this newer submission with the queued task it supersedes. Defaults to replacing it; override to
+         * accumulate work (e.g. union of dirty regions) instead.
+         */
+        protected RenderTask merge(RenderTask queued) {
+            return this;
+        }
+
         /**
          * Execute the rendering work
          */
         public abstract void execute();
-        
+
         /**
          * Check if this task is still relevant (not stale)
          * Override to implement custom relevance checks
          */
         public boolean isRelevant() {
-            // Tasks older than 5 seconds are considered stale
-            return (System.currentTimeMillis() - createdAt) < 5000;
+            return (System.currentTimeMillis() - createdAt) < maxAgeMillis();
+        }
+
+        /**
+         * Age after which the default relevance check considers the task stale.
+         */
+        protected long maxAgeMillis() {
+            return 5000;
+        }
+
+        /**
+         * Key under which execution times are learned. Defaults to the task class, so tasks created at the
+         * same site share one estimate; override when one class does work of very different sizes.
+         */
+        public String type() {
+            return getClass().getName();
+        }
+    }
+
+    /**
+     * A task with a thread-safe {@link #compute()} phase that runs on a worker and an {@link #apply} phase that runs
+     * on the render thread. {@code compute()} must not touch the world, GL state or other render-thread-only data.
+     * Falls back to running both phases inline when executed directly.
+     */
+    public static abstract class AsyncRenderTask<T> extends RenderTask {
+        private volatile boolean cancelled = false;
+        private volatile Future<?> future;
+        private volatile T result;
+        private volatile Throwable failure;
+        // Applied or dropped; the task no longer holds any scheduler or worker resources
+        private volatile boolean settled = false;
+        // Scheduler generation the task was started in
+        private volatile int generation;
+
+        public AsyncRenderTask(String name, Priority priority) {
+            super(name, priority);
+        }
+
+        /** Off-thread work: mesh preparation, sorting, cache lookups. */
+        protected abstract T compute() throws Exception;
+
+        /** Render-thread commit of the computed result; keep it short. */
+        protected abstract void apply(T result);
+
+        /** Whether {@link #compute()} blocks on I/O; such tasks run on virtual threads instead of the CPU pool. */
+        protected boolean isBlocking() {
+            return false;
+        }
+
+        @Override
+        public final void execute() {
+            try {
+                apply(compute());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Cancel the task; a running compute phase finishes (and keeps its worker slot until then) but its result is
+         * never applied.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(false);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Handed to a worker and not yet applied, dropped or cancelled. */
+        boolean isInFlight() {
+            return future != null && !settled && !cancelled;
+        }
+
+        boolean start(RenderTaskScheduler scheduler) {
+            generation = scheduler.generation;
+            Future<?> f = RenderWorkerPool.get().trySubmit(() -> {
+                if (cancelled) return;
+                try {
+                    result = compute();
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                if (!cancelled) scheduler.onComputed(this);
+            }, isBlocking());
+            future = f;
+            return f != null;
+        }
+
+        void commit() throws Exception {
+            settled = true;
+            Throwable t = failure;
+            if (t != null) {
+                throw t instanceof Exception ex ? ex : new RuntimeException(t);
+            }
+            apply(result);
+        }
+    }
+
+    /**
+     * A large job done in resumable steps, keeping its state in fields between frames. Each {@link #step()} should
+     * do a bounded slice of work (a few hundred items, not "the rest"). A task superseded by key starts over unless
+     * its {@link #merge} carries the state across.
+     */
+    public static abstract class IncrementalRenderTask extends RenderTask {
+        private int steps = 0;
+        private long lastStepMillis;
+
+        public IncrementalRenderTask(String name, Priority priority) {
+            super(name, priority);
+            lastStepMillis = createdAt;
+        }
+
+        /**
+         * Do the next slice of work. Returns true once the job is complete.
+         */
+        protected abstract boolean step();
+
+        /**
+         * Fraction of the job done (0..1) for stats, or NaN when unknown.
+         */
+        public double progress() {
+            return Double.NaN;
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        @Override
+        public final void execute() {
+            while (!step()) {
+                steps++;
+            }
+            steps++;
+        }
+
+        /**
+         * Stale only when no step ran for {@link #maxAgeMillis()}, so a long job is not dropped halfway.
+         */
+        @Override
+        public boolean isRelevant() {
+            return System.currentTimeMillis() - lastStepMillis < maxAgeMillis();
         }
     }
-    
+
     public enum Priority {
         HIGH,   // Must be done this frame (visible chunks, nearby entities)
         NORMAL, // Should be done soon (particles, effects)
@@ -0,0 +1,134 @@
+package com.itarqos.threadium.render;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.util.ThreadiumLog;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker threads for the compute phase of {@link RenderTaskScheduler.AsyncRenderTask}s.
+ *
+ * CPU-bound work goes to a ForkJoin pool sized to leave the render thread and one more core free; tasks that
+ * declare blocking I/O go to virtual threads so they never tie up a worker. In-flight tasks are capped
+ * (backpressure): when the cap is reached, submissions are refused and the scheduler keeps the task queued.
+ * Frame-critical data-parallel work that the render thread joins (particle simulation and vertex writing) gets a
+ * separate LIFO pool, so it never waits behind long async compute tasks queued on the CPU pool.
+ */
+public final class RenderWorkerPool {
+    private static final RenderWorkerPool INSTANCE = new RenderWorkerPool();
+    public static RenderWorkerPool get() { return INSTANCE; }
+
+    private ForkJoinPool cpuPool;
+    private ForkJoinPool framePool;
+    private ExecutorService ioPool;
+    private int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private RenderWorkerPool() {}
+
+    private synchronized void ensureStarted() {
+        if (cpuPool != null) return;
+        int configured = ThreadiumClient.CONFIG != null ? ThreadiumClient.CONFIG.renderWorkerThreads : 0;
+        int threads = configured > 0 ? configured : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        AtomicInteger ids = new AtomicInteger();
+        cpuPool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("Threadium-Worker-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, true);
+        AtomicInteger frameIds = new AtomicInteger();
+        framePool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("Threadium-Frame-" + frameIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        ioPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Threadium-IO-", 0).factory());
+        maxInFlight = threads * 2;
+        ThreadiumLog.debug("Render worker pool started with %d threads", threads);
+    }
+
+    /**
+     * Start {@code work} off-thread unless too much is already in flight. {@code work} must not throw.
+     * Returns the future to cancel it with, or null when refused.
+     */
+    Future<?> trySubmit(Runnable work, boolean blocking) {
+        ensureStarted();
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return null;
+        }
+        // The slot is held until the work body returns. cancel(false) on running work calls done() right away while the
+        // worker is still busy, so done() only frees the slot of a task cancelled before it started
+        FutureTask<Void> tracked = new FutureTask<>(work, null) {
+            private volatile boolean started;
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void run() {
+                started = true;
+                try {
+                    super.run();
+                } finally {
+                    release();
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (!started) release();
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) inFlight.decrementAndGet();
+            }
+        };
+        try {
+            if (blocking) ioPool.execute(tracked);
+            else cpuPool.execute(tracked);
+            return tracked;
+        } catch (RuntimeException e) {
+            // Rejected during shutdown
+            inFlight.decrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Pool for structured fork/join work that the caller always joins in the same frame (no backpressure). Kept apart
+     * from the async compute pool so a join never queues behind unrelated long tasks.
+     */
+    public ForkJoinPool getFramePool() {
+        ensureStarted();
+        return framePool;
+    }
+
+    public int getInFlight() {
+        return Math.max(0, inFlight.get());
+    }
+
+    public synchronized void shutdown() {
+        if (cpuPool == null) return;
+        cpuPool.shutdownNow();
+        framePool.shutdownNow();
+        ioPool.shutdownNow();
+        try {
+            cpuPool.awaitTermination(500, TimeUnit.MILLISECONDS);
+            framePool.awaitTermination(500, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cpuPool = null;
+        framePool = null;
+        ioPool = null;
+    }
+}
@@ -0,0 +1,254 @@
+package com.itarqos.threadium.trace;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import com.itarqos.threadium.util.ThreadiumLog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Always-on, allocation-free event ring for post-mortem stutter analysis.
+ *
+ * Every event is four longs in one flat array: start time (nanoTime), header (event id, thread id), and two
+ * primitive arguments. Writers claim a slot with a single {@code getAndIncrement} and then store plain longs, so
+ * recording costs a few nanoseconds and never allocates or formats. The ring keeps the most recent
+ * {@link #CAPACITY} events, typically several seconds of play.
+ *
+ * Events are either spans (argument A is the duration in nanos) or instants. Strings never enter the ring: task
+ * types are interned once into small integer labels with {@link #label(String)}.
+ *
+ * The ring can be exported as Chrome trace JSON (chrome://tracing, ui.perfetto.dev). With {@code traceDumpOnHitch}
+ * enabled, a frame over {@code microStutterThresholdMs} dumps the last {@code traceDumpSeconds} into
+ * {@code threadium-traces/}, at most once per {@link #DUMP_COOLDOWN_NANOS}. The render thread only captures the
+ * cursor; the exporter reads the ring in place on its own thread and drops every slot whose sequence was overwritten
+ * while it was being read. A write still in flight at the cursor can leave a torn event, which is skipped if it does
+ * not decode.
+ */
+public final class EventTrace {
+    private static final EventTrace INSTANCE = new EventTrace();
+    public static EventTrace get() { return INSTANCE; }
+
+    // Event ids
+    public static final int FRAME = 1;             // span
+    public static final int PHASE = 2;             // span, B = FramePhaseProfiler.Phase ordinal
+    public static final int TASK_SUBMIT = 3;       // instant, A = priority ordinal
+    public static final int TASK_RUN = 4;          // span, B = task type label
+    public static final int TASK_APPLY = 5;        // span, B = task type label
+    public static final int TASK_SKIP = 6;         // instant, A = task type label
+    public static final int TASK_DEFER = 7;        // instant, A = tasks left queued
+    public static final int SLICE_FLUSH = 8;       // span, B = sections scheduled
+    public static final int UNHIDE = 9;            // span, B = sections unhidden
+    public static final int GC_PAUSE = 10;         // span (recorded from the GC notification thread)
+    public static final int LONG_FRAME = 11;       // instant, A = frame nanos, B = FrameBudgetController.LongFrameCause ordinal
+    public static final int IDLE_WORK = 12;        // span, B = idle window nanos
+    private static final String[] EVENT_NAMES = {
+            "?", "frame", "phase", "task submit", "task", "task apply", "task skipped", "tasks deferred",
+            "slice flush", "unhide", "gc pause", "long frame", "idle work"
+    };
+    private static final String[] LONG_FRAME_CAUSES = {"gc", "render", "other"};
+
+    private static final int CAPACITY = 1 << 17;
+    private static final int SLOT_LONGS = 4;
+    private static final long DUMP_COOLDOWN_NANOS = 30_000_000_000L;
+    private static final Path TRACE_DIR = Path.of("threadium-traces");
+
+    private final long[] ring = new long[CAPACITY * SLOT_LONGS];
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicBoolean dumping = new AtomicBoolean();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+    private long lastDumpNanos = Long.MIN_VALUE / 2;
+    private volatile int dumps = 0;
+
+    private EventTrace() {
+        labels.add("?");
+    }
+
+    public static boolean isEnabled() {
+        return ThreadiumClient.CONFIG == null || ThreadiumClient.CONFIG.enableEventTrace;
+    }
+
+    /**
+     * Intern a string (task type, etc.) as a small integer that can be stored in an event. Not for hot paths:
+     * callers cache the result.
+     */
+    public synchronized int label(String name) {
+        Integer id = labelIds.get(name);
+        if (id != null) return id;
+        labels.add(name);
+        labelIds.put(name, labels.size() - 1);
+        return labels.size() - 1;
+    }
+
+    private synchronized String labelName(long id) {
+        return id >= 0 && id < labels.size() ? labels.get((int) id) : "?";
+    }
+
+    /** Record an instant event now. */
+    public void instant(int event, long a, long b) {
+        if (!isEnabled()) return;
+        write(event, System.nanoTime(), a, b);
+    }
+
+    /** Record a span that started at {@code startNanos} and ended now. */
+    public void span(int event, long startNanos, long b) {
+        if (!isEnabled()) return;
+        write(event, startNanos, System.nanoTime() - startNanos, b);
+    }
+
+    /** Record a span with explicit start and duration, e.g. one reported after the fact. */
+    public void span(int event, long startNanos, long durationNanos, long b) {
+        if (!isEnabled()) return;
+        write(event, startNanos, durationNanos, b);
+    }
+
+    private void write(int event, long time, long a, long b) {
+        int i = (int) (cursor.getAndIncrement() & (CAPACITY - 1)) * SLOT_LONGS;
+        ring[i] = time;
+        ring[i + 1] = ((long) event << 48) | (Thread.currentThread().threadId() & 0xFFFF_FFFF_FFFFL);
+        ring[i + 2] = a;
+        ring[i + 3] = b;
+    }
+
+    /**
+     * A frame exceeded the stutter threshold. Records it and, if enabled and not rate-limited, dumps the
+     * recent history to disk off the render thread.
+     */
+    public void onLongFrame(long frameStartNanos, long frameNanos, int cause) {
+        if (!isEnabled()) return;
+        write(LONG_FRAME, frameStartNanos + frameNanos, frameNanos, cause);
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.traceDumpOnHitch) return;
+        long now = System.nanoTime();
+        if (now - lastDumpNanos < DUMP_COOLDOWN_NANOS || !dumping.compareAndSet(false, true)) return;
+        lastDumpNanos = now;
+        long windowNanos = Math.max(1L, ThreadiumClient.CONFIG.traceDumpSeconds) * 1_000_000_000L;
+        long end = cursor.get();
+        String name = "hitch-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".json";
+        Thread.ofVirtual().name("Threadium-TraceDump").start(() -> {
+            try {
+                Path file = writeChromeTrace(end, now - windowNanos, TRACE_DIR.resolve(name));
+                dumps++;
+                ThreadiumLog.info("Hitch of %.1f ms, trace written to %s", frameNanos / 1_000_000.0, file.toAbsolutePath());
+            } catch (IOException e) {
+                ThreadiumLog.error("Failed to write hitch trace: %s", e.getMessage());
+            } finally {
+                dumping.set(false);
+            }
+        });
+    }
+
+    /** Export everything newer than {@code sinceNanos} now. Safe to call from any thread. */
+    public Path dump(long sinceNanos) throws IOException {
+        String name = "events-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + ".json";
+        return writeChromeTrace(cursor.get(), sinceNanos, TRACE_DIR.resolve(name));
+    }
+
+    /** Whether the slot of sequence {@code k} has been claimed again by a newer event. Check after reading it. */
+    private boolean overwritten(long k) {
+        return cursor.get() - k > CAPACITY;
+    }
+
+    /**
+     * Export the events before sequence {@code end} that start at or after {@code sinceNanos}, reading the live ring.
+     * Writers keep running meanwhile; slots they reuse during the export are dropped, oldest first.
+     */
+    private Path writeChromeTrace(long end, long sinceNanos, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        long[] events = ring;
+        long begin = Math.max(0L, end - CAPACITY);
+        // Chrome traces want microseconds; anchor them to the oldest exported event
+        long origin = Long.MAX_VALUE;
+        for (long k = begin; k < end; k++) {
+            long t = events[(int) (k & (CAPACITY - 1)) * SLOT_LONGS];
+            if (overwritten(k)) continue;
+            if (t >= sinceNanos && t < origin) origin = t;
+        }
+        Map<Long, String> threadNames = new HashMap<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) threadNames.put(t.threadId(), t.getName());
+
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            boolean first = true;
+            Map<Long, Boolean> seenThreads = new HashMap<>();
+            for (long k = begin; k < end; k++) {
+                int i = (int) (k & (CAPACITY - 1)) * SLOT_LONGS;
+                long time = events[i];
+                int event = (int) (events[i + 1] >>> 48);
+                long tid = events[i + 1] & 0xFFFF_FFFF_FFFFL;
+                long a = events[i + 2], b = events[i + 3];
+                if (overwritten(k)) continue;
+                if (time < sinceNanos || event <= 0 || event >= EVENT_NAMES.length) continue;
+
+                if (seenThreads.putIfAbsent(tid, Boolean.TRUE) == null) {
+                    if (!first) w.write(",\n");
+                    first = false;
+                    w.write("{\"ph\":\"M\",\"pid\":1,\"tid\":" + tid + ",\"name\":\"thread_name\",\"args\":{\"name\":\""
+                            + escape(threadNames.getOrDefault(tid, "thread-" + tid)) + "\"}}");
+                }
+                if (!first) w.write(",\n");
+                first = false;
+                double ts = (time - origin) / 1000.0;
+                if (isSpan(event)) {
+                    w.write("{\"ph\":\"X\",\"pid\":1,\"tid\":" + tid + ",\"ts\":" + ts + ",\"dur\":" + Math.max(0L, a) / 1000.0
+                            + ",\"name\":\"" + escape(spanName(event, b)) + "\",\"args\":{\"value\":" + b + "}}");
+                } else {
+                    w.write("{\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":" + tid + ",\"ts\":" + ts
+                            + ",\"name\":\"" + escape(instantName(event, a, b)) + "\",\"args\":{\"a\":" + a + ",\"b\":" + b + "}}");
+                }
+            }
+            w.write("\n]}\n");
+        }
+        return file;
+    }
+
+    private static boolean isSpan(int event) {
+        return switch (event) {
+            case FRAME, PHASE, TASK_RUN, TASK_APPLY, SLICE_FLUSH, UNHIDE, GC_PAUSE, IDLE_WORK -> true;
+            default -> false;
+        };
+    }
+
+    private String spanName(int event, long b) {
+        return switch (event) {
+            case PHASE -> b >= 0 && b < FramePhaseProfiler.Phase.values().length
+                    ? FramePhaseProfiler.Phase.values()[(int) b].name().toLowerCase() : "phase";
+            case TASK_RUN, TASK_APPLY -> EVENT_NAMES[event] + " " + labelName(b);
+            default -> EVENT_NAMES[event];
+        };
+    }
+
+    private String instantName(int event, long a, long b) {
+        return switch (event) {
+            case TASK_SKIP -> EVENT_NAMES[event] + " " + labelName(a);
+            case LONG_FRAME -> String.format("long frame %.1f ms (%s)", a / 1_000_000.0,
+                    b >= 0 && b < LONG_FRAME_CAUSES.length ? LONG_FRAME_CAUSES[(int) b] : "?");
+            default -> EVENT_NAMES[event];
+        };
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(' ');
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    public long getEventCount() { return cursor.get(); }
+    public int getDumpCount() { return dumps; }
+}
@@ -0,0 +1,39 @@
+package com.itarqos.threadium.trace;
+
+/**
+ * Binary layout of Threadium camera traces (big-endian).
+ *
+ * File header: int MAGIC, short VERSION, short reserved, long wall-clock start millis.
+ * Then a stream of records, each a one-byte tag followed by its fields:
+ * <pre>
+ * FRAME         long nanos, double x, y, z, float yaw, pitch, fov, aspect, short viewDistanceChunks, long worldTime
+ * ENTITY        int id, float dx, dy, dz           (offset from the preceding FRAME's camera)
+ * BLOCK         int x, y, z, byte flags            (bit 0: old state was air, bit 1: new state is air)
+ * BLOCK_ENTITY  int x, y, z, byte added           (1 = loaded, 0 = unloaded)
+ * WORLD_RESET   (no fields)                        (world or dimension change; all state restarts)
+ * </pre>
+ * A zero tag marks the end; the recorder leaves the unused tail of its last mapped region zeroed.
+ */
+public final class TraceFormat {
+    private TraceFormat() {}
+
+    public static final int MAGIC = 0x54485452; // "THTR"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 4 + 2 + 2 + 8;
+
+    public static final byte TAG_END = 0;
+    public static final byte TAG_FRAME = 1;
+    public static final byte TAG_ENTITY = 2;
+    public static final byte TAG_BLOCK = 3;
+    public static final byte TAG_BLOCK_ENTITY = 4;
+    public static final byte TAG_WORLD_RESET = 5;
+
+    public static final int FRAME_BYTES = 1 + 8 + 8 * 3 + 4 * 4 + 2 + 8;
+    public static final int ENTITY_BYTES = 1 + 4 + 4 * 3;
+    public static final int BLOCK_BYTES = 1 + 4 * 3 + 1;
+    public static final int BLOCK_ENTITY_BYTES = 1 + 4 * 3 + 1;
+    public static final int MAX_RECORD_BYTES = FRAME_BYTES;
+
+    public static final int BLOCK_FLAG_OLD_AIR = 1;
+    public static final int BLOCK_FLAG_NEW_AIR = 2;
+}
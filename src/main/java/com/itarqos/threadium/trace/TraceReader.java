@@ -0,0 +1,65 @@
+package com.itarqos.threadium.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams the records of a trace file written by {@link TraceRecorder} to a {@link Visitor}.
+ */
+public final class TraceReader {
+    private TraceReader() {}
+
+    public interface Visitor {
+        default void onWorldReset() {}
+        default void onFrame(long nanos, double x, double y, double z, float yaw, float pitch,
+                             float fov, float aspect, int viewDistanceChunks, long worldTime) {}
+        /** Entity position relative to the camera of the preceding frame. */
+        default void onEntity(int id, float dx, float dy, float dz) {}
+        default void onBlockChange(int x, int y, int z, boolean oldWasAir, boolean newIsAir) {}
+        default void onBlockEntity(int x, int y, int z, boolean added) {}
+    }
+
+    /**
+     * Read the whole trace. Returns the wall-clock start time stored in the header.
+     */
+    public static long read(Path file, Visitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != TraceFormat.MAGIC) throw new IOException("Not a Threadium trace: " + file);
+            short version = in.readShort();
+            if (version != TraceFormat.VERSION) throw new IOException("Unsupported trace version " + version);
+            in.readShort();
+            long startMillis = in.readLong();
+            try {
+                while (true) {
+                    byte tag = in.readByte();
+                    switch (tag) {
+                        case TraceFormat.TAG_END -> { return startMillis; }
+                        case TraceFormat.TAG_FRAME -> visitor.onFrame(in.readLong(),
+                                in.readDouble(), in.readDouble(), in.readDouble(),
+                                in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                                in.readShort(), in.readLong());
+                        case TraceFormat.TAG_ENTITY -> visitor.onEntity(in.readInt(), in.readFloat(), in.readFloat(), in.readFloat());
+                        case TraceFormat.TAG_BLOCK -> {
+                            int x = in.readInt(), y = in.readInt(), z = in.readInt();
+                            int flags = in.readByte();
+                            visitor.onBlockChange(x, y, z, (flags & TraceFormat.BLOCK_FLAG_OLD_AIR) != 0, (flags & TraceFormat.BLOCK_FLAG_NEW_AIR) != 0);
+                        }
+                        case TraceFormat.TAG_BLOCK_ENTITY -> {
+                            int x = in.readInt(), y = in.readInt(), z = in.readInt();
+                            visitor.onBlockEntity(x, y, z, in.readByte() != 0);
+                        }
+                        case TraceFormat.TAG_WORLD_RESET -> visitor.onWorldReset();
+                        default -> throw new IOException("Corrupt trace: unknown record tag " + tag);
+                    }
+                }
+            } catch (EOFException e) {
+                // Truncated by a crash; everything before the cut is usable
+                return startMillis;
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.itarqos.threadium.trace;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.client.blockentity.BlockEntitySectionIndex;
+import com.itarqos.threadium.util.ThreadiumLog;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Records camera pose, FOV, nearby entities, block changes and block entity load/unload events
+ * into a memory-mapped trace file for offline replay (see {@link TraceReplayer}).
+ *
+ * Writes go straight into a mapped region, so recording costs a few stores per record on the render thread.
+ * Regions are mapped in fixed-size steps as the file grows. Recording follows the
+ * {@code enableTraceRecording} config flag and stops at {@code traceMaxMegabytes}.
+ */
+public final class TraceRecorder {
+    private static final TraceRecorder INSTANCE = new TraceRecorder();
+
+    public static TraceRecorder get() { return INSTANCE; }
+
+    private static final Path TRACE_DIR = Path.of("threadium-traces");
+    private static final long REGION_BYTES = 8L << 20;
+    // Entities farther than this from the camera are never rendered by vanilla at default settings
+    private static final double ENTITY_RADIUS = 128.0;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long regionStart;
+    private long limitBytes;
+    private Path file;
+    private ClientWorld trackedWorld;
+    private boolean capped = false;
+
+    private TraceRecorder() {}
+
+    public boolean isRecording() {
+        return channel != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getBytesWritten() {
+        return channel != null ? regionStart + buffer.position() : 0L;
+    }
+
+    /**
+     * Record this frame's camera and visible-range entities. Also starts/stops recording when the config flag flips.
+     */
+    public void onFrame(Camera camera, float tickDelta) {
+        boolean wanted = ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableTraceRecording;
+        if (!wanted) {
+            capped = false;
+            if (isRecording()) stop();
+            return;
+        }
+        if (!isRecording()) {
+            if (capped) return;
+            start();
+            if (!isRecording()) return;
+        }
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.world == null || camera == null) return;
+
+        if (mc.world != trackedWorld) {
+            trackedWorld = mc.world;
+            if (!ensure(1)) return;
+            buffer.put(TraceFormat.TAG_WORLD_RESET);
+            // Block entities that were loaded before recording started (or before the reset record)
+            BlockEntitySectionIndex.get().forEachPosition(p ->
+                    recordBlockEntity(BlockPos.unpackLongX(p), BlockPos.unpackLongY(p), BlockPos.unpackLongZ(p), true));
+        }
+
+        Vec3d cam = camera.getPos();
+        if (!ensure(TraceFormat.FRAME_BYTES)) return;
+        buffer.put(TraceFormat.TAG_FRAME);
+        buffer.putLong(System.nanoTime());
+        buffer.putDouble(cam.x).putDouble(cam.y).putDouble(cam.z);
+        buffer.putFloat(camera.getYaw()).putFloat(camera.getPitch());
+        buffer.putFloat(mc.options.getFov().getValue());
+        int fbw = mc.getWindow().getFramebufferWidth(), fbh = mc.getWindow().getFramebufferHeight();
+        buffer.putFloat(fbh > 0 ? (float) fbw / fbh : 16.0f / 9.0f);
+        buffer.putShort((short) mc.options.getClampedViewDistance());
+        buffer.putLong(mc.world.getTime());
+
+        Entity self = camera.getFocusedEntity();
+        double r2 = ENTITY_RADIUS * ENTITY_RADIUS;
+        for (Entity e : mc.world.getEntities()) {
+            if (e == self) continue;
+            double dx = MathHelper.lerp(tickDelta, e.prevX, e.getX()) - cam.x;
+            double dy = MathHelper.lerp(tickDelta, e.prevY, e.getY()) - cam.y;
+            double dz = MathHelper.lerp(tickDelta, e.prevZ, e.getZ()) - cam.z;
+            if (dx * dx + dy * dy + dz * dz > r2) continue;
+            if (!ensure(TraceFormat.ENTITY_BYTES)) return;
+            buffer.put(TraceFormat.TAG_ENTITY);
+            buffer.putInt(e.getId());
+            buffer.putFloat((float) dx).putFloat((float) dy).putFloat((float) dz);
+        }
+    }
+
+    public void recordBlockChange(BlockPos pos, boolean oldWasAir, boolean newIsAir) {
+        if (!isRecording() || !ensure(TraceFormat.BLOCK_BYTES)) return;
+        buffer.put(TraceFormat.TAG_BLOCK);
+        buffer.putInt(pos.getX()).putInt(pos.getY()).putInt(pos.getZ());
+        buffer.put((byte) ((oldWasAir ? TraceFormat.BLOCK_FLAG_OLD_AIR : 0) | (newIsAir ? TraceFormat.BLOCK_FLAG_NEW_AIR : 0)));
+    }
+
+    public void recordBlockEntity(BlockPos pos, boolean added) {
+        recordBlockEntity(pos.getX(), pos.getY(), pos.getZ(), added);
+    }
+
+    private void recordBlockEntity(int x, int y, int z, boolean added) {
+        if (!isRecording() || !ensure(TraceFormat.BLOCK_ENTITY_BYTES)) return;
+        buffer.put(TraceFormat.TAG_BLOCK_ENTITY);
+        buffer.putInt(x).putInt(y).putInt(z);
+        buffer.put((byte) (added ? 1 : 0));
+    }
+
+    private void start() {
+        try {
+            Files.createDirectories(TRACE_DIR);
+            String name = "trace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".bin";
+            file = TRACE_DIR.resolve(name);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            regionStart = 0L;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, REGION_BYTES);
+            limitBytes = Math.max(1L, ThreadiumClient.CONFIG.traceMaxMegabytes) << 20;
+            buffer.putInt(TraceFormat.MAGIC);
+            buffer.putShort(TraceFormat.VERSION);
+            buffer.putShort((short) 0);
+            buffer.putLong(System.currentTimeMillis());
+            trackedWorld = null;
+            ThreadiumLog.info("Trace recording started: %s", file.toAbsolutePath());
+        } catch (IOException e) {
+            ThreadiumLog.error("Failed to start trace recording: %s", e.getMessage());
+            closeQuietly();
+            capped = true; // do not retry every frame
+        }
+    }
+
+    /**
+     * Make room for a record, mapping the next region when the current one is full.
+     */
+    private boolean ensure(int bytes) {
+        if (buffer.remaining() > bytes) return true; // keep at least one zero byte as end marker
+        long next = regionStart + buffer.position();
+        if (next + REGION_BYTES > limitBytes) {
+            ThreadiumLog.warn("Trace reached %d MB, recording stopped", limitBytes >> 20);
+            capped = true;
+            stop();
+            return false;
+        }
+        try {
+            buffer.force();
+            regionStart = next;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_BYTES);
+            return true;
+        } catch (IOException e) {
+            ThreadiumLog.error("Trace write failed: %s", e.getMessage());
+            capped = true;
+            stop();
+            return false;
+        }
+    }
+
+    public void stop() {
+        if (channel == null) return;
+        long written = getBytesWritten();
+        try {
+            buffer.force();
+        } catch (Throwable ignored) {
+        }
+        closeQuietly();
+        ThreadiumLog.info("Trace recording stopped: %s (%d KB)", file, written >> 10);
+    }
+
+    private void closeQuietly() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+        buffer = null;
+        trackedWorld = null;
+    }
+}
@@ -0,0 +1,360 @@
+package com.itarqos.threadium.trace;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.config.ThreadiumConfig;
+import com.itarqos.threadium.util.CullingContext;
+import com.itarqos.threadium.util.CullingUtil;
+import com.itarqos.threadium.util.MovementPredictor;
+import com.itarqos.threadium.world.SubIdentifierManager;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Offline harness: replays a recorded trace through the movement predictor, the entity/block entity
+ * culling thresholds, the rerender deferral check and the slice planner, without a running client.
+ *
+ * Ground truth is the vanilla view frustum rebuilt from the recorded pose, FOV and aspect ratio.
+ * Reported:
+ * - CPU time spent inside the Threadium engines
+ * - sections scheduled by the planner vs. dirty-section episodes (what vanilla would rebuild)
+ * - pop-ins: dirty sections that entered the view before they were rebuilt
+ * - false culls: entities / block entities inside the view frustum that the heuristics culled
+ *
+ * QoS multipliers are held at 1.0 since frame cost is not part of the trace.
+ *
+ * Usage: {@code TraceReplayer <trace.bin> [more traces...] [--config path/to/threadium.json]}
+ * (Gradle: {@code ./gradlew replayTrace --args="threadium-traces/trace-....bin"}).
+ */
+public final class TraceReplayer implements TraceReader.Visitor {
+    // Vanilla renders most entities and block entities up to ~64 blocks at default settings
+    private static final double ENTITY_VISIBLE_DISTANCE = 64.0;
+    private static final double BLOCK_ENTITY_VISIBLE_DISTANCE = 64.0;
+    private static final double ENTITY_RADIUS = 1.0;
+    private static final double BLOCK_ENTITY_RADIUS = 0.87;
+    private static final double SECTION_RADIUS = 8.0 * Math.sqrt(3.0);
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    private final MovementPredictor predictor = MovementPredictor.detached();
+    private final SubIdentifierManager planner = SubIdentifierManager.detached(this::onPlannerScheduled);
+    private final CullingContext entityCulling = new CullingContext();
+    private final LongOpenHashSet blockEntities = new LongOpenHashSet();
+    // Dirty section origin -> nanos when it became dirty (open episodes)
+    private final Long2LongOpenHashMap dirtySections = new Long2LongOpenHashMap();
+    private final LongOpenHashSet poppedSections = new LongOpenHashSet();
+
+    // Current frame
+    private boolean haveFrame = false;
+    private long frameNanos;
+    private double camX, camY, camZ;
+    private float fov, aspect;
+    private int viewDistanceChunks;
+    private long lastWorldTime = Long.MIN_VALUE;
+    private Vec3d cullCamPos = Vec3d.ZERO;
+    private double fX, fY, fZ, rX, rZ, uX, uY, uZ, tanV, tanH;
+    private float[] entityOffsets = new float[3 * 256];
+    private int entityCount = 0;
+    private boolean[] culledScratch = new boolean[256];
+    private long[] blockEntityScratch = new long[256];
+
+    // Results
+    private long engineCpuNanos;
+    private long frames, ticks;
+    private long blockChanges, dirtyEpisodes, immediateRebuilds, plannerScheduled, plannerCancelled;
+    private long popIns, popInLatencyNanos;
+    private long entitySamples, entityCulled, entityFalseCulls;
+    private long blockEntitySamples, blockEntityCulled, blockEntityFalseCulls;
+
+    public static void main(String[] args) throws IOException {
+        Path configPath = null;
+        java.util.List<Path> traces = new java.util.ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--config".equals(args[i]) && i + 1 < args.length) {
+                configPath = Path.of(args[++i]);
+            } else {
+                traces.add(Path.of(args[i]));
+            }
+        }
+        if (traces.isEmpty()) {
+            System.err.println("Usage: TraceReplayer <trace.bin> [more traces...] [--config threadium.json]");
+            System.exit(2);
+        }
+        ThreadiumClient.CONFIG = configPath != null ? ThreadiumConfig.load(configPath) : new ThreadiumConfig();
+        for (Path trace : traces) {
+            TraceReplayer replayer = new TraceReplayer();
+            TraceReader.read(trace, replayer);
+            replayer.finish();
+            replayer.printReport(trace, System.out);
+        }
+    }
+
+    // --- Visitor ---
+
+    @Override
+    public void onWorldReset() {
+        finishFrame();
+        predictor.requestReset();
+        planner.onWorldReset();
+        blockEntities.clear();
+        dirtySections.clear();
+        poppedSections.clear();
+        lastWorldTime = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void onFrame(long nanos, double x, double y, double z, float yaw, float pitch,
+                        float fov, float aspect, int viewDistanceChunks, long worldTime) {
+        finishFrame();
+        frames++;
+        frameNanos = nanos;
+        camX = x; camY = y; camZ = z;
+        this.fov = fov;
+        this.aspect = aspect;
+        this.viewDistanceChunks = viewDistanceChunks;
+        setupViewBasis(yaw, pitch);
+
+        long t0 = cpuNow();
+        // Client tick boundary: same order as END_CLIENT_TICK (snapshot, then plan), before this frame's sample
+        if (lastWorldTime != Long.MIN_VALUE && worldTime != lastWorldTime) {
+            ticks++;
+            predictor.captureTickView();
+            MovementPredictor.Snapshot view = predictor.tickView();
+            planner.plan(new SubIdentifierManager.FlushInputs(tickCamPos(view), view.getSmoothedForward(),
+                    view.getSmoothedSpeed(), view.getAngularAcceleration(),
+                    view.getCullingMargin(), view.getConeWidening(),
+                    1.0, 1.0, false, nanos / 1_000_000L));
+        }
+        lastWorldTime = worldTime;
+
+        predictor.sample(x, y, z, yaw, pitch, nanos);
+        cullCamPos = enablePrediction()
+                ? predictor.getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks))
+                : new Vec3d(x, y, z);
+        Vec3d forward = predictor.getSmoothedForward();
+        int bandHalf = ThreadiumClient.CONFIG.enableEntityVerticalBandCulling ? Math.max(1, ThreadiumClient.CONFIG.verticalBandHalfHeight) : 0;
+        entityCulling.setEntityThresholds(cullCamPos.x, cullCamPos.y, cullCamPos.z, forward.x, forward.y, forward.z,
+                predictor.getSmoothedSpeed(), 1.0, predictor.getCullingMargin(), predictor.getConeWidening(),
+                ThreadiumClient.CONFIG.enableEntityBehindCulling, bandHalf);
+        engineCpuNanos += cpuNow() - t0;
+        haveFrame = true;
+
+        evaluateBlockEntities();
+        detectPopIns();
+    }
+
+    @Override
+    public void onEntity(int id, float dx, float dy, float dz) {
+        if (!haveFrame) return;
+        if (entityCount * 3 + 3 > entityOffsets.length) {
+            entityOffsets = Arrays.copyOf(entityOffsets, entityOffsets.length * 2);
+        }
+        int i = entityCount * 3;
+        entityOffsets[i] = dx;
+        entityOffsets[i + 1] = dy;
+        entityOffsets[i + 2] = dz;
+        entityCount++;
+    }
+
+    @Override
+    public void onBlockChange(int x, int y, int z, boolean oldWasAir, boolean newIsAir) {
+        blockChanges++;
+        BlockPos pos = new BlockPos(x, y, z);
+        long origin = BlockPos.asLong(x & ~15, y & ~15, z & ~15);
+        if (!dirtySections.containsKey(origin)) {
+            dirtySections.put(origin, frameNanos);
+            poppedSections.remove(origin);
+            dirtyEpisodes++;
+        }
+
+        long t0 = cpuNow();
+        planner.onBlockStateChanged(pos, oldWasAir, newIsAir);
+        boolean defer = haveFrame && deferSection(new Vec3d(x + 0.5, y + 0.5, z + 0.5));
+        engineCpuNanos += cpuNow() - t0;
+        if (!defer) {
+            // Not deferred: vanilla rebuilds the section right away
+            immediateRebuilds++;
+            closeEpisode(origin);
+        }
+    }
+
+    @Override
+    public void onBlockEntity(int x, int y, int z, boolean added) {
+        long key = BlockPos.asLong(x, y, z);
+        if (added) blockEntities.add(key); else blockEntities.remove(key);
+    }
+
+    // --- Engines ---
+
+    private void onPlannerScheduled(BlockPos origin) {
+        // Planned sections still pass through the scheduleSectionRender hook, which may cancel them
+        if (deferSection(new Vec3d(origin.getX() + 8.0, origin.getY() + 8.0, origin.getZ() + 8.0))) {
+            plannerCancelled++;
+            return;
+        }
+        plannerScheduled++;
+        closeEpisode(origin.asLong());
+    }
+
+    private boolean deferSection(Vec3d target) {
+        MovementPredictor.Snapshot view = predictor.tickView();
+        return CullingUtil.shouldDeferSectionWork(tickCamPos(view), view.getSmoothedForward(), view.getSmoothedSpeed(),
+                view.getCullingMargin(), view.getConeWidening(), target);
+    }
+
+    private Vec3d tickCamPos(MovementPredictor.Snapshot view) {
+        return enablePrediction() ? view.getPredictedCamPos() : new Vec3d(camX, camY, camZ);
+    }
+
+    private static boolean enablePrediction() {
+        return ThreadiumClient.CONFIG.enablePredictionEverywhere;
+    }
+
+    private void finishFrame() {
+        if (!haveFrame) return;
+        if (culledScratch.length < entityCount) culledScratch = new boolean[entityOffsets.length / 3];
+        long t0 = cpuNow();
+        for (int i = 0; i < entityCount; i++) {
+            int j = i * 3;
+            culledScratch[i] = entityCulling.cullsPoint(camX + entityOffsets[j], camY + entityOffsets[j + 1], camZ + entityOffsets[j + 2]);
+        }
+        engineCpuNanos += cpuNow() - t0;
+        for (int i = 0; i < entityCount; i++) {
+            int j = i * 3;
+            entitySamples++;
+            if (!culledScratch[i]) continue;
+            entityCulled++;
+            if (inView(entityOffsets[j], entityOffsets[j + 1], entityOffsets[j + 2], ENTITY_RADIUS, ENTITY_VISIBLE_DISTANCE)) {
+                entityFalseCulls++;
+            }
+        }
+        entityCount = 0;
+        haveFrame = false;
+    }
+
+    private void evaluateBlockEntities() {
+        double reach = BLOCK_ENTITY_VISIBLE_DISTANCE + BLOCK_ENTITY_RADIUS;
+        int n = 0;
+        LongIterator it = blockEntities.iterator();
+        while (it.hasNext()) {
+            long p = it.nextLong();
+            double dx = BlockPos.unpackLongX(p) + 0.5 - camX;
+            double dy = BlockPos.unpackLongY(p) + 0.5 - camY;
+            double dz = BlockPos.unpackLongZ(p) + 0.5 - camZ;
+            // Vanilla would not render it at all; nothing for the heuristics to get wrong
+            if (dx * dx + dy * dy + dz * dz > reach * reach) continue;
+            if (n == blockEntityScratch.length) blockEntityScratch = Arrays.copyOf(blockEntityScratch, n * 2);
+            blockEntityScratch[n++] = p;
+        }
+        if (culledScratch.length < n) culledScratch = new boolean[blockEntityScratch.length];
+
+        long t0 = cpuNow();
+        for (int i = 0; i < n; i++) {
+            long p = blockEntityScratch[i];
+            culledScratch[i] = entityCulling.cullsPoint(BlockPos.unpackLongX(p) + 0.5, BlockPos.unpackLongY(p) + 0.5, BlockPos.unpackLongZ(p) + 0.5);
+        }
+        engineCpuNanos += cpuNow() - t0;
+
+        blockEntitySamples += n;
+        for (int i = 0; i < n; i++) {
+            if (!culledScratch[i]) continue;
+            blockEntityCulled++;
+            long p = blockEntityScratch[i];
+            if (inView(BlockPos.unpackLongX(p) + 0.5 - camX, BlockPos.unpackLongY(p) + 0.5 - camY, BlockPos.unpackLongZ(p) + 0.5 - camZ,
+                    BLOCK_ENTITY_RADIUS, BLOCK_ENTITY_VISIBLE_DISTANCE)) {
+                blockEntityFalseCulls++;
+            }
+        }
+    }
+
+    private void detectPopIns() {
+        double maxDist = viewDistanceChunks * 16.0;
+        ObjectIterator<Long2LongMap.Entry> it = dirtySections.long2LongEntrySet().fastIterator();
+        while (it.hasNext()) {
+            Long2LongMap.Entry e = it.next();
+            long origin = e.getLongKey();
+            if (poppedSections.contains(origin)) continue;
+            double dx = BlockPos.unpackLongX(origin) + 8.0 - camX;
+            double dy = BlockPos.unpackLongY(origin) + 8.0 - camY;
+            double dz = BlockPos.unpackLongZ(origin) + 8.0 - camZ;
+            if (inView(dx, dy, dz, SECTION_RADIUS, maxDist)) {
+                // Visible while its mesh is stale: counted once per dirty episode
+                popIns++;
+                popInLatencyNanos += Math.max(0L, frameNanos - e.getLongValue());
+                poppedSections.add(origin);
+            }
+        }
+    }
+
+    private void closeEpisode(long origin) {
+        dirtySections.remove(origin);
+        poppedSections.remove(origin);
+    }
+
+    // --- Ground-truth frustum ---
+
+    private void setupViewBasis(float yawDeg, float pitchDeg) {
+        double yr = Math.toRadians(yawDeg), pr = Math.toRadians(pitchDeg);
+        double cp = Math.cos(pr);
+        fX = -Math.sin(yr) * cp; fY = -Math.sin(pr); fZ = Math.cos(yr) * cp;
+        rX = -Math.cos(yr); rZ = -Math.sin(yr);
+        // up = right x forward
+        uX = -rZ * fY; uY = rZ * fX - rX * fZ; uZ = rX * fY;
+        tanV = Math.tan(Math.toRadians(fov) * 0.5);
+        tanH = tanV * aspect;
+    }
+
+    /**
+     * Conservative sphere-vs-frustum test for an offset from the recorded camera.
+     */
+    private boolean inView(double dx, double dy, double dz, double radius, double maxDistance) {
+        double d2 = dx * dx + dy * dy + dz * dz;
+        double reach = maxDistance + radius;
+        if (d2 > reach * reach) return false;
+        double z = dx * fX + dy * fY + dz * fZ;
+        if (z < -radius) return false;
+        double h = Math.abs(dx * rX + dz * rZ);
+        double v = Math.abs(dx * uX + dy * uY + dz * uZ);
+        return h <= z * tanH + radius * Math.sqrt(1.0 + tanH * tanH)
+                && v <= z * tanV + radius * Math.sqrt(1.0 + tanV * tanV);
+    }
+
+    private long cpuNow() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void finish() {
+        finishFrame();
+    }
+
+    private void printReport(Path trace, java.io.PrintStream out) {
+        out.println("== " + trace.getFileName() + " ==");
+        out.printf("frames %d, ticks %d, engine CPU %.2f ms (%.2f us/frame)%n",
+                frames, ticks, engineCpuNanos / 1.0e6, frames > 0 ? engineCpuNanos / 1.0e3 / frames : 0.0);
+        out.printf("block changes %d, dirty-section episodes %d (vanilla rebuilds)%n", blockChanges, dirtyEpisodes);
+        out.printf("sections rebuilt: %d immediately, %d by planner, %d planned but cancelled, %d still stale at end%n",
+                immediateRebuilds, plannerScheduled, plannerCancelled, dirtySections.size());
+        out.printf("pop-ins (stale section in view) %d, mean latency %.1f ms%n",
+                popIns, popIns > 0 ? popInLatencyNanos / 1.0e6 / popIns : 0.0);
+        out.printf("entities: %d samples, %d culled, %d false culls (%.3f%%)%n",
+                entitySamples, entityCulled, entityFalseCulls, pct(entityFalseCulls, entitySamples));
+        out.printf("block entities: %d samples, %d culled, %d false culls (%.3f%%)%n",
+                blockEntitySamples, blockEntityCulled, blockEntityFalseCulls, pct(blockEntityFalseCulls, blockEntitySamples));
+        out.printf("predictor resets %d%n", predictor.getResetCount());
+    }
+
+    private static double pct(long part, long whole) {
+        return whole > 0 ? 100.0 * part / whole : 0.0;
+    }
+}
@@ -0,0 +1,306 @@
+package com.itarqos.threadium.util;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.config.ThreadiumConfig;
+import com.itarqos.threadium.world.SubIdentifierManager;
+import com.mojang.blaze3d.platform.GlDebugInfo;
+import net.minecraft.client.MinecraftClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Optional online tuner for Threadium's budgets and thresholds, running during normal play.
+ *
+ * Coordinate-wise hill climbing over a bounded parameter table. The incumbent values are measured for one trial,
+ * then one parameter is nudged and the candidate is measured for a trial of the same length. A trial scores
+ * p95 frame time plus a pop-in penalty: the time-averaged rebuild backlog, i.e. each frame's backlog weighted by that
+ * frame's duration. Only work the tuned budgets could have cleared counts: sections of in-view slices left over by the
+ * slice budget, and sections queued for unhide. Weighting by time rather than by frame keeps a faster candidate from
+ * paying more for the same backlog.
+ * A candidate is kept only if it beats the incumbent by a margin; otherwise it is reverted, its direction flips, and
+ * after both directions fail the step shrinks. A candidate that is clearly worse halfway through is reverted early.
+ * After a rejection the incumbent is re-measured, since the scene has moved on in the meantime.
+ *
+ * Only unpaused in-world frames without a screen open count toward trials. While a trial is paused (and on stop) the
+ * config holds the accepted value, so a settings screen never saves an unproven candidate; the candidate is applied
+ * again when play resumes. Accepted values are stored per machine (cores, heap, GL renderer) in
+ * {@code autoTuneProfiles} and applied again on the next start.
+ */
+public final class AutoTuner {
+    private static final AutoTuner INSTANCE = new AutoTuner();
+    public static AutoTuner get() { return INSTANCE; }
+
+    private record Param(String name, double min, double max, double initialStep, double minStep, boolean integer,
+                         ToDoubleFunction<ThreadiumConfig> getter, ObjDoubleConsumer<ThreadiumConfig> setter) {
+        double clampValue(double v) {
+            double c = CullingUtil.clamp(v, min, max);
+            return integer ? Math.rint(c) : c;
+        }
+    }
+
+    private static final Param[] PARAMS = {
+            new Param("sliceBudgetPerTick", 4, 96, 8, 1, true, c -> c.sliceBudgetPerTick, (c, v) -> c.sliceBudgetPerTick = (int) v),
+            new Param("unhidePerTick", 1, 64, 4, 1, true, c -> c.unhidePerTick, (c, v) -> c.unhidePerTick = (int) v),
+            new Param("particleTileBudget", 1, 24, 2, 1, true, c -> c.particleTileBudget, (c, v) -> c.particleTileBudget = (int) v),
+            new Param("qosAggressiveness", 0.0, 1.0, 0.2, 0.05, false, c -> c.qosAggressiveness, (c, v) -> c.qosAggressiveness = v),
+            new Param("hiddenDeprioritizeFrames", 5, 120, 10, 2, true, c -> c.hiddenDeprioritizeFrames, (c, v) -> c.hiddenDeprioritizeFrames = (int) v),
+            new Param("workBudgetPercent", 5, 50, 5, 1, true, c -> c.workBudgetPercent, (c, v) -> c.workBudgetPercent = (int) v),
+    };
+
+    private enum State { IDLE, SETTLE_INCUMBENT, MEASURE_INCUMBENT, SETTLE_CANDIDATE, MEASURE_CANDIDATE }
+
+    // Let queues and the QoS loop react to a change before measuring it
+    private static final long SETTLE_NANOS = 2_000_000_000L;
+    // Frames longer than this are loading hitches, not something a parameter could cause
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+    private static final double MIN_IMPROVEMENT = 0.03;
+    private static final double EARLY_ABORT_RATIO = 1.5;
+
+    // A single window that never rotates: cleared at the start of each trial
+    private final FrameTimeHistogram histogram = new FrameTimeHistogram(1, Long.MAX_VALUE);
+    private final double[] quantile = {0.95};
+    private final double[] quantileMs = new double[1];
+
+    private final double[] step = new double[PARAMS.length];
+    private final int[] direction = new int[PARAMS.length];
+    private final int[] failures = new int[PARAMS.length];
+
+    private State state = State.IDLE;
+    private long stateNanos = 0L;
+    private double backlogNanos = 0.0;                // sum of backlog * frame duration over the measured frames
+    private boolean candidateApplied = false;         // candidate value currently written into the config
+    private double candidateValue;
+    private double incumbentScore = Double.NaN;
+    private double lastTrialScore = Double.NaN;
+    private int paramIndex = 0;
+    private int candidateParam = -1;
+    private double incumbentValue;
+    private int accepted = 0;
+    private int rejected = 0;
+    private String profileKey = null;
+
+    private AutoTuner() {
+        for (int i = 0; i < PARAMS.length; i++) {
+            step[i] = PARAMS[i].initialStep();
+            direction[i] = 1;
+        }
+    }
+
+    /**
+     * Feed one rendered frame. Called at world render START, after the QoS controller has measured the frame.
+     */
+    public void onFrame() {
+        ThreadiumConfig cfg = ThreadiumClient.CONFIG;
+        if (cfg == null || !cfg.enableAutoTuner) {
+            if (state != State.IDLE) stop(cfg);
+            return;
+        }
+        if (profileKey == null) loadProfile(cfg);
+        if (state == State.IDLE) enter(State.SETTLE_INCUMBENT);
+
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc.world == null || mc.currentScreen != null || mc.isPaused()) {
+            pauseCandidate(cfg);
+            return;
+        }
+        if (!resumeCandidate(cfg)) return;
+        long frameNanos = (long) (FrameBudgetController.get().getLastFrameMs() * 1_000_000.0);
+        if (frameNanos <= 0L || frameNanos > MAX_FRAME_NANOS) return;
+
+        stateNanos += frameNanos;
+        switch (state) {
+            case SETTLE_INCUMBENT, SETTLE_CANDIDATE -> {
+                if (stateNanos >= SETTLE_NANOS) {
+                    enter(state == State.SETTLE_INCUMBENT ? State.MEASURE_INCUMBENT : State.MEASURE_CANDIDATE);
+                }
+            }
+            case MEASURE_INCUMBENT, MEASURE_CANDIDATE -> {
+                histogram.record(frameNanos, 0L);
+                SubIdentifierManager sub = SubIdentifierManager.get();
+                backlogNanos += (double) (sub.getEligibleBacklog() + sub.getPendingUnhideCount()) * frameNanos;
+                long trialNanos = Math.max(5L, cfg.autoTuneTrialSeconds) * 1_000_000_000L;
+                if (state == State.MEASURE_CANDIDATE && stateNanos >= trialNanos / 2
+                        && score(cfg) > incumbentScore * EARLY_ABORT_RATIO) {
+                    finishCandidate(cfg, false);
+                } else if (stateNanos >= trialNanos) {
+                    double s = score(cfg);
+                    lastTrialScore = s;
+                    if (state == State.MEASURE_INCUMBENT) {
+                        incumbentScore = s;
+                        proposeCandidate(cfg);
+                    } else {
+                        finishCandidate(cfg, s < incumbentScore * (1.0 - MIN_IMPROVEMENT));
+                    }
+                }
+            }
+            default -> {}
+        }
+    }
+
+    private void enter(State next) {
+        state = next;
+        stateNanos = 0L;
+        if (next == State.MEASURE_INCUMBENT || next == State.MEASURE_CANDIDATE) {
+            histogram.clear();
+            backlogNanos = 0.0;
+        }
+    }
+
+    private double score(ThreadiumConfig cfg) {
+        if (histogram.quantiles(0L, quantile, quantileMs) == 0L) return Double.NaN;
+        double meanBacklog = backlogNanos / Math.max(1L, stateNanos);
+        return quantileMs[0] + Math.max(0.0, cfg.autoTunePopInWeight) * meanBacklog;
+    }
+
+    private void proposeCandidate(ThreadiumConfig cfg) {
+        for (int tries = 0; tries < PARAMS.length; tries++) {
+            int i = paramIndex;
+            paramIndex = (paramIndex + 1) % PARAMS.length;
+            Param p = PARAMS[i];
+            double current = p.getter().applyAsDouble(cfg);
+            double candidate = p.clampValue(current + direction[i] * step[i]);
+            if (candidate == current) {
+                // At a bound: try the other way
+                direction[i] = -direction[i];
+                candidate = p.clampValue(current + direction[i] * step[i]);
+            }
+            if (candidate == current) continue;
+            incumbentValue = current;
+            candidateValue = candidate;
+            candidateParam = i;
+            candidateApplied = true;
+            p.setter().accept(cfg, candidate);
+            ThreadiumLog.debug("Auto-tuner trying %s=%s (incumbent %.2f)", p.name(), format(p, candidate), incumbentScore);
+            enter(State.SETTLE_CANDIDATE);
+            return;
+        }
+        // Nothing can move; keep re-measuring the incumbent
+        enter(State.SETTLE_INCUMBENT);
+    }
+
+    private void finishCandidate(ThreadiumConfig cfg, boolean keep) {
+        int i = candidateParam;
+        Param p = PARAMS[i];
+        if (keep) {
+            incumbentScore = lastTrialScore;
+            failures[i] = 0;
+            accepted++;
+            candidateApplied = false;
+            saveProfile(cfg);
+            ThreadiumLog.info("Auto-tuner kept %s=%s (score %.2f)", p.name(), format(p, p.getter().applyAsDouble(cfg)), incumbentScore);
+            candidateParam = -1;
+            // The candidate trial doubles as the new incumbent measurement
+            proposeCandidate(cfg);
+            return;
+        }
+        p.setter().accept(cfg, incumbentValue);
+        candidateApplied = false;
+        rejected++;
+        direction[i] = -direction[i];
+        if (++failures[i] >= 2) {
+            failures[i] = 0;
+            step[i] = Math.max(p.minStep(), step[i] * 0.5);
+        }
+        candidateParam = -1;
+        enter(State.SETTLE_INCUMBENT);
+    }
+
+    /** Put the accepted value back while the trial cannot measure, so nothing saves the candidate. */
+    private void pauseCandidate(ThreadiumConfig cfg) {
+        if (!candidateApplied) return;
+        PARAMS[candidateParam].setter().accept(cfg, incumbentValue);
+        candidateApplied = false;
+    }
+
+    /**
+     * Re-apply a paused candidate and settle it again. If the player changed that parameter in the meantime, their
+     * value becomes the incumbent and the trial is dropped. Returns false when the frame should not be measured.
+     */
+    private boolean resumeCandidate(ThreadiumConfig cfg) {
+        if (candidateParam < 0 || candidateApplied) return true;
+        Param p = PARAMS[candidateParam];
+        if (p.getter().applyAsDouble(cfg) != incumbentValue) {
+            candidateParam = -1;
+            enter(State.SETTLE_INCUMBENT);
+            return false;
+        }
+        p.setter().accept(cfg, candidateValue);
+        candidateApplied = true;
+        enter(State.SETTLE_CANDIDATE);
+        return false;
+    }
+
+    /**
+     * Stop tuning and restore the accepted value of any running trial. Also called on client shutdown.
+     */
+    public void stop() {
+        stop(ThreadiumClient.CONFIG);
+    }
+
+    private void stop(ThreadiumConfig cfg) {
+        if (candidateApplied && cfg != null) {
+            PARAMS[candidateParam].setter().accept(cfg, incumbentValue);
+        }
+        candidateApplied = false;
+        candidateParam = -1;
+        incumbentScore = Double.NaN;
+        state = State.IDLE;
+    }
+
+    private static String machineKey() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long heapGb = Math.round(Runtime.getRuntime().maxMemory() / (double) (1L << 30));
+        String renderer;
+        try {
+            renderer = GlDebugInfo.getRenderer();
+        } catch (Throwable t) {
+            renderer = "unknown";
+        }
+        return cores + "c/" + heapGb + "g/" + renderer;
+    }
+
+    private void loadProfile(ThreadiumConfig cfg) {
+        profileKey = machineKey();
+        Map<String, Double> profile = cfg.autoTuneProfiles != null ? cfg.autoTuneProfiles.get(profileKey) : null;
+        if (profile == null) {
+            ThreadiumLog.info("Auto-tuner: no profile for %s yet, starting from current settings", profileKey);
+            return;
+        }
+        for (Param p : PARAMS) {
+            Double v = profile.get(p.name());
+            if (v != null) p.setter().accept(cfg, p.clampValue(v));
+        }
+        ThreadiumLog.info("Auto-tuner: applied profile for %s", profileKey);
+    }
+
+    private void saveProfile(ThreadiumConfig cfg) {
+        if (cfg.autoTuneProfiles == null) cfg.autoTuneProfiles = new HashMap<>();
+        Map<String, Double> profile = cfg.autoTuneProfiles.computeIfAbsent(profileKey, k -> new HashMap<>());
+        for (Param p : PARAMS) profile.put(p.name(), p.getter().applyAsDouble(cfg));
+        ThreadiumClient.saveConfig();
+    }
+
+    private static String format(Param p, double v) {
+        return p.integer() ? String.valueOf((long) v) : String.format("%.2f", v);
+    }
+
+    public boolean isActive() { return state != State.IDLE; }
+    public int getAccepted() { return accepted; }
+    public int getRejected() { return rejected; }
+    public double getIncumbentScore() { return incumbentScore; }
+
+    /** Short description of what the tuner is doing, for the debug HUD. */
+    public String describe() {
+        ThreadiumConfig cfg = ThreadiumClient.CONFIG;
+        return switch (state) {
+            case IDLE -> "idle";
+            case SETTLE_INCUMBENT, MEASURE_INCUMBENT -> "measuring current settings";
+            case SETTLE_CANDIDATE, MEASURE_CANDIDATE -> cfg != null && candidateParam >= 0
+                    ? "trying " + PARAMS[candidateParam].name() + "=" + format(PARAMS[candidateParam], PARAMS[candidateParam].getter().applyAsDouble(cfg))
+                    : "trying";
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.itarqos.threadium.util;
+
+/**
+ * Per-frame snapshot of the camera and cutoffs used by the angle/distance and vertical band culling.
+ * Computing it once per frame lets callers test many points (or whole boxes) without repeating
+ * camera setup, and gives box-level accept/reject verdicts that are consistent with the per-point test.
+ */
+public final class CullingContext {
+    public enum Verdict {
+        ACCEPT,  // every point inside the box passes
+        REJECT,  // every point inside the box is culled
+        PARTIAL  // mixed; test points individually
+    }
+
+    private double camX, camY, camZ;
+    private double fx, fy, fz;
+    private double frontMax, behindMax, behindAngleDeg, cosBehind;
+    private double bandHalf = Double.POSITIVE_INFINITY;
+
+    public void set(double camX, double camY, double camZ,
+                    double forwardX, double forwardY, double forwardZ,
+                    double frontMax, double behindMax, double behindAngleDeg,
+                    double bandHalf) {
+        this.camX = camX; this.camY = camY; this.camZ = camZ;
+        this.fx = forwardX; this.fy = forwardY; this.fz = forwardZ;
+        this.frontMax = frontMax;
+        this.behindMax = behindMax;
+        this.behindAngleDeg = behindAngleDeg;
+        this.cosBehind = Math.cos(Math.toRadians(behindAngleDeg));
+        this.bandHalf = bandHalf;
+    }
+
+    /**
+     * Thresholds shared by entity and block entity culling: reach ahead grows with speed, reach behind shrinks,
+     * both scaled by the QoS cutoff multiplier and widened by the predictor's uncertainty margins.
+     */
+    public void setEntityThresholds(double camX, double camY, double camZ,
+                                    double forwardX, double forwardY, double forwardZ,
+                                    double speed, double cutoffMult, double margin, double coneWiden,
+                                    boolean behindCulling, int verticalBandHalf) {
+        double frontMax = 64.0 + Math.min(48.0, speed * 96.0);
+        double behindMax = Math.max(8.0, 16.0 - Math.min(12.0, speed * 24.0));
+        double behindAngle = 125.0;
+        if (!behindCulling) {
+            // Effectively disable behind-specific culling
+            behindMax = Double.MAX_VALUE;
+            behindAngle = 180.0;
+        }
+        // Apply QoS scaling
+        frontMax *= cutoffMult;
+        behindMax *= cutoffMult;
+        // Stay conservative while the prediction is uncertain
+        frontMax += margin;
+        behindMax += margin;
+        behindAngle = Math.min(180.0, behindAngle + coneWiden);
+        double bandHalf = verticalBandHalf > 0 ? verticalBandHalf : Double.POSITIVE_INFINITY;
+        set(camX, camY, camZ, forwardX, forwardY, forwardZ, frontMax, behindMax, behindAngle, bandHalf);
+    }
+
+    public double camX() { return camX; }
+    public double camY() { return camY; }
+    public double camZ() { return camZ; }
+
+    /**
+     * Same decision as the vertical band check followed by {@link CullingUtil#shouldCullByAngleAndDistance}.
+     */
+    public boolean cullsPoint(double x, double y, double z) {
+        if (Math.abs(y - camY) > bandHalf) return true;
+        double dx = x - camX, dy = y - camY, dz = z - camZ;
+        double distSq = dx * dx + dy * dy + dz * dz;
+        if (distSq < 1e-8) return false;
+        double dist = Math.sqrt(distSq);
+        double dot = (dx * fx + dy * fy + dz * fz) / dist;
+        boolean isBehind = dot < cosBehind;
+        return dist > (isBehind ? behindMax : frontMax);
+    }
+
+    /**
+     * Conservative verdict for all points inside the given box.
+     */
+    public Verdict classifyBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        boolean bandAll = true;
+        if (bandHalf != Double.POSITIVE_INFINITY) {
+            if (maxY < camY - bandHalf || minY > camY + bandHalf) return Verdict.REJECT;
+            bandAll = minY >= camY - bandHalf && maxY <= camY + bandHalf;
+        }
+
+        // Nearest and farthest distance from the camera to the box
+        double nx = camX < minX ? minX - camX : (camX > maxX ? camX - maxX : 0.0);
+        double ny = camY < minY ? minY - camY : (camY > maxY ? camY - maxY : 0.0);
+        double nz = camZ < minZ ? minZ - camZ : (camZ > maxZ ? camZ - maxZ : 0.0);
+        double dMin = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        double fxd = Math.max(Math.abs(camX - minX), Math.abs(camX - maxX));
+        double fyd = Math.max(Math.abs(camY - minY), Math.abs(camY - maxY));
+        double fzd = Math.max(Math.abs(camZ - minZ), Math.abs(camZ - maxZ));
+        double dMax = Math.sqrt(fxd * fxd + fyd * fyd + fzd * fzd);
+
+        // Angular extent of the box's bounding sphere as seen from the camera
+        double angMin = 0.0, angMax = 180.0;
+        double cx = (minX + maxX) * 0.5 - camX, cy = (minY + maxY) * 0.5 - camY, cz = (minZ + maxZ) * 0.5 - camZ;
+        double ex = (maxX - minX) * 0.5, ey = (maxY - minY) * 0.5, ez = (maxZ - minZ) * 0.5;
+        double r = Math.sqrt(ex * ex + ey * ey + ez * ez);
+        double dc = Math.sqrt(cx * cx + cy * cy + cz * cz);
+        if (dc > r + 1e-4) {
+            double dot = CullingUtil.clamp((cx * fx + cy * fy + cz * fz) / dc, -1.0, 1.0);
+            double angC = Math.toDegrees(Math.acos(dot));
+            double alpha = Math.toDegrees(Math.asin(r / dc));
+            angMin = Math.max(0.0, angC - alpha);
+            angMax = Math.min(180.0, angC + alpha);
+        }
+        boolean allFront = angMax <= behindAngleDeg;
+        boolean allBehind = angMin > behindAngleDeg;
+
+        boolean rejectAll = dMin > Math.max(frontMax, behindMax)
+                || (allFront && dMin > frontMax)
+                || (allBehind && dMin > behindMax);
+        if (rejectAll) return Verdict.REJECT;
+
+        boolean acceptAll = dMax <= Math.min(frontMax, behindMax)
+                || (allFront && dMax <= frontMax)
+                || (allBehind && dMax <= behindMax);
+        return (bandAll && acceptAll) ? Verdict.ACCEPT : Verdict.PARTIAL;
+    }
+}
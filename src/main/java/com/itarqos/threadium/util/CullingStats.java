@@ -8,6 +8,12 @@ public final class CullingStats {
     private static int slicesFlushed = 0;
     private static int slicesDebounced = 0;
     private static int slicesSkippedEmpty = 0;
+    private static int blockEntitiesBaked = 0;
+    private static int entitiesClustered = 0;
+    private static int blockEntitySectionsRebaked = 0;
+    private static int blockEntitySectionsAccepted = 0;
+    private static int blockEntitySectionsRejected = 0;
+    private static int blockEntitySectionsPartial = 0;
 
     public static void incEntityCulled() {
         entitiesCulled++;
@@ -34,11 +40,37 @@ public final class CullingStats {
     public static void incSliceSkippedEmpty() { slicesSkippedEmpty++; }
     public static int getSlicesSkippedEmpty() { return slicesSkippedEmpty; }
 
+    public static void incBlockEntityBaked() { blockEntitiesBaked++; }
+    public static int getBlockEntitiesBaked() { return blockEntitiesBaked; }
+
+    public static void incBlockEntitySectionRebaked() { blockEntitySectionsRebaked++; }
+    public static int getBlockEntitySectionsRebaked() { return blockEntitySectionsRebaked; }
+
+    public static void incBlockEntitySectionVerdict(CullingContext.Verdict verdict) {
+        switch (verdict) {
+            case ACCEPT -> blockEntitySectionsAccepted++;
+            case REJECT -> blockEntitySectionsRejected++;
+            case PARTIAL -> blockEntitySectionsPartial++;
+        }
+    }
+    public static int getBlockEntitySectionsAccepted() { return blockEntitySectionsAccepted; }
+    public static int getBlockEntitySectionsRejected() { return blockEntitySectionsRejected; }
+    public static int getBlockEntitySectionsPartial() { return blockEntitySectionsPartial; }
+
+    public static void incEntityClustered() { entitiesClustered++; }
+    public static int getEntitiesClustered() { return entitiesClustered; }
+
     public static void reset() {
         entitiesCulled = 0;
         blockEntitiesCulled = 0;
         slicesFlushed = 0;
         slicesDebounced = 0;
         slicesSkippedEmpty = 0;
+        blockEntitiesBaked = 0;
+        entitiesClustered = 0;
+        blockEntitySectionsRebaked = 0;
+        blockEntitySectionsAccepted = 0;
+        blockEntitySectionsRejected = 0;
+        blockEntitySectionsPartial = 0;
     }
 }
@@ -28,6 +28,21 @@ public final class CullingUtil {
         }
     }
 
+    /**
+     * Whether block/section rebuild work at the target can wait: behind the camera past the behind cutoff,
+     * or past the general far cutoff. Speed is in blocks per tick; margin/cone widening come from the predictor.
+     * Shared by the rerender hooks and the offline trace replayer.
+     */
+    public static boolean shouldDeferSectionWork(Vec3d camPos, Vec3d forward, double speed,
+                                                 double margin, double coneWiden, Vec3d target) {
+        double frontMax = 64.0 + Math.min(48.0, speed * 96.0) + margin;
+        double behindMax = Math.max(12.0, 32.0 - Math.min(16.0, speed * 24.0)) + margin;
+        double farCutoff = 98.0 + Math.min(32.0, speed * 48.0) + margin;
+        double behindAngle = Math.min(180.0, 125.0 + coneWiden);
+        return shouldCullByAngleAndDistance(camPos, forward, target, frontMax, behindMax, behindAngle)
+                || target.distanceTo(camPos) > farCutoff;
+    }
+
     public static double clamp(double v, double min, double max) {
         if (v < min) return min;
         if (v > max) return max;
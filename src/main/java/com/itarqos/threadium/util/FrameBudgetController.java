@@ -1,15 +1,42 @@
 package com.itarqos.threadium.util;
 
 import com.itarqos.threadium.client.ThreadiumClient;
+import com.itarqos.threadium.trace.EventTrace;
+import com.itarqos.threadium.util.FramePhaseProfiler.Phase;
+
+import java.util.Arrays;
 
 /**
- * Tracks frame time and provides dynamic budgets/LOD knobs to keep FPS near a target.
- * Uses an EMA of frame time and simple heuristics for aggressiveness.
+ * Tracks frame time and provides dynamic budgets/LOD knobs to keep frame times near a target.
+ *
+ * Frames go into a rolling {@link FrameTimeHistogram}; a PID loop steers a configurable tail percentile
+ * (p99 by default) toward the target frame time, because stutters live in the tail, not in the mean.
+ * The loop output is a QoS level in [-1, 1] (negative = shed work, positive = headroom) from which the
+ * per-subsystem multipliers are derived. An EMA of frame time is still kept for display.
+ *
+ * When over budget, the cut is steered by {@link FramePhaseProfiler}: each subsystem's phase time is compared with
+ * a baseline learned while frames were within budget, and subsystems are throttled in proportion to how much
+ * they grew. A particle storm therefore cuts the particle budget, not terrain prefetch. Headroom is shared evenly.
+ *
+ * Long frames are classified as GC (a JVM pause from {@link GcPauseMonitor} explains the overrun), render
+ * (world rendering dominated the frame) or other (tick, GUI, saving). The micro-stutter guard only freezes work
+ * after render-caused long frames, since skipping render work cannot fix the other two.
  */
 public final class FrameBudgetController {
     private static final FrameBudgetController INSTANCE = new FrameBudgetController();
     public static FrameBudgetController get() { return INSTANCE; }
 
+    // 16 x 250 ms sub-windows: the percentiles cover the last ~4 s of frames
+    private static final int WINDOW_COUNT = 16;
+    private static final long WINDOW_NANOS = 250_000_000L;
+    // The PID runs at a fixed cadence; percentiles over a multi-second window move slowly anyway
+    private static final long CONTROL_PERIOD_NANOS = 100_000_000L;
+    // Frames longer than this are loading screens / window drags, not stutters worth reacting to
+    private static final long MAX_RECORDED_FRAME_NANOS = 1_000_000_000L;
+    // Subsystems the controller can throttle independently; THREADIUM is our own tick/flush work
+    private static final Phase[] THROTTLED = {Phase.TERRAIN, Phase.ENTITIES, Phase.BLOCK_ENTITIES, Phase.PARTICLES, Phase.THREADIUM};
+    private static final double BASELINE_ALPHA = 0.02; // per control step (~5 s time constant)
+
     private long lastFrameStartNs = 0L;
     private double emaFrameMs = 7.0; // initialize around ~144 FPS
     private static final double ALPHA = 0.2; // smoothing for frame time
@@ -18,7 +45,30 @@ public final class FrameBudgetController {
     private double lastFrameMs = 7.0;
     private boolean longFrame = false;
 
-    private FrameBudgetController() {}
+    public enum LongFrameCause { GC, RENDER, OTHER }
+
+    private LongFrameCause lastLongFrameCause = null;
+    private final long[] longFrameCounts = new long[LongFrameCause.values().length];
+
+    private final FrameTimeHistogram histogram = new FrameTimeHistogram(WINDOW_COUNT, WINDOW_NANOS);
+    // Cuts quality quickly (2/s) but restores it slowly (0.5/s) so recovery does not immediately re-trigger stutter
+    private final PidController pid = new PidController(0.8, 0.5, 0.05, -1.0, 1.0, 0.5, 2.0);
+    // p50, p95, p99 and the configured control percentile
+    private final double[] quantiles = {0.50, 0.95, 0.99, 0.99};
+    private final double[] quantileMs = new double[quantiles.length];
+    private long lastControlNs = 0L;
+    private double p50Ms = 7.0, p95Ms = 7.0, p99Ms = 7.0, controlledMs = 7.0;
+    private double qos = 0.0;
+
+    private final double[] baselineMs = new double[Phase.values().length];
+    private final double[] growthMs = new double[Phase.values().length];
+    private final double[] share = new double[Phase.values().length];
+    private boolean baselinePrimed = false;
+    private Phase focus = null;
+
+    private FrameBudgetController() {
+        Arrays.fill(share, 1.0);
+    }
 
     public void beginFrame() {
         long now = System.nanoTime();
@@ -26,21 +76,110 @@ public final class FrameBudgetController {
             long dtNs = now - lastFrameStartNs;
             lastFrameMs = dtNs / 1_000_000.0;
             emaFrameMs = emaFrameMs * (1.0 - ALPHA) + lastFrameMs * ALPHA;
-            updateLongFrameFlag();
+            updateLongFrameFlag(lastFrameStartNs, now);
+            if (dtNs <= MAX_RECORDED_FRAME_NANOS) histogram.record(dtNs, now);
         }
         lastFrameStartNs = now;
+
+        if (now - lastControlNs >= CONTROL_PERIOD_NANOS) {
+            double dtSec = lastControlNs == 0L ? 0.0 : Math.min(1.0, (now - lastControlNs) / 1_000_000_000.0);
+            lastControlNs = now;
+            updateControl(now, dtSec);
+        }
+    }
+
+    private void updateControl(long now, double dtSec) {
+        quantiles[3] = targetQuantile();
+        if (histogram.quantiles(now, quantiles, quantileMs) == 0L) return;
+        p50Ms = quantileMs[0];
+        p95Ms = quantileMs[1];
+        p99Ms = quantileMs[2];
+        controlledMs = quantileMs[3];
+
+        double t = targetMs();
+        // Normalized headroom; clamp the overload side so a single huge hitch cannot dominate the integral
+        double error = CullingUtil.clamp((t - controlledMs) / t, -1.0, 1.0);
+        qos = pid.update(error, controlledMs / t, dtSec);
+        updateShares(t);
+    }
+
+    private void updateShares(double targetMs) {
+        FramePhaseProfiler profiler = FramePhaseProfiler.get();
+        double maxGrowth = 0.0;
+        Phase worst = null;
+        for (Phase p : THROTTLED) {
+            int i = p.ordinal();
+            double ms = profiler.getAverageMs(p);
+            // Learn the baseline only while within budget, but always let it follow a subsystem that got cheaper
+            if (!baselinePrimed) baselineMs[i] = ms;
+            else if (qos >= -0.05 || ms < baselineMs[i]) baselineMs[i] += BASELINE_ALPHA * (ms - baselineMs[i]);
+            growthMs[i] = Math.max(0.0, ms - baselineMs[i]);
+            if (growthMs[i] > maxGrowth) {
+                maxGrowth = growthMs[i];
+                worst = p;
+            }
+        }
+        baselinePrimed = true;
+
+        boolean attribute = ThreadiumClient.CONFIG == null || ThreadiumClient.CONFIG.enablePhaseAttribution;
+        // No clear culprit (or a scene that was never within budget): fall back to a uniform cut
+        if (!attribute || maxGrowth < Math.max(0.25, 0.1 * targetMs)) {
+            Arrays.fill(share, 1.0);
+            focus = null;
+            return;
+        }
+        for (Phase p : THROTTLED) {
+            share[p.ordinal()] = growthMs[p.ordinal()] / maxGrowth;
+        }
+        focus = worst;
     }
 
-    private void updateLongFrameFlag() {
+    /**
+     * QoS level as seen by one subsystem: headroom applies to all, an overrun only to the subsystems that caused it.
+     */
+    private double level(Phase phase) {
+        return qos >= 0.0 ? qos : qos * share[phase.ordinal()];
+    }
+
+    private void updateLongFrameFlag(long frameStartNs, long frameEndNs) {
         if (ThreadiumClient.CONFIG == null) { longFrame = false; return; }
-        if (!ThreadiumClient.CONFIG.enableMicroStutterGuard) { longFrame = false; return; }
         int threshold = Math.max(10, ThreadiumClient.CONFIG.microStutterThresholdMs);
-        longFrame = lastFrameMs > threshold;
+        if (lastFrameMs <= threshold) { longFrame = false; return; }
+
+        LongFrameCause cause = classifyLongFrame(frameStartNs, frameEndNs, threshold);
+        lastLongFrameCause = cause;
+        longFrameCounts[cause.ordinal()]++;
+        EventTrace.get().onLongFrame(frameStartNs, frameEndNs - frameStartNs, cause.ordinal());
+        if (!ThreadiumClient.CONFIG.enableMicroStutterGuard) { longFrame = false; return; }
+        longFrame = cause == LongFrameCause.RENDER || !ThreadiumClient.CONFIG.gcAwareStutterGuard;
+    }
+
+    private LongFrameCause classifyLongFrame(long frameStartNs, long frameEndNs, int thresholdMs) {
+        double pausedMs = GcPauseMonitor.get().pausedNanosBetween(frameStartNs, frameEndNs) / 1_000_000.0;
+        // Without the pause the frame would not have been long
+        if (lastFrameMs - pausedMs <= thresholdMs) return LongFrameCause.GC;
+        // The profiler closed the same START-to-START frame just before us
+        double otherMs = FramePhaseProfiler.get().getLastMs(Phase.OTHER);
+        double renderMs = Math.max(0.0, lastFrameMs - otherMs);
+        return renderMs >= otherMs ? LongFrameCause.RENDER : LongFrameCause.OTHER;
     }
 
     public double getEmaFrameMs() { return emaFrameMs; }
     public double getLastFrameMs() { return lastFrameMs; }
     public boolean wasLongFrame() { return longFrame; }
+    /** Cause of the most recent long frame, or null if none has been seen. */
+    public LongFrameCause getLastLongFrameCause() { return lastLongFrameCause; }
+    public long getLongFrameCount(LongFrameCause cause) { return longFrameCounts[cause.ordinal()]; }
+
+    public double getP50FrameMs() { return p50Ms; }
+    public double getP95FrameMs() { return p95Ms; }
+    public double getP99FrameMs() { return p99Ms; }
+    /** Frame time at the configured target percentile, as last seen by the control loop. */
+    public double getControlledFrameMs() { return controlledMs; }
+    /** Rate-limited PID output in [-1, 1]; negative when the tail is over budget. */
+    public double getQosLevel() { return qos; }
+    /** Subsystem currently taking the cut, or null when the cut is uniform. */
+    public Phase getThrottleFocus() { return qos < 0.0 ? focus : null; }
 
     // 0..1 aggressiveness, 0=off
     private double aggr() {
@@ -53,54 +192,54 @@ public final class FrameBudgetController {
         if (ThreadiumClient.CONFIG == null) return 8.0; // ~125 FPS default
         int fps = Math.max(30, Math.min(240, ThreadiumClient.CONFIG.targetFps));
         return 1000.0 / fps;
-        
+    }
+
+    private static double targetQuantile() {
+        if (ThreadiumClient.CONFIG == null) return 0.99;
+        return CullingUtil.clamp(ThreadiumClient.CONFIG.qosTargetPercentile, 50.0, 99.9) / 100.0;
     }
 
     /**
      * Multiplier for how many sections to unhide/schedule per tick. 1.0 = baseline.
-     * Reduces when frame time is above target.
+     * Reduces when the tail frame time is above target.
      */
     public double getUnhideMultiplier() {
-        double t = targetMs();
-        double e = (t - emaFrameMs) / t; // negative when over budget
-        // Map error to multiplier in [0.5, 1.5]
-        double base = 1.0 + 0.8 * aggr() * e;
-        if (base < 0.5) base = 0.5;
-        if (base > 1.5) base = 1.5;
-        return base;
+        // Section unhide/flush work shows up both as terrain time and as our own tick time
+        double l = Math.min(level(Phase.TERRAIN), level(Phase.THREADIUM));
+        return CullingUtil.clamp(1.0 + 0.5 * aggr() * l, 0.5, 1.5);
     }
 
     /**
-     * Multiplier for far cutoff distances to shrink/grow world work.
+     * Multiplier for far cutoff distances to shrink/grow the given subsystem's work
+     * ({@link Phase#TERRAIN}, {@link Phase#ENTITIES}, {@link Phase#BLOCK_ENTITIES} or {@link Phase#PARTICLES}).
      */
-    public double getFarCutoffMultiplier() {
-        double t = targetMs();
-        double e = (t - emaFrameMs) / t;
-        double base = 1.0 + 0.5 * aggr() * e;
-        if (base < 0.75) base = 0.75;
-        if (base > 1.25) base = 1.25;
-        return base;
+    public double getFarCutoffMultiplier(Phase phase) {
+        return CullingUtil.clamp(1.0 + 0.25 * aggr() * level(phase), 0.75, 1.25);
     }
 
     /**
-     * Integer LOD level: 0=normal, 1=aggressive, 2=very aggressive.
+     * Integer LOD level for the given subsystem: 0=normal, 1=aggressive, 2=very aggressive.
      */
-    public int getLodLevel() {
-        double t = targetMs();
-        if (emaFrameMs < t * 1.05) return 0;
-        if (emaFrameMs < t * 1.25) return 1;
+    public int getLodLevel(Phase phase) {
+        double l = level(phase);
+        if (l > -0.15) return 0;
+        if (l > -0.5) return 1;
         return 2;
     }
 
+    /**
+     * Scale for the shared per-frame work budget of {@link WorkBudgetArbiter} [0.5, 1.5].
+     */
+    public double getWorkBudgetScale() {
+        return CullingUtil.clamp(1.0 + 0.5 * aggr() * qos, 0.5, 1.5);
+    }
+
     /**
      * Scale for particle spawn budget [0.25, 1.5].
      */
     public double getParticleBudgetScale() {
-        double t = targetMs();
-        double e = (t - emaFrameMs) / t;
-        double base = 1.0 + 1.0 * aggr() * e;
-        if (base < 0.25) base = 0.25;
-        if (base > 1.5) base = 1.5;
-        return base;
+        double e = aggr() * level(Phase.PARTICLES);
+        // Particles are the cheapest thing to shed, so the cut side is steeper than the boost side
+        return CullingUtil.clamp(1.0 + (e < 0.0 ? 0.75 : 0.5) * e, 0.25, 1.5);
     }
 }
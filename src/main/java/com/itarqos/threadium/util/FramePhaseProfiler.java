@@ -0,0 +1,109 @@
+package com.itarqos.threadium.util;
+
+import com.itarqos.threadium.trace.EventTrace;
+
+import java.util.Arrays;
+
+/**
+ * Splits each frame (START to START) into per-phase time so the QoS controller can see which subsystem
+ * is responsible for an overrun.
+ *
+ * Top-level phases follow the {@code WorldRenderEvents} boundaries via {@link #mark(Phase)}. Work nested inside a
+ * phase (block entities inside the entity pass, particle rendering, Threadium's own hooks) is carved out with
+ * {@link #push(Phase)} / {@link #pop()}, so every nanosecond is charged to exactly one phase.
+ * Time between END and the next START (GUI, tick, buffer swap) is charged to {@link Phase#OTHER} unless a probe
+ * claims it. Render thread only; per-entity hooks are deliberately not probed to keep the probes themselves cheap.
+ */
+public final class FramePhaseProfiler {
+    private static final FramePhaseProfiler INSTANCE = new FramePhaseProfiler();
+    public static FramePhaseProfiler get() { return INSTANCE; }
+
+    public enum Phase { SETUP, TERRAIN, ENTITIES, BLOCK_ENTITIES, PARTICLES, TRANSLUCENT, THREADIUM, OTHER }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final double ALPHA = 0.1; // per-frame smoothing for the averages
+    private static final int MAX_DEPTH = 8;
+    // Longer gaps are loading screens or a closed world, not frames
+    private static final long MAX_FRAME_NANOS = 1_000_000_000L;
+
+    private final long[] accumNs = new long[PHASES.length];
+    private final double[] lastMs = new double[PHASES.length];
+    private final double[] avgMs = new double[PHASES.length];
+    private final int[] stack = new int[MAX_DEPTH];
+    private int depth = 0;
+    private int overflow = 0;
+    private int current = Phase.OTHER.ordinal();
+    private long lastNs = System.nanoTime();
+    private long frames = 0L;
+    private long frameStartNs = 0L;
+
+    private FramePhaseProfiler() {}
+
+    /**
+     * Close the previous frame and start attributing to {@link Phase#SETUP}. Call first thing at world render START.
+     */
+    public void beginFrame() {
+        long now = System.nanoTime();
+        charge(now);
+        if (frames > 0L) EventTrace.get().span(EventTrace.FRAME, frameStartNs, now - frameStartNs, 0L);
+        if (frames > 0L && now - frameStartNs > MAX_FRAME_NANOS) frames = 0L;
+        // The first call only opens a frame; what came before it is loading, not a frame
+        if (frames++ > 0L) {
+            for (int i = 0; i < PHASES.length; i++) {
+                double ms = accumNs[i] / 1_000_000.0;
+                lastMs[i] = ms;
+                avgMs[i] = frames == 2L ? ms : avgMs[i] + ALPHA * (ms - avgMs[i]);
+            }
+        }
+        Arrays.fill(accumNs, 0L);
+        depth = 0;
+        overflow = 0;
+        current = Phase.SETUP.ordinal();
+        lastNs = now;
+        frameStartNs = now;
+    }
+
+    /**
+     * Move to the next top-level phase. Any unbalanced nested probes are discarded.
+     */
+    public void mark(Phase next) {
+        long now = System.nanoTime();
+        charge(now);
+        lastNs = now;
+        depth = 0;
+        overflow = 0;
+        current = next.ordinal();
+    }
+
+    /**
+     * Charge time to {@code phase} until the matching {@link #pop()}.
+     */
+    public void push(Phase phase) {
+        if (depth == MAX_DEPTH) { overflow++; return; }
+        long now = System.nanoTime();
+        charge(now);
+        lastNs = now;
+        stack[depth++] = current;
+        current = phase.ordinal();
+    }
+
+    public void pop() {
+        if (overflow > 0) { overflow--; return; }
+        if (depth == 0) return; // a mark() in between already reset the stack
+        long now = System.nanoTime();
+        charge(now);
+        lastNs = now;
+        current = stack[--depth];
+    }
+
+    private void charge(long now) {
+        accumNs[current] += now - lastNs;
+        if (now > lastNs) EventTrace.get().span(EventTrace.PHASE, lastNs, now - lastNs, current);
+    }
+
+    /** Smoothed per-frame time spent in a phase. */
+    public double getAverageMs(Phase phase) { return avgMs[phase.ordinal()]; }
+
+    /** Time spent in a phase during the last completed frame. */
+    public double getLastMs(Phase phase) { return lastMs[phase.ordinal()]; }
+}
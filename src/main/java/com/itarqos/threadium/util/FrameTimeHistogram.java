@@ -0,0 +1,106 @@
+package com.itarqos.threadium.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling frame-time histogram with HDR-style log-linear buckets over a ring of sliding sub-windows.
+ *
+ * Values are recorded in microseconds. Below 16 µs every value has its own bucket; above that each power of two
+ * is split into 16 linear sub-buckets, so any recorded value is within ~6% of its bucket bound. Values past
+ * ~1 s land in the last bucket.
+ *
+ * Recording is lock-free and allocation-free: one atomic increment, plus a CAS when a sub-window rotates.
+ * A slot reused for a new window is cleared by whoever wins the CAS; an increment racing that clear may be lost,
+ * which only matters for a handful of samples at the window edge.
+ */
+public final class FrameTimeHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_MAGNITUDE = 20; // 2^20 µs ~ 1 s
+    static final int BUCKETS = SUB_COUNT + (MAX_MAGNITUDE - SUB_BITS + 1) * SUB_COUNT;
+
+    private final int windowCount;
+    private final long windowNanos;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray slotEpoch;
+    // Only the controller thread queries, so a single scratch array is enough
+    private final long[] scratch = new long[BUCKETS];
+
+    /**
+     * @param windowCount number of sub-windows kept in the ring
+     * @param windowNanos length of one sub-window; the histogram covers {@code windowCount * windowNanos}
+     */
+    public FrameTimeHistogram(int windowCount, long windowNanos) {
+        this.windowCount = Math.max(1, windowCount);
+        this.windowNanos = Math.max(1L, windowNanos);
+        this.counts = new AtomicLongArray(this.windowCount * BUCKETS);
+        this.slotEpoch = new AtomicLongArray(this.windowCount);
+        for (int i = 0; i < this.windowCount; i++) slotEpoch.set(i, Long.MIN_VALUE);
+    }
+
+    public void record(long frameNanos, long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, windowNanos);
+        int slot = (int) Math.floorMod(epoch, (long) windowCount);
+        long seen = slotEpoch.get(slot);
+        if (seen < epoch && slotEpoch.compareAndSet(slot, seen, epoch)) {
+            int base = slot * BUCKETS;
+            for (int i = 0; i < BUCKETS; i++) counts.set(base + i, 0L);
+        }
+        counts.incrementAndGet(slot * BUCKETS + bucketOf(frameNanos / 1_000L));
+    }
+
+    /**
+     * Fill {@code outMs} with the frame time (ms) at each of the given quantiles (0..1, any order), considering only
+     * the sub-windows that are still inside the horizon at {@code nowNanos}. Returns the number of samples seen;
+     * when zero, {@code outMs} is left untouched.
+     */
+    public long quantiles(long nowNanos, double[] quantiles, double[] outMs) {
+        long epoch = Math.floorDiv(nowNanos, windowNanos);
+        long oldest = epoch - windowCount + 1;
+        long total = 0L;
+        // Merge live windows bucket by bucket; cheap enough to do once per frame (BUCKETS * windowCount reads)
+        long[] merged = scratch;
+        for (int b = 0; b < BUCKETS; b++) merged[b] = 0L;
+        for (int s = 0; s < windowCount; s++) {
+            long e = slotEpoch.get(s);
+            if (e < oldest || e > epoch) continue;
+            int base = s * BUCKETS;
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = counts.get(base + b);
+                merged[b] += c;
+                total += c;
+            }
+        }
+        if (total == 0L) return 0L;
+
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1L, (long) Math.ceil(quantiles[q] * total));
+            long cumulative = 0L;
+            int b = 0;
+            while (b < BUCKETS - 1 && (cumulative += merged[b]) < rank) b++;
+            outMs[q] = upperBoundMicros(b) / 1000.0;
+        }
+        return total;
+    }
+
+    public void clear() {
+        for (int i = 0; i < windowCount; i++) slotEpoch.set(i, Long.MIN_VALUE);
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0L);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) return (int) Math.max(0L, micros);
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude > MAX_MAGNITUDE) return BUCKETS - 1;
+        int shift = magnitude - SUB_BITS;
+        int mantissa = (int) (micros >>> shift); // in [SUB_COUNT, 2 * SUB_COUNT)
+        return SUB_COUNT + shift * SUB_COUNT + (mantissa - SUB_COUNT);
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+        long mantissa = SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
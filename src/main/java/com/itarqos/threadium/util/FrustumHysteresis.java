@@ -0,0 +1,66 @@
+package com.itarqos.threadium.util;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+/**
+ * Last world tick each frustum-tested box was seen, so boxes that just left the predicted view stay visible for
+ * {@code frustumHysteresisTicks} instead of flickering at the cutoff.
+ *
+ * Keys are quantized box hashes; entries older than the hysteresis window no longer affect any verdict and are
+ * pruned during idle time. Render thread only.
+ */
+public final class FrustumHysteresis {
+    private static final FrustumHysteresis INSTANCE = new FrustumHysteresis();
+    public static FrustumHysteresis get() { return INSTANCE; }
+
+    // Check the clock only every few entries while pruning
+    private static final int PRUNE_CHECK_MASK = 255;
+
+    private final Long2LongOpenHashMap lastVisibleTick = new Long2LongOpenHashMap();
+    private long latestTick = 0L;
+
+    private FrustumHysteresis() {
+        lastVisibleTick.defaultReturnValue(Long.MIN_VALUE);
+    }
+
+    public void markVisible(long key, long worldTick) {
+        lastVisibleTick.put(key, worldTick);
+        if (worldTick > latestTick) latestTick = worldTick;
+    }
+
+    /**
+     * Whether the box was visible within the last {@code hysteresisTicks} ticks.
+     */
+    public boolean isHeld(long key, long worldTick, int hysteresisTicks) {
+        long last = lastVisibleTick.get(key);
+        return last != Long.MIN_VALUE && worldTick - last <= hysteresisTicks;
+    }
+
+    /**
+     * Drop entries that can no longer hold a box visible, stopping at {@code deadlineNanos}. Returns how many were removed.
+     */
+    public int prune(int hysteresisTicks, long deadlineNanos) {
+        int removed = 0;
+        int visited = 0;
+        ObjectIterator<Long2LongMap.Entry> it = lastVisibleTick.long2LongEntrySet().fastIterator();
+        while (it.hasNext()) {
+            if ((++visited & PRUNE_CHECK_MASK) == 0 && System.nanoTime() >= deadlineNanos) break;
+            if (latestTick - it.next().getLongValue() > hysteresisTicks) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        lastVisibleTick.clear();
+        latestTick = 0L;
+    }
+
+    public int size() {
+        return lastVisibleTick.size();
+    }
+}
@@ -0,0 +1,183 @@
+package com.itarqos.threadium.util;
+
+import com.itarqos.threadium.trace.EventTrace;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records JVM-wide pauses so long frames can be told apart from render-caused ones.
+ *
+ * Two sources feed it:
+ * - {@link GarbageCollectorMXBean} notifications for stop-the-world collectors. Concurrent cycle beans
+ *   ("ZGC Cycles", "Shenandoah Cycles", "G1 Concurrent GC") report cycle time that does not stop the game, so they are skipped.
+ * - A normal-priority hiccup thread that parks for 5 ms in a loop; oversleeping well past its usual jitter means every
+ *   thread was stopped (safepoints, pauses of collectors without notifications). It wakes within a few milliseconds of
+ *   the pause ending, so it is usually in before the next frame starts, while GC notifications can lag. That is well
+ *   below any useful stutter threshold.
+ *
+ * Pauses are kept in small rings in the {@link System#nanoTime()} domain; readers query the paused time inside a window.
+ * The monitor only runs while the GC-aware stutter guard needs it (see {@link #setRunning}).
+ */
+public final class GcPauseMonitor {
+    private static final GcPauseMonitor INSTANCE = new GcPauseMonitor();
+    public static GcPauseMonitor get() { return INSTANCE; }
+
+    private static final long HICCUP_RESOLUTION_NS = 5_000_000L;
+    private static final long MIN_HICCUP_NS = 4_000_000L;
+
+    private final PauseRing gcPauses = new PauseRing();
+    private final PauseRing hiccups = new PauseRing();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong gcTotalNs = new AtomicLong();
+    private volatile long lastGcNs = 0L;
+    private volatile long maxGcNs = 0L;
+    private volatile String lastGcName = "";
+
+    private long uptimeOffsetNs;
+    private volatile Thread hiccupThread;
+
+    private GcPauseMonitor() {}
+
+    /** Start or stop to match the config; cheap to call every tick. */
+    public void setRunning(boolean running) {
+        if (running == (hiccupThread != null)) return;
+        if (running) start();
+        else stop();
+    }
+
+    public synchronized void start() {
+        if (hiccupThread != null) return;
+        // GcInfo times are ms since JVM start; map them onto nanoTime
+        uptimeOffsetNs = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (isConcurrent(gc.getName())) continue;
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+        Thread t = new Thread(this::runHiccupLoop, "Threadium-HiccupMonitor");
+        t.setDaemon(true);
+        hiccupThread = t;
+        t.start();
+        ThreadiumLog.debug("GC pause monitor started (%d collectors)", emitters.size());
+    }
+
+    public synchronized void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (Exception ignored) {
+            }
+        }
+        emitters.clear();
+        Thread t = hiccupThread;
+        hiccupThread = null;
+        if (t != null) {
+            t.interrupt();
+            ThreadiumLog.debug("GC pause monitor stopped");
+        }
+    }
+
+    private static boolean isConcurrent(String name) {
+        return name.contains("Cycles") || name.contains("Concurrent");
+    }
+
+    private void onNotification(Notification n, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        GcInfo gc = info.getGcInfo();
+        long durationNs = gc.getDuration() * 1_000_000L;
+        if (durationNs <= 0L) return;
+        long endNs = uptimeOffsetNs + gc.getEndTime() * 1_000_000L;
+        gcPauses.add(endNs, durationNs);
+        EventTrace.get().span(EventTrace.GC_PAUSE, endNs - durationNs, durationNs, 0L);
+        gcCount.incrementAndGet();
+        gcTotalNs.addAndGet(durationNs);
+        lastGcNs = durationNs;
+        if (durationNs > maxGcNs) maxGcNs = durationNs;
+        lastGcName = info.getGcName();
+    }
+
+    private void runHiccupLoop() {
+        double typicalOversleepNs = 0.0;
+        while (hiccupThread == Thread.currentThread()) {
+            long t0 = System.nanoTime();
+            LockSupport.parkNanos(HICCUP_RESOLUTION_NS);
+            long t1 = System.nanoTime();
+            long over = t1 - t0 - HICCUP_RESOLUTION_NS;
+            // Coarse OS timers oversleep on every park; only count what stands out against the usual jitter
+            long threshold = Math.max(MIN_HICCUP_NS, (long) (3.0 * typicalOversleepNs));
+            if (over > threshold) {
+                hiccups.add(t1, over);
+            } else {
+                typicalOversleepNs += 0.01 * (Math.max(0L, over) - typicalOversleepNs);
+            }
+        }
+    }
+
+    /**
+     * JVM-wide paused time overlapping [{@code fromNs}, {@code toNs}] (nanoTime domain). GC notifications and
+     * hiccups usually describe the same pause, so the larger of the two is returned rather than their sum.
+     */
+    public long pausedNanosBetween(long fromNs, long toNs) {
+        return Math.max(gcPauses.overlap(fromNs, toNs), hiccups.overlap(fromNs, toNs));
+    }
+
+    public long getGcCount() { return gcCount.get(); }
+    public double getGcTotalMs() { return gcTotalNs.get() / 1_000_000.0; }
+    public double getLastGcMs() { return lastGcNs / 1_000_000.0; }
+    public double getMaxGcMs() { return maxGcNs / 1_000_000.0; }
+    public String getLastGcName() { return lastGcName; }
+    public long getHiccupCount() { return hiccups.count(); }
+
+    /**
+     * Single-writer ring of (end, duration) pairs. A reader racing an overwrite may see a mixed entry for the
+     * oldest slot, which at worst misjudges one pause that is many pauses old.
+     */
+    private static final class PauseRing {
+        private static final int SIZE = 64;
+        private final AtomicLongArray end = new AtomicLongArray(SIZE);
+        private final AtomicLongArray length = new AtomicLongArray(SIZE);
+        private final AtomicLong head = new AtomicLong();
+
+        void add(long endNs, long durationNs) {
+            long h = head.get();
+            int i = (int) (h & (SIZE - 1));
+            end.set(i, endNs);
+            length.set(i, durationNs);
+            head.set(h + 1);
+        }
+
+        long overlap(long fromNs, long toNs) {
+            long h = head.get();
+            long total = 0L;
+            for (long k = h - 1; k >= 0 && k >= h - SIZE; k--) {
+                int i = (int) (k & (SIZE - 1));
+                long e = end.get(i);
+                long s = e - length.get(i);
+                if (e <= fromNs) continue;
+                long lo = Math.max(s, fromNs), hi = Math.min(e, toNs);
+                if (hi > lo) total += hi - lo;
+            }
+            return total;
+        }
+
+        long count() { return head.get(); }
+    }
+}
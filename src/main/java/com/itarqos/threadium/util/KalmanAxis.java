@@ -0,0 +1,132 @@
+package com.itarqos.threadium.util;
+
+/**
+ * One-dimensional constant-acceleration Kalman filter (state: position, velocity, acceleration)
+ * driven by white-noise jerk and observed through noisy position samples.
+ * All state is primitive so predict/update never allocate.
+ *
+ * The process noise adapts to the recent normalized innovation: when samples keep landing outside
+ * the predicted spread (erratic motion) the jerk noise is inflated, so the covariance, and with it the
+ * reported uncertainty, grows; steady motion lets it decay back to the base level.
+ */
+public final class KalmanAxis {
+    private final double jerkNoise;        // process noise spectral density (units^2 / s^5)
+    private final double measurementNoise; // position sample variance (units^2)
+    private final double initialVelocityVar;
+    private final double initialAccelVar;
+
+    private double p, v, a;
+    // Symmetric covariance
+    private double p00, p01, p02, p11, p12, p22;
+    private boolean initialized = false;
+    // Smoothed normalized innovation squared; ~1 when the model fits
+    private double nisEma = 1.0;
+
+    private static final double NIS_ALPHA = 0.1;
+    private static final double MAX_NOISE_SCALE = 50.0;
+
+    public KalmanAxis(double jerkNoise, double measurementNoise, double initialVelocityVar, double initialAccelVar) {
+        this.jerkNoise = jerkNoise;
+        this.measurementNoise = measurementNoise;
+        this.initialVelocityVar = initialVelocityVar;
+        this.initialAccelVar = initialAccelVar;
+    }
+
+    /**
+     * Restart the filter at a known position with zero motion and wide velocity/acceleration uncertainty.
+     */
+    public void reset(double position) {
+        p = position;
+        v = 0.0;
+        a = 0.0;
+        p00 = measurementNoise;
+        p01 = p02 = p12 = 0.0;
+        p11 = initialVelocityVar;
+        p22 = initialAccelVar;
+        nisEma = 1.0;
+        initialized = true;
+    }
+
+    public boolean isInitialized() { return initialized; }
+
+    /**
+     * Propagate state and covariance forward by dt seconds.
+     */
+    public void predict(double dt) {
+        if (!initialized || dt <= 0.0) return;
+        double h = dt, h2 = 0.5 * dt * dt;
+        p += v * h + a * h2;
+        v += a * h;
+
+        // P = F P F^T with F = [[1,h,h2],[0,1,h],[0,0,1]]
+        double r00 = p00 + h * p01 + h2 * p02;
+        double r01 = p01 + h * p11 + h2 * p12;
+        double r02 = p02 + h * p12 + h2 * p22;
+        double r11 = p11 + h * p12;
+        double r12 = p12 + h * p22;
+        double n00 = r00 + h * r01 + h2 * r02;
+        double n01 = r01 + h * r02;
+        double n11 = r11 + h * r12;
+        p00 = n00; p01 = n01; p02 = r02;
+        p11 = n11; p12 = r12;
+
+        // + Q for white-noise jerk
+        double q = jerkNoise * Math.min(MAX_NOISE_SCALE, Math.max(1.0, nisEma));
+        double dt2 = dt * dt, dt3 = dt2 * dt;
+        p00 += q * dt3 * dt2 / 20.0;
+        p01 += q * dt2 * dt2 / 8.0;
+        p02 += q * dt3 / 6.0;
+        p11 += q * dt3 / 3.0;
+        p12 += q * dt2 / 2.0;
+        p22 += q * dt;
+    }
+
+    /**
+     * Normalized innovation squared a sample would produce, without applying it.
+     */
+    public double innovationScore(double z) {
+        double y = z - p;
+        return y * y / (p00 + measurementNoise);
+    }
+
+    /**
+     * Fold in a position sample. Returns the normalized innovation squared.
+     */
+    public double update(double z) {
+        if (!initialized) {
+            reset(z);
+            return 0.0;
+        }
+        double y = z - p;
+        double s = p00 + measurementNoise;
+        double k0 = p00 / s, k1 = p01 / s, k2 = p02 / s;
+        p += k0 * y;
+        v += k1 * y;
+        a += k2 * y;
+        double a00 = p00, a01 = p01, a02 = p02;
+        p00 -= k0 * a00;
+        p01 -= k0 * a01;
+        p02 -= k0 * a02;
+        p11 -= k1 * a01;
+        p12 -= k1 * a02;
+        p22 -= k2 * a02;
+        double nis = y * y / s;
+        nisEma += NIS_ALPHA * (Math.min(nis, 4.0 * MAX_NOISE_SCALE) - nisEma);
+        return nis;
+    }
+
+    public double position() { return p; }
+    public double velocity() { return v; }
+    public double acceleration() { return a; }
+
+    /** Extrapolated position t seconds ahead. */
+    public double positionAhead(double t) {
+        return p + v * t + 0.5 * a * t * t;
+    }
+
+    /** Variance of {@link #positionAhead}. */
+    public double varianceAhead(double t) {
+        double t2 = t * t;
+        return p00 + 2.0 * t * p01 + t2 * (p11 + p02) + t2 * t * p12 + 0.25 * t2 * t2 * p22;
+    }
+}
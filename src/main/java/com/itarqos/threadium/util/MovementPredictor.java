@@ -1,96 +1,301 @@
 package com.itarqos.threadium.util;
 
+import com.itarqos.threadium.client.ThreadiumClient;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.Camera;
+import net.minecraft.entity.Entity;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
 
 /**
- * Learns recent player movement to predict forward direction and speed.
- * Provides smoothed forward vector and scalar speed for culling biasing.
+ * Tracks camera position and view direction with constant-acceleration Kalman filters
+ * (one per position axis, one each for yaw and pitch) and predicts the future pose.
+ *
+ * The camera is sampled every rendered frame with real elapsed time, so per-frame culling sees the
+ * current view direction instead of one up to a tick old. Tick-rate consumers read {@link #tickView()},
+ * a snapshot captured once at the end of each client tick, so all their decisions within a tick agree.
+ *
+ * Besides the predicted pose the predictor exposes its uncertainty, which callers turn into
+ * culling margins and cone widening: steady movement culls tightly, erratic movement conservatively.
+ * The filters restart on discontinuities (teleports, respawns, dimension or camera entity changes, long stalls).
+ * Sampling is allocation-free; the Vec3d getters are rebuilt lazily at most once per sample.
  */
 public final class MovementPredictor {
     private static final MovementPredictor INSTANCE = new MovementPredictor();
 
     public static MovementPredictor get() { return INSTANCE; }
 
-    // Exponential moving average for velocity and forward
-    private Vec3d emaVelocity = Vec3d.ZERO;
-    private Vec3d emaForward = new Vec3d(0, 0, 1);
-    private double emaSpeed = 0.0;
-    // Last known camera position (for simple future prediction)
-    private Vec3d lastCamPos = Vec3d.ZERO;
-    // Angular motion
-    private double emaAngularSpeed = 0.0;   // radians per tick (approx)
-    private double emaAngularAccel = 0.0;   // radians per tick^2 (approx)
-    private Vec3d lastForward = new Vec3d(0, 0, 1);
-
-    // 0..1 smoothing factors
-    private static final double ALPHA_VEL = 0.25;   // velocity smoothing
-    private static final double ALPHA_DIR = 0.20;   // forward smoothing
-    private static final double ALPHA_SPD = 0.20;   // speed smoothing
-    private static final double ALPHA_ANG = 0.25;   // angular smoothing
+    public static final double SECONDS_PER_TICK = 0.05;
+
+    // Process/measurement noise in blocks and degrees with seconds as the time unit
+    private static final double POS_JERK_NOISE = 6.4e4;
+    private static final double POS_MEASUREMENT_NOISE = 0.0025;
+    private static final double POS_INITIAL_VEL_VAR = 100.0;     // (10 blocks/s)^2
+    private static final double POS_INITIAL_ACC_VAR = 1600.0;    // (40 blocks/s^2)^2
+    private static final double ANG_JERK_NOISE = 1.28e8;
+    private static final double ANG_MEASUREMENT_NOISE = 0.25;
+    private static final double ANG_INITIAL_VEL_VAR = 1.3e5;     // (360 deg/s)^2
+    private static final double ANG_INITIAL_ACC_VAR = 1.3e7;     // (3600 deg/s^2)^2
+    // Discontinuity gates: chi-square style score plus an absolute jump so tiny-variance filters do not reset on noise
+    private static final double POS_RESET_SCORE = 50.0;
+    private static final double POS_RESET_JUMP = 4.0;      // blocks
+    private static final double ANG_RESET_SCORE = 200.0;
+    private static final double ANG_RESET_JUMP = 60.0;     // degrees
+    // Gaps longer than this (loading screens, pauses, hitches) restart instead of extrapolating
+    private static final double MAX_SAMPLE_GAP_SECONDS = 0.25;
+
+    private final KalmanAxis px = new KalmanAxis(POS_JERK_NOISE, POS_MEASUREMENT_NOISE, POS_INITIAL_VEL_VAR, POS_INITIAL_ACC_VAR);
+    private final KalmanAxis py = new KalmanAxis(POS_JERK_NOISE, POS_MEASUREMENT_NOISE, POS_INITIAL_VEL_VAR, POS_INITIAL_ACC_VAR);
+    private final KalmanAxis pz = new KalmanAxis(POS_JERK_NOISE, POS_MEASUREMENT_NOISE, POS_INITIAL_VEL_VAR, POS_INITIAL_ACC_VAR);
+    private final KalmanAxis yaw = new KalmanAxis(ANG_JERK_NOISE, ANG_MEASUREMENT_NOISE, ANG_INITIAL_VEL_VAR, ANG_INITIAL_ACC_VAR);
+    private final KalmanAxis pitch = new KalmanAxis(ANG_JERK_NOISE, ANG_MEASUREMENT_NOISE, ANG_INITIAL_VEL_VAR, ANG_INITIAL_ACC_VAR);
+
+    private World trackedWorld;
+    private Entity trackedCamera;
+    private long lastSampleNanos = 0L;
+    private boolean pendingReset = true;
+    private int resetCount = 0;
+
+    // Lazily rebuilt views
+    private long version = 0L;
+    private long forwardVersion = -1L, velocityVersion = -1L, predictedVersion = -1L;
+    private int predictedTicks = Integer.MIN_VALUE;
+    private Vec3d forward = new Vec3d(0, 0, 1);
+    private Vec3d velocity = Vec3d.ZERO;
+    private Vec3d predicted = Vec3d.ZERO;
+
+    private final Snapshot tickView = new Snapshot();
 
     private MovementPredictor() {}
 
-    public void update(double tickDelta) {
+    /**
+     * A predictor that is not tied to the client camera; fed through {@link #sample} by the offline trace replayer.
+     */
+    public static MovementPredictor detached() {
+        return new MovementPredictor();
+    }
+
+    /**
+     * Restart the filters on the next sample (world change in a replayed trace).
+     */
+    public void requestReset() {
+        pendingReset = true;
+    }
+
+    /**
+     * Sample the render camera. Called once per rendered frame at the start of world rendering.
+     */
+    public void onFrame(Camera camera) {
         MinecraftClient mc = MinecraftClient.getInstance();
-        if (mc == null || mc.getCameraEntity() == null) return;
-        Vec3d camPosPrev = mc.getCameraEntity().prevX != 0 || mc.getCameraEntity().prevY != 0 || mc.getCameraEntity().prevZ != 0
-                ? new Vec3d(mc.getCameraEntity().prevX, mc.getCameraEntity().prevY, mc.getCameraEntity().prevZ)
-                : mc.getCameraEntity().getPos();
-        Vec3d camPos = mc.getCameraEntity().getCameraPosVec((float) tickDelta);
-        Vec3d vel = camPos.subtract(camPosPrev);
-        lastCamPos = camPos;
+        Entity focused = camera != null ? camera.getFocusedEntity() : null;
+        if (mc.world == null || focused == null) {
+            trackedWorld = null;
+            trackedCamera = null;
+            return;
+        }
+        if (mc.world != trackedWorld || focused != trackedCamera) {
+            pendingReset = true;
+            trackedWorld = mc.world;
+            trackedCamera = focused;
+        }
+        Vec3d pos = camera.getPos();
+        sample(pos.x, pos.y, pos.z, camera.getYaw(), camera.getPitch(), System.nanoTime());
+    }
+
+    /**
+     * Fold in one camera pose observed at the given monotonic time. Pure with respect to the game:
+     * it only reads its arguments, so recorded poses can be replayed through it.
+     */
+    public void sample(double x, double y, double z, double yawDeg, double pitchDeg, long nanos) {
+        double dt = (nanos - lastSampleNanos) / 1.0e9;
+        lastSampleNanos = nanos;
+        if (pendingReset || !px.isInitialized() || dt > MAX_SAMPLE_GAP_SECONDS) {
+            resetAll(x, y, z, yawDeg, pitchDeg);
+            return;
+        }
+        if (dt <= 0.0) return;
+        version++;
+
+        px.predict(dt);
+        py.predict(dt);
+        pz.predict(dt);
+        yaw.predict(dt);
+        pitch.predict(dt);
+
+        // Teleports, respawns and knockback spikes: restart instead of extrapolating through the jump
+        double posScore = px.innovationScore(x) + py.innovationScore(y) + pz.innovationScore(z);
+        double jx = x - px.position(), jy = y - py.position(), jz = z - pz.position();
+        if (posScore > POS_RESET_SCORE && jx * jx + jy * jy + jz * jz > POS_RESET_JUMP * POS_RESET_JUMP) {
+            resetAll(x, y, z, yawDeg, pitchDeg);
+            return;
+        }
+        px.update(x);
+        py.update(y);
+        pz.update(z);
 
-        // EMA for velocity
-        emaVelocity = emaVelocity.multiply(1.0 - ALPHA_VEL).add(vel.multiply(ALPHA_VEL));
+        // Unwrap yaw to the branch nearest the filter so 359 -> 1 is a 2 degree turn
+        double predYaw = yaw.position();
+        double unwrapped = yawDeg + 360.0 * Math.rint((predYaw - yawDeg) / 360.0);
+        double angScore = yaw.innovationScore(unwrapped) + pitch.innovationScore(pitchDeg);
+        double jyaw = unwrapped - predYaw, jpitch = pitchDeg - pitch.position();
+        if (angScore > ANG_RESET_SCORE && Math.sqrt(jyaw * jyaw + jpitch * jpitch) > ANG_RESET_JUMP) {
+            yaw.reset(unwrapped);
+            pitch.reset(pitchDeg);
+            resetCount++;
+            return;
+        }
+        yaw.update(unwrapped);
+        pitch.update(pitchDeg);
+    }
 
-        // EMA for forward/look vector
-        Vec3d forward = mc.getCameraEntity().getRotationVec((float) tickDelta).normalize();
-        emaForward = lerpDir(emaForward, forward, ALPHA_DIR);
+    private void resetAll(double x, double y, double z, double yawDeg, double pitchDeg) {
+        version++;
+        px.reset(x);
+        py.reset(y);
+        pz.reset(z);
+        yaw.reset(yawDeg);
+        pitch.reset(pitchDeg);
+        pendingReset = false;
+        resetCount++;
+    }
 
-        // Angular velocity from change in forward vector
-        double dot = clamp(emaForward.dotProduct(lastForward), -1.0, 1.0);
-        double deltaAngle = Math.acos(dot); // radians
-        double angVel = deltaAngle; // approx per tick
-        double prevAng = emaAngularSpeed;
-        emaAngularSpeed = emaAngularSpeed * (1.0 - ALPHA_ANG) + angVel * ALPHA_ANG;
-        // Angular acceleration as change in smoothed angular speed
-        double angAcc = emaAngularSpeed - prevAng;
-        emaAngularAccel = emaAngularAccel * (1.0 - ALPHA_ANG) + angAcc * ALPHA_ANG;
-        lastForward = emaForward;
+    /**
+     * Capture the current estimate for tick-rate consumers. Called once at the end of each client tick.
+     */
+    public void captureTickView() {
+        tickView.capture(this);
+    }
 
-        // EMA for speed (blocks per tick approximation)
-        double spd = vel.length();
-        emaSpeed = emaSpeed * (1.0 - ALPHA_SPD) + spd * ALPHA_SPD;
+    /** Estimate as of the last client tick; stable for the whole tick. */
+    public Snapshot tickView() {
+        return tickView;
     }
 
-    private static Vec3d lerpDir(Vec3d a, Vec3d b, double t) {
-        Vec3d v = a.multiply(1.0 - t).add(b.multiply(t));
-        double len = v.length();
-        if (len < 1e-6) return a;
-        return v.multiply(1.0 / len);
+    public Vec3d getSmoothedForward() {
+        if (forwardVersion != version) {
+            double yr = Math.toRadians(yaw.position());
+            double pr = Math.toRadians(CullingUtil.clamp(pitch.position(), -90.0, 90.0));
+            double cp = Math.cos(pr);
+            forward = new Vec3d(-Math.sin(yr) * cp, -Math.sin(pr), Math.cos(yr) * cp);
+            forwardVersion = version;
+        }
+        return forward;
     }
 
-    public Vec3d getSmoothedForward() { return emaForward; }
+    /** Speed in blocks per second. */
+    public double getSpeedPerSecond() {
+        double vx = px.velocity(), vy = py.velocity(), vz = pz.velocity();
+        return Math.sqrt(vx * vx + vy * vy + vz * vz);
+    }
 
-    public double getSmoothedSpeed() { return emaSpeed; }
+    /** Speed in blocks per tick, the unit the culling thresholds are tuned in. */
+    public double getSmoothedSpeed() {
+        return getSpeedPerSecond() * SECONDS_PER_TICK;
+    }
 
-    public Vec3d getSmoothedVelocity() { return emaVelocity; }
+    /** Velocity in blocks per second. */
+    public Vec3d getSmoothedVelocity() {
+        if (velocityVersion != version) {
+            velocity = new Vec3d(px.velocity(), py.velocity(), pz.velocity());
+            velocityVersion = version;
+        }
+        return velocity;
+    }
 
-    public double getAngularSpeed() { return emaAngularSpeed; }
+    /** Angular speed of the view direction in radians per second. */
+    public double getAngularSpeed() {
+        double cp = Math.cos(Math.toRadians(pitch.position()));
+        double wy = yaw.velocity() * cp, wp = pitch.velocity();
+        return Math.toRadians(Math.sqrt(wy * wy + wp * wp));
+    }
 
-    public double getAngularAcceleration() { return emaAngularAccel; }
+    /** Angular acceleration magnitude of the view direction in radians per second squared. */
+    public double getAngularAcceleration() {
+        double cp = Math.cos(Math.toRadians(pitch.position()));
+        double ay = yaw.acceleration() * cp, ap = pitch.acceleration();
+        return Math.toRadians(Math.sqrt(ay * ay + ap * ap));
+    }
 
     /**
-     * Predict a future camera position assuming constant recent velocity for N ticks ahead.
-     * Example: ticksAhead=2 predicts roughly two ticks into the future.
+     * Predict the camera position N ticks ahead from the filtered position, velocity and acceleration.
      */
     public Vec3d getPredictedCamPos(int ticksAhead) {
-        if (ticksAhead <= 0) return lastCamPos;
-        return lastCamPos.add(emaVelocity.multiply(ticksAhead));
+        if (predictedVersion != version || predictedTicks != ticksAhead) {
+            double t = Math.max(0, ticksAhead) * SECONDS_PER_TICK;
+            predicted = new Vec3d(px.positionAhead(t), py.positionAhead(t), pz.positionAhead(t));
+            predictedVersion = version;
+            predictedTicks = ticksAhead;
+        }
+        return predicted;
+    }
+
+    /** One-sigma radius of the predicted position N ticks ahead, in blocks. */
+    public double getPositionSigma(int ticksAhead) {
+        double t = Math.max(0, ticksAhead) * SECONDS_PER_TICK;
+        return Math.sqrt(px.varianceAhead(t) + py.varianceAhead(t) + pz.varianceAhead(t));
+    }
+
+    /** One-sigma error of the predicted view direction N ticks ahead, in degrees. */
+    public double getAngleSigmaDegrees(int ticksAhead) {
+        double t = Math.max(0, ticksAhead) * SECONDS_PER_TICK;
+        return Math.sqrt(yaw.varianceAhead(t) + pitch.varianceAhead(t));
+    }
+
+    /**
+     * Extra distance (blocks) to add to culling cutoffs and the prefetch radius for the configured look-ahead.
+     */
+    public double getCullingMargin() {
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableUncertaintyMargins) return 0.0;
+        double k = Math.max(0.0, ThreadiumClient.CONFIG.uncertaintySigmaScale);
+        double sigma = getPositionSigma(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+        return Math.min(Math.max(0.0, ThreadiumClient.CONFIG.maxUncertaintyMargin), k * sigma);
+    }
+
+    /**
+     * Extra degrees to widen the visible cone by for the configured look-ahead.
+     */
+    public double getConeWidening() {
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableUncertaintyMargins) return 0.0;
+        double k = Math.max(0.0, ThreadiumClient.CONFIG.uncertaintySigmaScale);
+        double sigma = getAngleSigmaDegrees(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
+        return Math.min(Math.max(0.0, ThreadiumClient.CONFIG.maxUncertaintyConeDegrees), k * sigma);
     }
 
-    private static double clamp(double v, double lo, double hi) {
-        return v < lo ? lo : (v > hi ? hi : v);
+    public int getResetCount() { return resetCount; }
+
+    /**
+     * Copy of the predictor outputs taken at one instant, for consumers that run at tick rate.
+     */
+    public static final class Snapshot {
+        private Vec3d forward = new Vec3d(0, 0, 1);
+        private Vec3d velocity = Vec3d.ZERO;
+        private Vec3d predictedCamPos = Vec3d.ZERO;
+        private double speed, angularSpeed, angularAcceleration, cullingMargin, coneWidening;
+
+        private void capture(MovementPredictor p) {
+            int ahead = ThreadiumClient.CONFIG != null ? Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks) : 0;
+            forward = p.getSmoothedForward();
+            velocity = p.getSmoothedVelocity();
+            predictedCamPos = p.getPredictedCamPos(ahead);
+            speed = p.getSmoothedSpeed();
+            angularSpeed = p.getAngularSpeed();
+            angularAcceleration = p.getAngularAcceleration();
+            cullingMargin = p.getCullingMargin();
+            coneWidening = p.getConeWidening();
+        }
+
+        public Vec3d getSmoothedForward() { return forward; }
+        /** Blocks per second. */
+        public Vec3d getSmoothedVelocity() { return velocity; }
+        /** Camera position predicted the configured number of ticks ahead. */
+        public Vec3d getPredictedCamPos() { return predictedCamPos; }
+        /** Blocks per tick. */
+        public double getSmoothedSpeed() { return speed; }
+        /** Radians per second. */
+        public double getAngularSpeed() { return angularSpeed; }
+        /** Radians per second squared. */
+        public double getAngularAcceleration() { return angularAcceleration; }
+        public double getCullingMargin() { return cullingMargin; }
+        public double getConeWidening() { return coneWidening; }
     }
 }
@@ -0,0 +1,66 @@
+package com.itarqos.threadium.util;
+
+/**
+ * Small PID loop with clamped output, conditional-integration anti-windup and a slew-rate limit on the output.
+ * The derivative acts on the measurement (not the error) so target changes do not kick the output.
+ */
+public final class PidController {
+    private final double kp, ki, kd;
+    private final double outMin, outMax;
+    private final double maxRisePerSec, maxFallPerSec;
+
+    private double integral = 0.0;
+    private double lastMeasurement = Double.NaN;
+    private double output = 0.0;
+
+    /**
+     * @param maxRisePerSec how fast the output may increase per second
+     * @param maxFallPerSec how fast the output may decrease per second
+     */
+    public PidController(double kp, double ki, double kd, double outMin, double outMax,
+                         double maxRisePerSec, double maxFallPerSec) {
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.outMin = outMin;
+        this.outMax = outMax;
+        this.maxRisePerSec = maxRisePerSec;
+        this.maxFallPerSec = maxFallPerSec;
+    }
+
+    /**
+     * Advance the loop by {@code dtSec} and return the new output.
+     *
+     * @param error       setpoint minus measurement, in the controller's units
+     * @param measurement the measured value in the same units, used for the derivative term
+     */
+    public double update(double error, double measurement, double dtSec) {
+        if (dtSec <= 0.0) return output;
+        double derivative = Double.isNaN(lastMeasurement) ? 0.0 : -(measurement - lastMeasurement) / dtSec;
+        lastMeasurement = measurement;
+
+        double candidateIntegral = integral + error * dtSec;
+        double raw = kp * error + ki * candidateIntegral + kd * derivative;
+        // Anti-windup: only accept the integral step if it does not push further into saturation
+        boolean saturatedHigh = raw > outMax && error > 0.0;
+        boolean saturatedLow = raw < outMin && error < 0.0;
+        if (!saturatedHigh && !saturatedLow) {
+            integral = candidateIntegral;
+        } else {
+            raw = kp * error + ki * integral + kd * derivative;
+        }
+        double target = CullingUtil.clamp(raw, outMin, outMax);
+
+        double rise = maxRisePerSec * dtSec, fall = maxFallPerSec * dtSec;
+        output = CullingUtil.clamp(target, output - fall, output + rise);
+        return output;
+    }
+
+    public double getOutput() { return output; }
+
+    public void reset() {
+        integral = 0.0;
+        lastMeasurement = Double.NaN;
+        output = 0.0;
+    }
+}
@@ -0,0 +1,170 @@
+package com.itarqos.threadium.util;
+
+import com.itarqos.threadium.client.ThreadiumClient;
+
+/**
+ * One time budget per frame shared by all of Threadium's deferrable work, so slice flushing, gradual unhide,
+ * particle spawns and scheduler tasks cannot each take "their" share and together overshoot the frame.
+ *
+ * The budget is {@code workBudgetPercent} of the target frame time, scaled by the QoS controller, and renews at
+ * the end of each world render (so it covers the following client ticks and the next frame). Consumers ask for
+ * units of work with {@link #grant}; the arbiter converts units to time with a learned per-unit cost and answers
+ * with how many fit. Time typically used by higher priorities that have not run yet this period is held in
+ * reserve, so low-priority work only gets what is left over. Everything refused is counted as deferred.
+ *
+ * Some work mostly costs time later (a scheduled section rebuild is cheap to request but expensive to upload),
+ * so each consumer has a nominal minimum cost per unit. Render thread only.
+ */
+public final class WorkBudgetArbiter {
+    private static final WorkBudgetArbiter INSTANCE = new WorkBudgetArbiter();
+    public static WorkBudgetArbiter get() { return INSTANCE; }
+
+    /**
+     * Budget consumers; priority 0 is served first.
+     */
+    public enum Consumer {
+        SLICE_FLUSH(0, 40_000L),
+        RENDER_TASK_HIGH(0, 10_000L),
+        PARTICLE_SPAWN(1, 2_000L),
+        RENDER_TASK_NORMAL(1, 10_000L),
+        UNHIDE(2, 40_000L),
+        RENDER_TASK_LOW(2, 10_000L);
+
+        final int priority;
+        final long minCostNs;
+
+        Consumer(int priority, long minCostNs) {
+            this.priority = priority;
+            this.minCostNs = minCostNs;
+        }
+    }
+
+    private static final int LEVELS = 3;
+    private static final Consumer[] CONSUMERS = Consumer.values();
+    private static final double COST_ALPHA = 0.1;
+    private static final double DEMAND_ALPHA = 0.1;
+
+    private long budgetNs = 2_000_000L;
+    private long usedNs = 0L;
+    private final long[] usedByLevel = new long[LEVELS];
+    private final double[] demandNs = new double[LEVELS];
+    private final double[] costNs = new double[CONSUMERS.length];
+    private final long[] deferred = new long[CONSUMERS.length];
+    private final long[] lastDeferred = new long[CONSUMERS.length];
+    private final long[] totalDeferred = new long[CONSUMERS.length];
+    private long lastBudgetNs = 0L;
+    private long lastUsedNs = 0L;
+
+    private WorkBudgetArbiter() {
+        for (Consumer c : CONSUMERS) costNs[c.ordinal()] = c.minCostNs;
+    }
+
+    public boolean isEnabled() {
+        return ThreadiumClient.CONFIG == null || ThreadiumClient.CONFIG.enableWorkBudgetArbiter;
+    }
+
+    /**
+     * Close the current budget period and open the next one. Called at the end of each world render.
+     */
+    public void beginPeriod() {
+        for (int l = 0; l < LEVELS; l++) {
+            demandNs[l] += DEMAND_ALPHA * (usedByLevel[l] - demandNs[l]);
+            usedByLevel[l] = 0L;
+        }
+        for (int i = 0; i < CONSUMERS.length; i++) {
+            lastDeferred[i] = deferred[i];
+            totalDeferred[i] += deferred[i];
+            deferred[i] = 0L;
+        }
+        lastBudgetNs = budgetNs;
+        lastUsedNs = usedNs;
+        usedNs = 0L;
+        budgetNs = computeBudgetNs();
+    }
+
+    private static long computeBudgetNs() {
+        int fps = ThreadiumClient.CONFIG != null ? Math.max(30, Math.min(240, ThreadiumClient.CONFIG.targetFps)) : 120;
+        double percent = ThreadiumClient.CONFIG != null ? CullingUtil.clamp(ThreadiumClient.CONFIG.workBudgetPercent, 1, 80) : 20;
+        double frameNs = 1_000_000_000.0 / fps;
+        return (long) (frameNs * percent / 100.0 * FrameBudgetController.get().getWorkBudgetScale());
+    }
+
+    private long available(int priority) {
+        long reserve = 0L;
+        // Hold back what higher priorities usually need but have not used yet this period
+        for (int l = 0; l < priority; l++) {
+            reserve += Math.max(0L, (long) demandNs[l] - usedByLevel[l]);
+        }
+        return budgetNs - usedNs - reserve;
+    }
+
+    private double unitCost(Consumer c) {
+        return Math.max(c.minCostNs, costNs[c.ordinal()]);
+    }
+
+    /**
+     * How many of {@code wanted} units of work fit in the remaining budget. The refused rest is counted as deferred.
+     * The top priority always gets at least one unit per period so it can never starve entirely.
+     */
+    public int grant(Consumer c, int wanted) {
+        if (wanted <= 0) return 0;
+        if (!isEnabled()) return wanted;
+        long avail = available(c.priority);
+        int allowed = avail <= 0L ? 0 : (int) Math.min(wanted, (long) Math.floor(avail / unitCost(c)));
+        if (allowed == 0 && c.priority == 0 && usedByLevel[0] == 0L) allowed = 1;
+        deferred[c.ordinal()] += wanted - allowed;
+        return allowed;
+    }
+
+    /**
+     * Single-unit grant that is charged at the estimated cost right away; for cheap, untimed work such as particle spawns.
+     */
+    public boolean tryConsume(Consumer c) {
+        if (!isEnabled()) return true;
+        if (grant(c, 1) == 0) return false;
+        long cost = (long) unitCost(c);
+        usedNs += cost;
+        usedByLevel[c.priority] += cost;
+        return true;
+    }
+
+    /**
+     * Time the consumer could still use this period after reserves for higher priorities (may be negative).
+     */
+    public long remainingNanos(Consumer c) {
+        return isEnabled() ? available(c.priority) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether a time-sliced consumer may start another unit now.
+     */
+    public boolean hasTime(Consumer c) {
+        return !isEnabled() || available(c.priority) > 0L;
+    }
+
+    /**
+     * Report work that was done: updates the learned per-unit cost and charges the budget
+     * (at least the consumer's nominal cost per unit).
+     */
+    public void charge(Consumer c, int units, long elapsedNs) {
+        if (units <= 0) return;
+        int i = c.ordinal();
+        costNs[i] += COST_ALPHA * ((double) elapsedNs / units - costNs[i]);
+        long charged = Math.max(elapsedNs, units * c.minCostNs);
+        usedNs += charged;
+        usedByLevel[c.priority] += charged;
+    }
+
+    /**
+     * Count work a time-sliced consumer left queued because the budget ran out.
+     */
+    public void defer(Consumer c, int units) {
+        if (units > 0) deferred[c.ordinal()] += units;
+    }
+
+    public double getLastBudgetMs() { return lastBudgetNs / 1_000_000.0; }
+    public double getLastUsedMs() { return lastUsedNs / 1_000_000.0; }
+    /** Units deferred during the last completed period. */
+    public long getLastDeferred(Consumer c) { return lastDeferred[c.ordinal()]; }
+    public long getTotalDeferred(Consumer c) { return totalDeferred[c.ordinal()]; }
+}
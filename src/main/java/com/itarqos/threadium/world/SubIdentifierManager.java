@@ -4,6 +4,9 @@ import com.itarqos.threadium.util.CullingUtil;
 import com.itarqos.threadium.util.CullingStats;
 import com.itarqos.threadium.util.MovementPredictor;
 import com.itarqos.threadium.util.FrameBudgetController;
+import com.itarqos.threadium.util.FramePhaseProfiler;
+import com.itarqos.threadium.util.WorkBudgetArbiter;
+import com.itarqos.threadium.trace.EventTrace;
 import com.itarqos.threadium.client.ThreadiumClient;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.WorldRenderer;
@@ -24,10 +27,50 @@ import com.itarqos.threadium.mixin.render.WorldRendererAccessor;
  *   sx = (x & 15) >> 3, sz = (z & 15) >> 3, sliceIndex = (sz << 1) | sx  // 0..3
  */
 public final class SubIdentifierManager {
-    private static final SubIdentifierManager INSTANCE = new SubIdentifierManager();
+    private static final SubIdentifierManager INSTANCE = new SubIdentifierManager(SubIdentifierManager::scheduleOnWorldRenderer, true);
 
     public static SubIdentifierManager get() { return INSTANCE; }
 
+    /**
+     * Receives the section origins the planner decides to rebuild.
+     */
+    @FunctionalInterface
+    public interface SectionSink {
+        void schedule(BlockPos sectionOrigin);
+    }
+
+    /**
+     * Camera and budget state for one planning pass.
+     */
+    public record FlushInputs(Vec3d camPos,
+                              Vec3d forward,
+                              double speed,                // blocks per tick
+                              double angularAcceleration,  // rad/s^2
+                              double cullingMargin,
+                              double coneWidening,
+                              double farCutoffMultiplier,
+                              double unhideMultiplier,
+                              boolean longFrame,
+                              long nowMillis) {}
+
+    /**
+     * A planner that is not connected to the client world; used by the offline trace replayer.
+     * It ignores the live {@link WorkBudgetArbiter}.
+     */
+    public static SubIdentifierManager detached(SectionSink sink) {
+        return new SubIdentifierManager(sink, false);
+    }
+
+    private static void scheduleOnWorldRenderer(BlockPos origin) {
+        WorldRenderer wr = MinecraftClient.getInstance().worldRenderer;
+        if (wr != null) {
+            ((WorldRendererAccessor) wr).threadium$invokeScheduleSectionRender(origin, false);
+        }
+    }
+
+    private final SectionSink sink;
+    private final boolean useArbiter;
+
     private final Map<ChunkId, BitSet> dirtySlices = new HashMap<>(); // 4 slices per chunk (0..3)
     // For each chunk, maintain per-slice (0..3) set of pending section-origins (as long) that must be scheduled
     private final Map<ChunkId, java.util.HashSet<Long>[]> slicePendingSections = new HashMap<>();
@@ -38,8 +81,13 @@ public final class SubIdentifierManager {
     private final Map<SectionKey, Long> lastVisibleFrame = new HashMap<>();
     // Queue of section origins to gradually unhide/schedule (BlockPos aligned to 16x16x16 section origins)
     private final Deque<BlockPos> pendingUnhide = new ArrayDeque<>();
+    // Sections of in-view (or prefetch) slices that the last plan left unscheduled
+    private int eligibleBacklog = 0;
 
-    private SubIdentifierManager() {}
+    private SubIdentifierManager(SectionSink sink, boolean useArbiter) {
+        this.sink = sink;
+        this.useArbiter = useArbiter;
+    }
 
     public void markBlockChanged(BlockPos pos) {
         ChunkPos cp = new ChunkPos(pos);
@@ -80,8 +128,7 @@ public final class SubIdentifierManager {
         return arr[slice].isEmpty();
     }
 
-    private boolean debounce(ChunkId id, int sliceIndex) {
-        long now = System.currentTimeMillis();
+    private boolean debounce(ChunkId id, int sliceIndex, long now) {
         int debounceMs = ThreadiumClient.CONFIG != null ? Math.max(0, ThreadiumClient.CONFIG.sliceDebounceMillis) : 200;
         SectionKey key = new SectionKey(id.x(), sliceIndex, id.z());
         Long last = lastScheduledMs.get(key);
@@ -108,9 +155,27 @@ public final class SubIdentifierManager {
     public void flushVisible() {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc == null || mc.getCameraEntity() == null || mc.world == null) return;
-        WorldRenderer wr = mc.worldRenderer;
-        if (wr == null) return;
+        if (mc.worldRenderer == null) return;
 
+        // Runs at tick rate: read the predictor's per-tick view so every slice sees the same camera
+        MovementPredictor.Snapshot view = MovementPredictor.get().tickView();
+        float tickDelta = mc.getRenderTickCounter().getTickDelta(false);
+        Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
+        if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enablePredictionEverywhere) {
+            camPos = view.getPredictedCamPos();
+        }
+        FrameBudgetController qos = FrameBudgetController.get();
+        plan(new FlushInputs(camPos, view.getSmoothedForward(), view.getSmoothedSpeed(), view.getAngularAcceleration(),
+                view.getCullingMargin(), view.getConeWidening(),
+                qos.getFarCutoffMultiplier(FramePhaseProfiler.Phase.TERRAIN), qos.getUnhideMultiplier(), qos.wasLongFrame(),
+                System.currentTimeMillis()));
+    }
+
+    /**
+     * Pick which dirty slices to rebuild for the given camera/budget state and hand their sections to the sink.
+     * Does not touch the client, so recorded sessions can be replayed through it.
+     */
+    public void plan(FlushInputs in) {
         // Advance frame counter per client tick
         frameCounter++;
 
@@ -126,8 +191,7 @@ public final class SubIdentifierManager {
                 for (int slice = bits.nextSetBit(0); slice >= 0; slice = bits.nextSetBit(slice + 1)) {
                     if (arr != null && arr[slice] != null) {
                         for (long lp : arr[slice]) {
-                            BlockPos origin = BlockPos.fromLong(lp);
-                            ((WorldRendererAccessor) wr).threadium$invokeScheduleSectionRender(origin, false);
+                            sink.schedule(BlockPos.fromLong(lp));
                             CullingStats.incSliceFlushed();
                         }
                         // clear per-slice pending after scheduling all
@@ -138,23 +202,20 @@ public final class SubIdentifierManager {
                 slicePendingSections.remove(id);
                 itAll.remove();
             }
+            eligibleBacklog = 0;
             return;
         }
 
-        float tickDelta = mc.getRenderTickCounter().getTickDelta(false);
-        Vec3d camPos = mc.getCameraEntity().getCameraPosVec(tickDelta);
-        if (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enablePredictionEverywhere) {
-            camPos = MovementPredictor.get().getPredictedCamPos(Math.max(0, ThreadiumClient.CONFIG.predictionAheadTicks));
-        }
+        Vec3d camPos = in.camPos();
         // Use smoothed forward from predictor for stability
-        Vec3d forward = MovementPredictor.get().getSmoothedForward();
-        double speed = MovementPredictor.get().getSmoothedSpeed();
+        Vec3d forward = in.forward();
+        double speed = in.speed();
 
         // Frame-time QoS multipliers
-        double farCutoffMult = FrameBudgetController.get().getFarCutoffMultiplier();
+        double farCutoffMult = in.farCutoffMultiplier();
         int baseSliceBudget = ThreadiumClient.CONFIG != null ? Math.max(0, ThreadiumClient.CONFIG.sliceBudgetPerTick) : 24;
-        int sliceBudget = (int)Math.floor(baseSliceBudget * FrameBudgetController.get().getUnhideMultiplier());
-        if (FrameBudgetController.get().wasLongFrame() && ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableMicroStutterGuard) {
+        int sliceBudget = (int)Math.floor(baseSliceBudget * in.unhideMultiplier());
+        if (in.longFrame() && ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableMicroStutterGuard) {
             sliceBudget = 0; // freeze new work after a long frame
         }
 
@@ -162,7 +223,7 @@ public final class SubIdentifierManager {
         double turnBiasStrength = (ThreadiumClient.CONFIG != null && ThreadiumClient.CONFIG.enableTurnBiasPrefetch)
                 ? Math.max(0.0, Math.min(1.0, ThreadiumClient.CONFIG.turnBiasStrength))
                 : 0.0;
-        double angAccel = MovementPredictor.get().getAngularAcceleration();
+        double angAccel = in.angularAcceleration(); // rad/s^2
 
         // Dynamic thresholds: move more -> look farther ahead, slightly less behind
         double baseFront = 64.0;
@@ -175,10 +236,16 @@ public final class SubIdentifierManager {
         frontMaxDistance *= farCutoffMult;
         behindMaxDistance *= farCutoffMult;
         farCutoff *= farCutoffMult;
+        // Uncertain prediction: keep more slices and prefetch a wider, deeper cone
+        double margin = in.cullingMargin();
+        double coneWiden = in.coneWidening();
+        frontMaxDistance += margin;
+        behindMaxDistance += margin;
+        farCutoff += margin;
         // Apply turn-bias: widen cone and slightly extend far cutoff during rapid turns
         double turnWidenDeg = 0.0;
         if (turnBiasStrength > 0.0) {
-            double turnMag = Math.min(1.0, Math.abs(angAccel) * 6.0); // rough mapping
+            double turnMag = Math.min(1.0, Math.abs(angAccel) * 0.015); // saturates around 67 rad/s^2
             turnWidenDeg = 30.0 * turnBiasStrength * turnMag; // up to +30° widening
             farCutoff *= (1.0 + 0.15 * turnBiasStrength * turnMag);
         }
@@ -206,7 +273,7 @@ public final class SubIdentifierManager {
                         camPos, forward, target,
                         frontMaxDistance,
                         behindMaxDistance,
-                        125.0
+                        Math.min(180.0, 125.0 + coneWiden)
                 );
                 double dist = target.distanceTo(camPos);
                 boolean tooFar = dist > farCutoff; // general far cutoff (dynamic)
@@ -220,7 +287,7 @@ public final class SubIdentifierManager {
                         Vec3d toN = to.multiply(1.0 / len);
                         double dot = CullingUtil.clamp(forward.dotProduct(toN), -1.0, 1.0);
                         double ang = Math.toDegrees(Math.acos(dot));
-                        inForwardCone = ang < (35.0 + turnWidenDeg);
+                        inForwardCone = ang < (35.0 + turnWidenDeg + coneWiden);
                     }
                 }
 
@@ -234,7 +301,7 @@ public final class SubIdentifierManager {
                         continue;
                     }
                     // Debounce to avoid thrash (per-slice index 0..3)
-                    if (debounce(id, slice)) {
+                    if (debounce(id, slice, in.nowMillis())) {
                         CullingStats.incSliceDebounced();
                         continue;
                     }
@@ -274,7 +341,17 @@ public final class SubIdentifierManager {
         }
 
         // Prioritize and schedule within budget
+        if (!candidates.isEmpty() && sliceBudget > 0 && useArbiter) {
+            // Ask the shared frame budget for as many sections as are actually pending (up to the slice budget)
+            int pending = 0;
+            for (Cand c : candidates) {
+                java.util.HashSet<Long>[] arr = slicePendingSections.get(c.id);
+                if (arr != null && arr[c.slice] != null) pending += arr[c.slice].size();
+            }
+            sliceBudget = WorkBudgetArbiter.get().grant(WorkBudgetArbiter.Consumer.SLICE_FLUSH, Math.min(sliceBudget, pending));
+        }
         if (!candidates.isEmpty() && sliceBudget > 0) {
+            long flushStart = System.nanoTime();
             boolean useScreenSpace = ThreadiumClient.CONFIG == null || ThreadiumClient.CONFIG.enableScreenSpaceBudgeter;
             if (useScreenSpace) {
                 candidates.sort((a,b) -> Double.compare(b.score, a.score));
@@ -288,8 +365,7 @@ public final class SubIdentifierManager {
                     java.util.Iterator<Long> itL = arr[c.slice].iterator();
                     while (itL.hasNext() && scheduled < sliceBudget) {
                         long lp = itL.next();
-                        BlockPos origin = BlockPos.fromLong(lp);
-                        ((WorldRendererAccessor) wr).threadium$invokeScheduleSectionRender(origin, false);
+                        sink.schedule(BlockPos.fromLong(lp));
                         CullingStats.incSliceFlushed();
                         scheduled++;
                         // remove scheduled origin from pending set
@@ -304,7 +380,18 @@ public final class SubIdentifierManager {
                     }
                 }
             }
+            if (useArbiter) {
+                WorkBudgetArbiter.get().charge(WorkBudgetArbiter.Consumer.SLICE_FLUSH, scheduled, System.nanoTime() - flushStart);
+                EventTrace.get().span(EventTrace.SLICE_FLUSH, flushStart, scheduled);
+            }
+        }
+        // What was eligible this tick but did not fit the budget
+        int backlog = 0;
+        for (Cand c : candidates) {
+            java.util.HashSet<Long>[] arr = slicePendingSections.get(c.id);
+            if (arr != null && arr[c.slice] != null) backlog += arr[c.slice].size();
         }
+        eligibleBacklog = backlog;
         // Prune emptied entries
         dirtySlices.entrySet().removeIf(en -> en.getValue() == null || en.getValue().isEmpty());
 
@@ -314,18 +401,77 @@ public final class SubIdentifierManager {
         } else {
             int budget = Math.max(0, ThreadiumClient.CONFIG.unhidePerTick);
             // Apply QoS scaling and micro-stutter guard
-            budget = (int)Math.floor(budget * FrameBudgetController.get().getUnhideMultiplier());
-            if (FrameBudgetController.get().wasLongFrame() && ThreadiumClient.CONFIG.enableMicroStutterGuard) {
+            budget = (int)Math.floor(budget * in.unhideMultiplier());
+            if (in.longFrame() && ThreadiumClient.CONFIG.enableMicroStutterGuard) {
                 budget = 0;
             }
+            if (useArbiter) {
+                budget = WorkBudgetArbiter.get().grant(WorkBudgetArbiter.Consumer.UNHIDE, Math.min(budget, pendingUnhide.size()));
+            }
+            long unhideStart = System.nanoTime();
             int processed = 0;
             while (processed < budget && !pendingUnhide.isEmpty()) {
-                BlockPos pos = pendingUnhide.pollFirst();
-                ((WorldRendererAccessor) wr).threadium$invokeScheduleSectionRender(pos, false);
+                sink.schedule(pendingUnhide.pollFirst());
                 CullingStats.incSliceFlushed();
                 processed++;
             }
+            if (useArbiter && processed > 0) {
+                WorkBudgetArbiter.get().charge(WorkBudgetArbiter.Consumer.UNHIDE, processed, System.nanoTime() - unhideStart);
+                EventTrace.get().span(EventTrace.UNHIDE, unhideStart, processed);
+            }
+        }
+    }
+
+    /**
+     * Feed queued unhide work into spare time until {@code deadlineNanos} (the frame limiter's idle window).
+     * Scheduling is cheap but the rebuilds and uploads it triggers land in the next frames, so one window takes at
+     * most {@code unhidePerTick} sections, like a tick does. Not charged to the work budget. Returns how many sections
+     * were scheduled.
+     */
+    public int unhideUntil(long deadlineNanos) {
+        if (ThreadiumClient.CONFIG == null || !ThreadiumClient.CONFIG.enableVisibilityDeprioritization) return 0;
+        int cap = Math.max(0, ThreadiumClient.CONFIG.unhidePerTick);
+        long start = System.nanoTime();
+        int processed = 0;
+        while (processed < cap && !pendingUnhide.isEmpty() && System.nanoTime() < deadlineNanos) {
+            sink.schedule(pendingUnhide.pollFirst());
+            CullingStats.incSliceFlushed();
+            processed++;
+        }
+        if (processed > 0) EventTrace.get().span(EventTrace.UNHIDE, start, processed);
+        return processed;
+    }
+
+    /**
+     * Sections of dirty slices that the last plan found in view or prefetch range but left unscheduled (budget,
+     * stutter guard). Slices held back on purpose (behind the camera, too far, debounced) are not counted.
+     */
+    public int getEligibleBacklog() {
+        return eligibleBacklog;
+    }
+
+    /** Sections queued for gradual unhide. */
+    public int getPendingUnhideCount() {
+        return pendingUnhide.size();
+    }
+
+    /**
+     * Drop debounce entries older than the debounce window; they can no longer suppress anything.
+     * Stops at {@code deadlineNanos}. Returns how many were removed.
+     */
+    public int pruneDebounce(long nowMillis, long deadlineNanos) {
+        int debounceMs = ThreadiumClient.CONFIG != null ? Math.max(0, ThreadiumClient.CONFIG.sliceDebounceMillis) : 200;
+        int removed = 0;
+        int visited = 0;
+        java.util.Iterator<Long> it = lastScheduledMs.values().iterator();
+        while (it.hasNext()) {
+            if ((++visited & 255) == 0 && System.nanoTime() >= deadlineNanos) break;
+            if (nowMillis - it.next() >= debounceMs) {
+                it.remove();
+                removed++;
+            }
         }
+        return removed;
     }
 
     /**
@@ -357,6 +503,7 @@ public final class SubIdentifierManager {
         lastScheduledMs.clear();
         lastVisibleFrame.clear();
         pendingUnhide.clear();
+        eligibleBacklog = 0;
         frameCounter = 0L;
     }
 